@@ -0,0 +1,89 @@
+package com.visiplus.pmt.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measure the fan-out of one task event to 10k open streams, spread over one or many projects:
+ * the time from publish until every subscriber of the project was handed the event.
+ * Emitters only count what they are sent, so socket writes and JSON serialization are left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskEventBrokerBenchmark {
+
+    @Param({"10000"})
+    private int subscribers;
+
+    @Param({"1", "100"})
+    private int projects;
+
+    @Param({"4"})
+    private int senderThreads;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private TaskEventBroker broker;
+    private long nextId;
+    private int nextProject;
+
+    @Setup
+    public void setUp() {
+        broker = new TaskEventBroker(256, senderThreads, Duration.ofHours(1), 1000, subscribers, new SimpleMeterRegistry());
+        for (int i = 0; i < subscribers; i++) {
+            broker.subscribe((long) (i % projects), new CountingEmitter(delivered), null, (after, limit) -> List.of());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.shutdown();
+    }
+
+    @Benchmark
+    public long publishToAllSubscribers() {
+        long projectId = nextProject;
+        nextProject = (nextProject + 1) % projects;
+        long expected = delivered.get() + subscribers / projects;
+        broker.publish(new TaskChangedEvent(++nextId, projectId, 1L, TaskChangedEvent.Type.STATUS_CHANGED, "status",
+                "TODO", "IN_PROGRESS", nextId, null));
+        while (delivered.get() < expected) {
+            Thread.onSpinWait();
+        }
+        return expected;
+    }
+
+    private static final class CountingEmitter extends SseEmitter {
+
+        private final AtomicLong delivered;
+
+        private CountingEmitter(AtomicLong delivered) {
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            delivered.incrementAndGet();
+        }
+    }
+}
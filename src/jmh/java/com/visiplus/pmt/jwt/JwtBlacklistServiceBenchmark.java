@@ -0,0 +1,74 @@
+package com.visiplus.pmt.jwt;
+
+import com.visiplus.pmt.enums.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure JwtBlacklistService lookups, done once per authenticated request, as the number of revoked tokens grows.
+ * Active tokens are the common case and should be rejected by the bloom filter before the map is consulted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBlacklistServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    @Param({"1000", "100000"})
+    private int revokedTokens;
+
+    @Param({"100"})
+    private int activeTokens;
+
+    private JwtBlacklistService blacklistService;
+    private String[] revoked;
+    private String[] active;
+    private int nextRevoked;
+    private int nextActive;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService(SECRET, 3_600_000L, 0L);
+        blacklistService = new JwtBlacklistService(new InMemoryRevokedTokenStore(), 3_600_000L, revokedTokens);
+
+        revoked = new String[revokedTokens];
+        for (int i = 0; i < revokedTokens; i++) {
+            revoked[i] = jwtService.generateToken("revoked" + i + "@example.com", "revoked" + i, (long) i, List.of(Role.MEMBER));
+            blacklistService.blacklistToken(revoked[i]);
+        }
+        active = new String[activeTokens];
+        for (int i = 0; i < activeTokens; i++) {
+            active[i] = jwtService.generateToken("user" + i + "@example.com", "user" + i, (long) i, List.of(Role.MEMBER));
+        }
+    }
+
+    @Benchmark
+    public boolean lookupActiveToken() {
+        String token = active[nextActive];
+        nextActive = (nextActive + 1) % active.length;
+        return blacklistService.isTokenBlacklisted(token);
+    }
+
+    @Benchmark
+    public boolean lookupRevokedToken() {
+        String token = revoked[nextRevoked];
+        nextRevoked = (nextRevoked + 1) % revoked.length;
+        return blacklistService.isTokenBlacklisted(token);
+    }
+}
@@ -0,0 +1,64 @@
+package com.visiplus.pmt.jwt;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.visiplus.pmt.enums.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verify throughput of JwtService with and without the verified-token cache.
+ * A pool of active bearer tokens is replayed round-robin, as consecutive requests of logged-in users would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    @Param({"0", "10000"})
+    private long verifiedCacheSize;
+
+    @Param({"100"})
+    private int activeTokens;
+
+    private JwtService jwtService;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET, 3_600_000L, verifiedCacheSize);
+        tokens = new String[activeTokens];
+        for (int i = 0; i < activeTokens; i++) {
+            tokens[i] = jwtService.generateToken("user" + i + "@example.com", "user" + i, (long) i, List.of(Role.MEMBER));
+        }
+    }
+
+    @Benchmark
+    public DecodedJWT decodeToken() {
+        String token = tokens[next];
+        next = (next + 1) % tokens.length;
+        return jwtService.decodeToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("user@example.com", "user", 1L, List.of(Role.MEMBER));
+    }
+}
@@ -0,0 +1,155 @@
+package com.visiplus.pmt.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load generator used to compare the platform-thread default with the virtual-threads profile.
+ * Keeps a fixed number of requests in flight against one URL, each completed request being replaced by a new one,
+ * then prints throughput and latency percentiles and writes them as JSON, so that two runs can be diffed.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.visiplus.pmt.loadtest.HttpLoadTest \
+ *     -Dexec.args="--url=http://localhost:8098/api/tasks/user/1 --connections=5000 --duration=60 --label=platform"
+ * </pre>
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI uri = URI.create(options.getOrDefault("url", "http://localhost:8098/api/projects/all?size=50"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "5000"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        String token = options.get("token");
+        String label = options.getOrDefault("label", "run");
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        LoadRun run = new LoadRun(client, request.build(), connections);
+        System.out.printf("%s: %d connections to %s, warmup %ss, measurement %ss%n",
+                label, connections, uri, warmup.toSeconds(), duration.toSeconds());
+        run.start();
+        Thread.sleep(warmup.toMillis());
+        run.reset();
+        long startNanos = System.nanoTime();
+        Thread.sleep(duration.toMillis());
+        Map<String, Object> result = run.snapshot(label, uri, connections, System.nanoTime() - startNanos);
+        run.stop();
+
+        System.out.println(result);
+        File output = new File("target/load-test-" + label + ".json");
+        output.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, result);
+        System.out.println("Result saved to " + output.getPath());
+        System.exit(0);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static final class LoadRun {
+
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final int connections;
+
+        // Latencies in microseconds, up to one minute
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final LongAdder errors = new LongAdder();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private CountDownLatch stopped;
+
+        private LoadRun(HttpClient client, HttpRequest request, int connections) {
+            this.client = client;
+            this.request = request;
+            this.connections = connections;
+        }
+
+        private void start() {
+            running.set(true);
+            stopped = new CountDownLatch(connections);
+            for (int i = 0; i < connections; i++) {
+                send();
+            }
+        }
+
+        private void send() {
+            if (!running.get()) {
+                stopped.countDown();
+                return;
+            }
+            long startNanos = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+                if (failure != null || response.statusCode() >= 400) {
+                    errors.increment();
+                } else {
+                    latencies.recordValue(Math.min(micros, latencies.getHighestTrackableValue()));
+                }
+                send();
+            });
+        }
+
+        private void reset() {
+            latencies.reset();
+            errors.reset();
+        }
+
+        private Map<String, Object> snapshot(String label, URI uri, int connections, long elapsedNanos) {
+            Histogram histogram = latencies.copy();
+            double seconds = elapsedNanos / 1e9;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("label", label);
+            result.put("url", uri.toString());
+            result.put("connections", connections);
+            result.put("seconds", seconds);
+            result.put("requests", histogram.getTotalCount());
+            result.put("errors", errors.sum());
+            result.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+            result.put("p50Millis", histogram.getValueAtPercentile(50) / 1000.0);
+            result.put("p90Millis", histogram.getValueAtPercentile(90) / 1000.0);
+            result.put("p99Millis", histogram.getValueAtPercentile(99) / 1000.0);
+            result.put("p999Millis", histogram.getValueAtPercentile(99.9) / 1000.0);
+            result.put("maxMillis", histogram.getMaxValue() / 1000.0);
+            return result;
+        }
+
+        private void stop() throws InterruptedException {
+            running.set(false);
+            stopped.await(30, TimeUnit.SECONDS);
+        }
+    }
+}
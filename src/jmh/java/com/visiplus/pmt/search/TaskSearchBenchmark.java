@@ -0,0 +1,103 @@
+package com.visiplus.pmt.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Full-text searches (TaskSearchIndex.search) of a user member of 20 projects, in an on-disk index of
+ * 1M tasks (pass -p tasks=5000000 for the 5M target) spread over 10k projects: a common word, two words,
+ * and a prefix as typed. Task names and descriptions are drawn from a 2000-word vocabulary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TaskSearchBenchmark {
+
+    private static final int PROJECTS = 10_000;
+    private static final int VOCABULARY = 2000;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000000"})
+    private int tasks;
+
+    private Path directory;
+    private TaskSearchIndex index;
+    private List<Long> projectIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("task-search-benchmark");
+        index = new TaskSearchIndex(null, directory.toString(), BATCH_SIZE, false, new SimpleMeterRegistry());
+        SplittableRandom random = new SplittableRandom(42);
+        List<TaskSearchDocument> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= tasks; id++) {
+            batch.add(new TaskSearchDocument(id, 1 + id % PROJECTS, words(random, 4), words(random, 20),
+                    "Project " + (id % PROJECTS), "user" + random.nextInt(1000)));
+            if (batch.size() == BATCH_SIZE) {
+                index.index(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        index.index(batch);
+        index.commit();
+        projectIds = LongStream.rangeClosed(1, 20).boxed().toList();
+    }
+
+    // Words are "w<n>", n skewed towards small values so some words are common
+    private static String words(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int n = (int) (VOCABULARY * Math.pow(random.nextDouble(), 3));
+            text.append('w').append(n).append(' ');
+        }
+        return text.toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Long> searchCommonWord() {
+        return index.search("w1", projectIds, 20);
+    }
+
+    @Benchmark
+    public List<Long> searchTwoWords() {
+        return index.search("w3 w150", projectIds, 20);
+    }
+
+    @Benchmark
+    public List<Long> searchPrefix() {
+        return index.search("w2 w15", projectIds, 20);
+    }
+}
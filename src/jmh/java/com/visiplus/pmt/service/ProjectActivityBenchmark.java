@@ -0,0 +1,98 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.PmtApplication;
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.entity.TaskHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Activity feed reads (ProjectService.getProjectActivity) of a project with 1k or 10k tasks, five changes each,
+ * against an embedded H2 database: the first page from the cache or from the database, and a page from the middle.
+ * A page should cost the same whatever the number of tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectActivityBenchmark {
+
+    private static final long PROJECT_ID = 1L;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int CHANGES_PER_TASK = 5;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "10000"})
+    private int tasks;
+
+    private ConfigurableApplicationContext context;
+    private ProjectService projectService;
+    private ProjectActivityCache projectActivityCache;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PmtApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:project-activity-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "pmt.mail.outbox.enabled=false",
+                        "pmt.history.archive.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        projectService = context.getBean(ProjectService.class);
+        projectActivityCache = context.getBean(ProjectActivityCache.class);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    // One change a second, alternately on the tasks of the project and on those of another one
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO task_history (id, task_id, project_id, changed_by, field_code, old_value, new_value, changed_at, task_version) " +
+                "SELECT X, X / 2, 1 + MOD(X, 2), 1, 1 + MOD(X / 2, 6), 'old value', 'new value', " +
+                "DATEADD('SECOND', X / 2, TIMESTAMP '2024-01-01 00:00:00'), X / 2 FROM SYSTEM_RANGE(1, ?)",
+                2L * tasks * CHANGES_PER_TASK);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TaskHistory> getProjectActivityFirstPage() {
+        return projectService.getProjectActivity(PROJECT_ID, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<TaskHistory> getProjectActivityFirstPageUncached() {
+        projectActivityCache.evict(PROJECT_ID);
+        return projectService.getProjectActivity(PROJECT_ID, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<TaskHistory> getProjectActivityMiddlePage() {
+        long middle = (long) tasks * CHANGES_PER_TASK / 2;
+        return projectService.getProjectActivity(PROJECT_ID, START.plusSeconds(middle), 2 * middle, PAGE_SIZE);
+    }
+}
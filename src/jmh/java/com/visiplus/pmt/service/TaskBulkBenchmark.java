@@ -0,0 +1,87 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.PmtApplication;
+import com.visiplus.pmt.dto.BulkItemResultDTO;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of bulk task creation (TaskService.createTasks) against an embedded H2 database, in tasks per second.
+ * Each invocation creates one request of BATCH tasks, as one chunk of the NDJSON bulk endpoint would.
+ * In-memory H2 has no network round trip, so this is the ceiling set by the service and Hibernate;
+ * the gain of JDBC batching itself only shows against MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskBulkBenchmark {
+
+    private static final int BATCH = 1000;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private Long projectId;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PmtApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:task-bulk-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "pmt.mail.outbox.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        taskService = context.getBean(TaskService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO users (username, email, password) VALUES ('importer', 'importer@example.com', 'password')");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'importer@example.com'", Long.class);
+        jdbcTemplate.update("INSERT INTO projects (name, description, user_id) VALUES ('Import', 'Description', ?)", userId);
+        projectId = jdbcTemplate.queryForObject("SELECT id FROM projects WHERE name = 'Import'", Long.class);
+        jdbcTemplate.update("INSERT INTO project_member_roles (project_id, user_id, role) VALUES (?, ?, 'ADMIN')", projectId, userId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BulkItemResultDTO> createTasks() {
+        List<Task> tasks = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            tasks.add(new Task(null, "Task " + i, "Imported task", LocalDate.of(2024, 1, 1).plusDays(i % 365),
+                    Priority.MEDIUM, null, null, null, null));
+        }
+        return taskService.createTasks(tasks, projectId, userId);
+    }
+}
@@ -0,0 +1,97 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.PmtApplication;
+import com.visiplus.pmt.dto.TaskResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of the cross-project task feed (TaskService.getTasksByUserId) against an embedded H2 database,
+ * as the number of projects of the user and the number of tasks per project grow.
+ * The schema is built by the Flyway migrations, as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskFeedBenchmark {
+
+    @Param({"10", "100"})
+    private int projects;
+
+    @Param({"10", "100"})
+    private int tasksPerProject;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PmtApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:task-feed-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "pmt.mail.outbox.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        taskService = context.getBean(TaskService.class);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    // The user is a member of every project; a second user owns them and is assigned half of the tasks
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO users (username, email, password) VALUES " +
+                "('member', 'member@example.com', 'password'), ('owner', 'owner@example.com', 'password')");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'member@example.com'", Long.class);
+        Long ownerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'owner@example.com'", Long.class);
+
+        jdbcTemplate.update("INSERT INTO projects (name, description, user_id) " +
+                "SELECT 'Project ' || X, 'Description', ? FROM SYSTEM_RANGE(1, ?)", ownerId, projects);
+        jdbcTemplate.update("INSERT INTO project_member_roles (project_id, user_id, role) " +
+                "SELECT id, ?, 'ADMIN' FROM projects", ownerId);
+        jdbcTemplate.update("INSERT INTO project_member_roles (project_id, user_id, role) " +
+                "SELECT id, ?, 'MEMBER' FROM projects", userId);
+        jdbcTemplate.update("INSERT INTO tasks (name, description, due_date, priority, project_id, assignee_id, status) " +
+                "SELECT 'Task ' || X, 'Description', DATEADD('DAY', MOD(X, 365), DATE '2024-01-01'), 'MEDIUM', p.id, " +
+                "CASEWHEN(MOD(X, 2) = 0, ?, NULL), 'TODO' FROM projects p CROSS JOIN SYSTEM_RANGE(1, ?)",
+                ownerId, tasksPerProject);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TaskResponseDTO> getTasksByUserId() {
+        return taskService.getTasksByUserId(userId);
+    }
+
+    // First page of the keyset-paginated feed, whose cost should not depend on the total number of tasks
+    @Benchmark
+    public List<TaskResponseDTO> getTasksByUserIdFirstPage() {
+        return taskService.getTasksByUserId(userId, null, 50);
+    }
+}
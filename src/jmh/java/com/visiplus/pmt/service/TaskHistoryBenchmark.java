@@ -0,0 +1,98 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.PmtApplication;
+import com.visiplus.pmt.entity.TaskHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History reads (TaskService.getTaskHistory) on a task with 100k history rows against an embedded H2 database,
+ * with none or most of them in the archive: the whole history, and keyset pages at the start and near the end.
+ * A page should cost the same wherever it starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskHistoryBenchmark {
+
+    private static final long TASK_ID = 1L;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"100000"})
+    private int events;
+
+    @Param({"0", "90000"})
+    private int archivedEvents;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PmtApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:task-history-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "pmt.mail.outbox.enabled=false",
+                        "pmt.history.archive.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        taskService = context.getBean(TaskService.class);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    // One change a second on the task and on another one; the task's changes older than archivedEvents seconds are archived
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO task_history (id, task_id, changed_by, field_code, old_value, new_value, changed_at, task_version) " +
+                "SELECT X, 1 + MOD(X, 2), 1, 1 + MOD(X / 2, 6), 'old value', 'new value', " +
+                "DATEADD('SECOND', X / 2, TIMESTAMP '2024-01-01 00:00:00'), X / 2 FROM SYSTEM_RANGE(1, ?)", events * 2L);
+        jdbcTemplate.update("INSERT INTO task_history_archive " +
+                "SELECT id, task_id, changed_by, field_code, old_value, new_value, changed_at, task_version " +
+                "FROM task_history WHERE changed_at < ?", START.plusSeconds(archivedEvents));
+        jdbcTemplate.update("DELETE FROM task_history WHERE changed_at < ?", START.plusSeconds(archivedEvents));
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TaskHistory> getTaskHistory() {
+        return taskService.getTaskHistory(TASK_ID);
+    }
+
+    @Benchmark
+    public List<TaskHistory> getTaskHistoryFirstPage() {
+        return taskService.getTaskHistory(TASK_ID, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<TaskHistory> getTaskHistoryLastPage() {
+        return taskService.getTaskHistory(TASK_ID, START.plusSeconds(events - PAGE_SIZE), 0L, PAGE_SIZE);
+    }
+}
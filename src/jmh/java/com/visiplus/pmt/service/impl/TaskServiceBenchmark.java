@@ -0,0 +1,85 @@
+package com.visiplus.pmt.service.impl;
+
+import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the in-memory work of TaskServiceImpl around each request: the entity to DTO mapping
+ * and the field diff of updateTask, without repositories or a transaction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+    private Project project;
+    private Task task;
+    private Task assignedTask;
+
+    // Two versions of the task that differ on every field, applied alternately
+    private Task[] updates;
+    private Task unchanged;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        AppUser owner = new AppUser(1L, "owner", "owner@example.com", "password", null);
+        AppUser assignee = new AppUser(2L, "assignee", "assignee@example.com", "password", null);
+        project = new Project(1L, "Project", "Project description", LocalDate.of(2024, 1, 1), owner, null);
+
+        task = new Task(1L, "Task", "Description", LocalDate.of(2024, 6, 1), Priority.LOW, project, null, null, TaskStatus.TODO);
+        assignedTask = new Task(2L, "Task", "Description", LocalDate.of(2024, 6, 1), Priority.LOW, project, assignee, null, TaskStatus.TODO);
+
+        updates = new Task[] {
+                new Task(null, "Renamed task", "New description", LocalDate.of(2024, 7, 1), Priority.HIGH, null, null, LocalDate.of(2024, 6, 15), TaskStatus.COMPLETED),
+                new Task(null, "Task", "Description", LocalDate.of(2024, 6, 1), Priority.LOW, null, null, null, TaskStatus.TODO)
+        };
+        unchanged = new Task(null, "Task", "Description", LocalDate.of(2024, 6, 1), Priority.LOW, null, null, null, TaskStatus.TODO);
+    }
+
+    @Benchmark
+    public TaskResponseDTO mapTask() {
+        return TaskServiceImpl.getTaskResponseDTO(task, project);
+    }
+
+    @Benchmark
+    public TaskResponseDTO mapAssignedTask() {
+        return TaskServiceImpl.getTaskResponseDTO(assignedTask, project);
+    }
+
+    // Every field changes: six history rows per call
+    @Benchmark
+    public List<TaskHistory> diffAllFields() {
+        Task update = updates[next];
+        next ^= 1;
+        return TaskServiceImpl.applyChanges(task, update, 1L);
+    }
+
+    // Nothing changes: the common "save without edits" request
+    @Benchmark
+    public List<TaskHistory> diffNoChanges() {
+        return TaskServiceImpl.applyChanges(assignedTask, unchanged, 1L);
+    }
+}
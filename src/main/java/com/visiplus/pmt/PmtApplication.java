@@ -2,11 +2,16 @@ package com.visiplus.pmt;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableConfigurationProperties(MailProperties.class)
 public class PmtApplication {
 
 	public static void main(String[] args) {
@@ -14,9 +19,19 @@ public class PmtApplication {
 	}
 
 
-	// provide this as a bean and use the default implementation
+	// provide this as a bean and use the default implementation, configured from the spring.mail.* properties
 	@Bean
-	public JavaMailSender javaMailSender() {
-		return new JavaMailSenderImpl();
+	public JavaMailSender javaMailSender(MailProperties mailProperties) {
+		JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+		mailSender.setHost(mailProperties.getHost());
+		if (mailProperties.getPort() != null) {
+			mailSender.setPort(mailProperties.getPort());
+		}
+		mailSender.setUsername(mailProperties.getUsername());
+		mailSender.setPassword(mailProperties.getPassword());
+		mailSender.setProtocol(mailProperties.getProtocol());
+		mailSender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+		mailSender.getJavaMailProperties().putAll(mailProperties.getProperties());
+		return mailSender;
 	}
 }
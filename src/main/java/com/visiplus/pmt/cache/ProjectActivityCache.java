@@ -0,0 +1,122 @@
+package com.visiplus.pmt.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.visiplus.pmt.entity.TaskHistory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+
+/**
+ * In-memory cache of the first page of the activity feed of each project, its newest headSize history rows.
+ * Most feed reads are of the first page, so a project's feed is read from the database once per write rather than
+ * once per reader. Writers must call {@link #evict(Long)} whenever a history row of the project is saved.
+ */
+@Component
+public class ProjectActivityCache {
+
+    static final String CACHE_NAME = "projectActivity";
+
+    private final int headSize;
+
+    // A pending future marks a load in progress
+    private final AsyncCache<Long, List<TaskHistory>> headPages;
+
+    public ProjectActivityCache(@Value("${pmt.cache.project-activity.head-size:50}") int headSize,
+                                @Value("${pmt.cache.project-activity.maximum-size:1000}") long maximumSize,
+                                @Value("${pmt.cache.project-activity.ttl:5m}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.headSize = headSize;
+        this.headPages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, headPages, CACHE_NAME);
+    }
+
+    /**
+     * Returns the number of rows cached per project: first pages up to this size are served from the cache.
+     *
+     * @return the head page size
+     */
+    public int getHeadSize() {
+        return headSize;
+    }
+
+    /**
+     * Returns the newest rows of the activity of a project, loading the head page on a miss.
+     *
+     * @param projectId the project ID
+     * @param size the number of rows wanted, at most the head size
+     * @param loader reads the given number of newest rows of the project
+     * @return up to size rows, newest first
+     */
+    public List<TaskHistory> getHeadPage(Long projectId, int size, IntFunction<List<TaskHistory>> loader) {
+        CompletableFuture<List<TaskHistory>> cached = headPages.getIfPresent(projectId);
+        if (cached != null) {
+            return head(join(cached), size);
+        }
+
+        // Loaded on the calling thread with no cache lock held, as in ProjectRoleCache
+        CompletableFuture<List<TaskHistory>> loading = new CompletableFuture<>();
+        CompletableFuture<List<TaskHistory>> prior = headPages.asMap().putIfAbsent(projectId, loading);
+        if (prior != null) {
+            return head(join(prior), size);
+        }
+        try {
+            List<TaskHistory> page = List.copyOf(loader.apply(headSize));
+            loading.complete(page);
+            return head(page, size);
+        } catch (RuntimeException e) {
+            headPages.asMap().remove(projectId, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static List<TaskHistory> head(List<TaskHistory> page, int size) {
+        return page.size() <= size ? page : page.subList(0, size);
+    }
+
+    private static List<TaskHistory> join(CompletableFuture<List<TaskHistory>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Drops the cached head page of a project.
+     * When called inside a transaction the page is dropped again after commit,
+     * so a concurrent read cannot cache the feed as it was before the change.
+     *
+     * @param projectId the project ID
+     */
+    public void evict(Long projectId) {
+        if (projectId == null) {
+            return;
+        }
+        // Also drops a load in progress: its result then only reaches the reads already waiting for it
+        headPages.synchronous().invalidate(projectId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    headPages.synchronous().invalidate(projectId);
+                }
+            });
+        }
+    }
+}
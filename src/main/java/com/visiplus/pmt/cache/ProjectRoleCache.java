@@ -0,0 +1,133 @@
+package com.visiplus.pmt.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.repository.ProjectMemberRoleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * In-memory cache of the role a user holds in a project, used by the permission checks of the task endpoints.
+ * Entries are keyed by (projectId, userId) packed into a single long, bounded in size and expire after a TTL.
+ * Writers must call {@link #evict(Long, Long)} whenever a membership is created or its role changes.
+ */
+@Component
+public class ProjectRoleCache {
+
+    static final String CACHE_NAME = "projectRoles";
+
+    private final ProjectMemberRoleRepository projectMemberRoleRepository;
+
+    // Absent memberships are cached too, as Optional.empty(); a pending future marks a load in progress
+    private final AsyncCache<Long, Optional<Role>> roles;
+
+    public ProjectRoleCache(ProjectMemberRoleRepository projectMemberRoleRepository,
+                            @Value("${pmt.cache.project-roles.maximum-size:10000}") long maximumSize,
+                            @Value("${pmt.cache.project-roles.ttl:5m}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.projectMemberRoleRepository = projectMemberRoleRepository;
+        this.roles = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, roles, CACHE_NAME);
+    }
+
+    /**
+     * Returns the role of the user in the project, loading it from the database on a miss.
+     *
+     * @param projectId the project ID
+     * @param userId the user ID
+     * @return the role, or an empty Optional if the user is not a member of the project
+     */
+    public Optional<Role> getRole(Long projectId, Long userId) {
+        if (!isPackable(projectId, userId)) {
+            return loadRole(projectId, userId);
+        }
+        long key = key(projectId, userId);
+        CompletableFuture<Optional<Role>> cached = roles.getIfPresent(key);
+        if (cached != null) {
+            return join(cached);
+        }
+
+        // The query runs on the calling thread with no cache lock held: loading inside the cache's compute
+        // would hold a map monitor during the JDBC round trip, which pins the carrier of a virtual thread.
+        // Concurrent lookups of the same key wait on the future of the first one instead of querying again.
+        CompletableFuture<Optional<Role>> loading = new CompletableFuture<>();
+        CompletableFuture<Optional<Role>> prior = roles.asMap().putIfAbsent(key, loading);
+        if (prior != null) {
+            return join(prior);
+        }
+        try {
+            Optional<Role> role = loadRole(projectId, userId);
+            loading.complete(role);
+            return role;
+        } catch (RuntimeException e) {
+            roles.asMap().remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Optional<Role> join(CompletableFuture<Optional<Role>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Drops the cached role of the user in the project.
+     * When called inside a transaction the entry is dropped again after commit,
+     * so a concurrent read cannot cache the row as it was before the change.
+     *
+     * @param projectId the project ID
+     * @param userId the user ID
+     */
+    public void evict(Long projectId, Long userId) {
+        if (!isPackable(projectId, userId)) {
+            return;
+        }
+        long key = key(projectId, userId);
+        // Also drops a load in progress: its result then only reaches the lookups already waiting for it
+        roles.synchronous().invalidate(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    roles.synchronous().invalidate(key);
+                }
+            });
+        }
+    }
+
+    private Optional<Role> loadRole(Long projectId, Long userId) {
+        return projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId)
+                .map(ProjectMemberRole::getRole);
+    }
+
+    // Both ids are packed in one long: project id in the high 32 bits, user id in the low 32 bits
+    static long key(long projectId, long userId) {
+        return (projectId << 32) | userId;
+    }
+
+    private static boolean isPackable(Long projectId, Long userId) {
+        return projectId != null && userId != null
+                && projectId >= 0 && projectId <= 0xFFFFFFFFL
+                && userId >= 0 && userId <= 0xFFFFFFFFL;
+    }
+}
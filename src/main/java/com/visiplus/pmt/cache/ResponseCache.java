@@ -0,0 +1,195 @@
+package com.visiplus.pmt.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.visiplus.pmt.enums.Role;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GETs of the read endpoints polled by clients, and an in-memory cache of their responses.
+ * A response carries a strong ETag derived from the versions of the entities it shows; a request whose If-None-Match
+ * holds the current tag gets a 304 without the entities being loaded. Responses are cached with their tag, keyed by
+ * endpoint, project, role of the caller in the project and the remaining request arguments.
+ * Writers must call {@link #evict(Long)} whenever a task or a membership of the project changes.
+ */
+@Component
+public class ResponseCache {
+
+    static final String CACHE_NAME = "responses";
+
+    private final boolean enabled;
+    private final ProjectRoleCache projectRoleCache;
+
+    // A pending future marks a load in progress
+    private final AsyncCache<Key, CachedResponse> responses;
+
+    // Bumped by each eviction of a project: responses cached under an older generation are no longer looked up and
+    // leave with the TTL or the size bound. One entry per project written to since startup.
+    private final ConcurrentHashMap<Long, Long> generations = new ConcurrentHashMap<>();
+
+    record Key(String endpoint, Long projectId, long generation, Role role, Object argument) {
+    }
+
+    record CachedResponse(String eTag, Object body) {
+    }
+
+    public ResponseCache(@Value("${pmt.cache.responses.enabled:true}") boolean enabled,
+                         @Value("${pmt.cache.responses.maximum-size:10000}") long maximumSize,
+                         @Value("${pmt.cache.responses.ttl:1m}") Duration ttl,
+                         ProjectRoleCache projectRoleCache,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.projectRoleCache = projectRoleCache;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, CACHE_NAME);
+    }
+
+    /**
+     * Answers a GET of a project resource: 304 if the client's copy is current, else the body with its ETag.
+     * The tag is read again once the body is loaded: if a write changed it in between, the body may belong to neither
+     * tag, so it is sent without one and not cached, and the client's next request loads it again.
+     * Callers that are not members of the project bypass the cache, and get whatever the loaders throw.
+     *
+     * @param endpoint the name of the endpoint
+     * @param projectId the project ID
+     * @param userId the caller, whose role is part of the key, or null for an anonymous request
+     * @param argument the other arguments the response depends on, or null
+     * @param ifNoneMatch the If-None-Match header of the request, or null
+     * @param eTag reads the current tag of the resource without loading it, null if it does not exist
+     * @param body loads the body of the response
+     * @return the response to send
+     */
+    public <T> ResponseEntity<T> respond(String endpoint, Long projectId, Long userId, Object argument, String ifNoneMatch,
+                                         Supplier<String> eTag, Supplier<T> body) {
+        Role role = userId != null ? projectRoleCache.getRole(projectId, userId).orElse(null) : null;
+        boolean cacheable = enabled && (userId == null || role != null);
+        Key key = new Key(endpoint, projectId, generations.getOrDefault(projectId, 0L), role, argument);
+
+        if (cacheable) {
+            CompletableFuture<CachedResponse> cached = responses.getIfPresent(key);
+            if (cached != null) {
+                return toResponse(join(cached), ifNoneMatch);
+            }
+        }
+        String currentETag = eTag.get();
+        if (currentETag != null && matches(ifNoneMatch, currentETag)) {
+            return notModified(currentETag);
+        }
+        if (!cacheable) {
+            return toResponse(load(currentETag, eTag, body), ifNoneMatch);
+        }
+
+        // Loaded on the calling thread with no cache lock held, as in ProjectRoleCache
+        CompletableFuture<CachedResponse> loading = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> prior = responses.asMap().putIfAbsent(key, loading);
+        if (prior != null) {
+            return toResponse(join(prior), ifNoneMatch);
+        }
+        try {
+            CachedResponse response = load(currentETag, eTag, body);
+            if (currentETag != null && response.eTag() == null) {
+                responses.asMap().remove(key, loading);
+            }
+            loading.complete(response);
+            return toResponse(response, ifNoneMatch);
+        } catch (RuntimeException e) {
+            responses.asMap().remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Untagged if the tag read before the body no longer holds after it: a tag newer than the body would keep the
+    // client on a stale copy with 304s
+    private static CachedResponse load(String eTagBefore, Supplier<String> eTag, Supplier<?> body) {
+        Object loaded = body.get();
+        String eTagAfter = eTag.get();
+        return new CachedResponse(Objects.equals(eTagBefore, eTagAfter) ? eTagAfter : null, loaded);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<T> toResponse(CachedResponse response, String ifNoneMatch) {
+        if (response.eTag() == null) {
+            return ResponseEntity.ok((T) response.body());
+        }
+        if (matches(ifNoneMatch, response.eTag())) {
+            return notModified(response.eTag());
+        }
+        return ResponseEntity.ok().eTag(response.eTag()).body((T) response.body());
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    // If-None-Match is "*" or a list of tags, compared weakly: W/"3" matches "3"
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals("\"" + eTag + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CachedResponse join(CompletableFuture<CachedResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Drops the cached responses of a project, in constant time: the project moves to a new generation of keys.
+     * When called inside a transaction they are dropped again after commit,
+     * so a concurrent read cannot cache the project as it was before the change.
+     *
+     * @param projectId the project ID
+     */
+    public void evict(Long projectId) {
+        if (projectId == null) {
+            return;
+        }
+        // Also drops the loads in progress: their result then only reaches the reads already waiting for it
+        invalidate(projectId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(projectId);
+                }
+            });
+        }
+    }
+
+    private void invalidate(Long projectId) {
+        generations.merge(projectId, 1L, Long::sum);
+    }
+}
@@ -0,0 +1,26 @@
+package com.visiplus.pmt.config;
+
+import com.visiplus.pmt.jwt.JwtAuthenticationFilter;
+import com.visiplus.pmt.jwt.JwtBlacklistService;
+import com.visiplus.pmt.jwt.JwtService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class JwtFilterConfiguration {
+
+    // Runs right after the CORS filter, so 401 responses still carry the CORS headers
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilter(
+            JwtService jwtService,
+            JwtBlacklistService jwtBlacklistService,
+            @Value("${pmt.auth.required:false}") boolean authRequired) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(new JwtAuthenticationFilter(jwtService, jwtBlacklistService, authRequired));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,89 @@
+package com.visiplus.pmt.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache: users, projects and memberships, read on nearly every request and rarely written,
+ * are kept in local Caffeine regions behind JCache, as is the result of AppUserRepository.findByEmail.
+ * Each region is bounded and expires after pmt.cache.second-level.ttl, which bounds how long another node can serve
+ * an entry this node has changed. Hit, miss and eviction counts are published as the cache.* metrics.
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+
+    // Regions Hibernate always uses once the query cache is on
+    static final String DEFAULT_QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    /**
+     * One cache manager per application context, so that test contexts sharing the JVM never share entries.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${pmt.cache.second-level.users.maximum-size:10000}") long usersMaximumSize,
+            @Value("${pmt.cache.second-level.projects.maximum-size:10000}") long projectsMaximumSize,
+            @Value("${pmt.cache.second-level.project-members.maximum-size:50000}") long projectMembersMaximumSize,
+            @Value("${pmt.cache.second-level.queries.maximum-size:10000}") long queriesMaximumSize,
+            @Value("${pmt.cache.second-level.ttl:5m}") Duration ttl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("urn:pmt:second-level-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+        createRegion(cacheManager, AppUser.CACHE_REGION, usersMaximumSize, ttl);
+        createRegion(cacheManager, Project.CACHE_REGION, projectsMaximumSize, ttl);
+        createRegion(cacheManager, ProjectMemberRole.CACHE_REGION, projectMembersMaximumSize, ttl);
+        createRegion(cacheManager, AppUser.BY_EMAIL_CACHE_REGION, usersMaximumSize, ttl);
+        createRegion(cacheManager, DEFAULT_QUERY_RESULTS_REGION, queriesMaximumSize, ttl);
+        // One entry per table: never evicted, or cached query results could outlive a write
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, null, null);
+        return cacheManager;
+    }
+
+    private static void createRegion(CacheManager cacheManager, String name, Long maximumSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maximumSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(name, configuration);
+    }
+
+    // Regions missing from the cache manager fail the startup rather than being created unbounded
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager) {
+        return registry -> secondLevelCacheManager.getCacheNames()
+                .forEach(name -> JCacheMetrics.monitor(registry, secondLevelCacheManager.getCache(name)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.visiplus.pmt.controller;
 
 import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.jwt.AuthenticatedUser;
 import com.visiplus.pmt.jwt.JwtAuthService;
 import com.visiplus.pmt.service.AppUserService;
 import org.springframework.http.HttpStatus;
@@ -53,10 +54,12 @@ public class AppUserController {
 
     @PostMapping(path = "/logout")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<?> logoutAppUser(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> logoutAppUser(@RequestHeader("Authorization") String token,
+                                           @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
         String cleanedToken = token.replace("Bearer ", "");
 
-        ResponseEntity<String> tokenValidation = jwtAuthService.verifyToken(cleanedToken);
+        // Token already verified by JwtAuthenticationFilter when the caller is set
+        ResponseEntity<String> tokenValidation = caller != null ? null : jwtAuthService.verifyToken(cleanedToken);
         if (tokenValidation != null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .contentType(MediaType.APPLICATION_JSON)
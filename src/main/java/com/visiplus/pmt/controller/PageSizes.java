@@ -0,0 +1,32 @@
+package com.visiplus.pmt.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Bounds of the "size" parameter of the paginated endpoints, checked before it reaches a PageRequest or a query limit.
+ */
+final class PageSizes {
+
+    // Largest page of a feed, a history or a project list
+    static final int MAX_PAGE_SIZE = 500;
+
+    // Largest page of a full-text search, whose hits are each loaded and converted
+    static final int MAX_SEARCH_SIZE = 100;
+
+    private PageSizes() {
+    }
+
+    /**
+     * Rejects a page size below 1 or above the given maximum; a null size (no pagination) is let through.
+     *
+     * @param size the size taken from the request, or null
+     * @param maxSize the largest size accepted
+     * @throws ResponseStatusException with status 400 if the size is out of bounds
+     */
+    static void check(Integer size, int maxSize) {
+        if (size != null && (size < 1 || size > maxSize)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + maxSize);
+        }
+    }
+}
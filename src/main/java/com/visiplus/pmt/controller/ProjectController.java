@@ -1,15 +1,34 @@
 package com.visiplus.pmt.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
 import com.visiplus.pmt.dto.InviteRequestDTO;
 import com.visiplus.pmt.dto.MemberDTO;
+import com.visiplus.pmt.dto.ProjectSummaryDTO;
 import com.visiplus.pmt.dto.RoleAssignmentDTO;
 import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.TaskHistory;
 import com.visiplus.pmt.exception.UserNotFoundException;
+import com.visiplus.pmt.jwt.AuthenticatedUser;
 import com.visiplus.pmt.service.ProjectService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -21,16 +40,26 @@ import java.util.Map;
 public class ProjectController {
 
     private final ProjectService projectService;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
+    private final ProjectRoleCache projectRoleCache;
 
-    public ProjectController(ProjectService projectService) {
+    public ProjectController(ProjectService projectService, ObjectMapper objectMapper, ResponseCache responseCache,
+                             ProjectRoleCache projectRoleCache) {
         this.projectService = projectService;
+        this.responseCache = responseCache;
+        this.projectRoleCache = projectRoleCache;
+        // Writer must not close the response between two rows
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     // Endpoint to create a project
     @CrossOrigin(origins = "http://localhost:4200")
     @PostMapping("/create/{userId}")
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<?> createProject(@RequestBody Project project, @PathVariable Long userId) {
+    public ResponseEntity<?> createProject(@RequestBody Project project, @PathVariable Long userId,
+                                           @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
         try {
             Project createdProject = projectService.createProject(project, userId);
 
@@ -54,9 +83,11 @@ public class ProjectController {
     public ResponseEntity<?> inviteMember(
             @PathVariable Long projectId,
             @PathVariable Long userId,
-            @RequestBody InviteRequestDTO inviteRequestDTO) {
+            @RequestBody InviteRequestDTO inviteRequestDTO,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
         try {
-            Project updatedProject = projectService.addMemberToProject(projectId, inviteRequestDTO.getEmail());
+            Project updatedProject = projectService.addMemberToProject(projectId, inviteRequestDTO.getEmail(), userId);
             return ResponseEntity.ok(updatedProject);
         } catch (UserNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -72,9 +103,11 @@ public class ProjectController {
     public ResponseEntity<Map<String, String>> assignRoleToMember(
             @PathVariable Long projectId,
             @PathVariable Long memberId,
-            @RequestBody RoleAssignmentDTO roleAssignmentDTO) {
+            @RequestBody RoleAssignmentDTO roleAssignmentDTO,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
         try {
-            projectService.assignRoleToMember(projectId, memberId, roleAssignmentDTO.getRole());
+            projectService.assignRoleToMember(projectId, memberId, roleAssignmentDTO.getRole(),
+                    caller != null ? caller.userId() : null);
             Map<String, String> response = new HashMap<>();
             response.put("message", "Role updated successfully");
             return ResponseEntity.ok(response);
@@ -84,11 +117,26 @@ public class ProjectController {
     }
 
 
-    // Endpoint to get all projects
+    // Endpoint to get all projects; pass "size" with "afterId" (keyset) or "page" (offset, total in X-Total-Count) to paginate
     @GetMapping("/all")
-    public ResponseEntity<?> getAllProjects() {
+    public ResponseEntity<?> getAllProjects(@RequestParam(required = false) Long afterId,
+                                            @RequestParam(required = false) Integer page,
+                                            @RequestParam(required = false) Integer size) {
+        PageSizes.check(size, PageSizes.MAX_PAGE_SIZE);
+        if (page != null && page < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must not be negative");
+        }
         try {
-            List<Project> projects = projectService.getAllProjects();
+            if (size == null) {
+                return ResponseEntity.ok(projectService.getAllProjects());
+            }
+            if (page != null) {
+                Page<Project> projectPage = projectService.getAllProjects(PageRequest.of(page, size, Sort.by("id")));
+                return ResponseEntity.ok()
+                        .header("X-Total-Count", String.valueOf(projectPage.getTotalElements()))
+                        .body(projectPage.getContent());
+            }
+            List<Project> projects = projectService.getAllProjects(afterId, size);
             return ResponseEntity.ok(projects);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -96,9 +144,29 @@ public class ProjectController {
         }
     }
 
+    // Endpoint to stream every project as NDJSON, one flat row per line
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProjects() {
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writer();
+            projectService.streamAllProjects(project -> {
+                try {
+                    writer.writeValue(outputStream, project);
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     // Endpoint to get project by userId
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getProjectsByUserId(@PathVariable Long userId) {
+    public ResponseEntity<?> getProjectsByUserId(@PathVariable Long userId,
+                                                 @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
         try {
             List<Project> projects = projectService.getProjectsByUserId(userId);
             return ResponseEntity.ok(projects);
@@ -108,15 +176,44 @@ public class ProjectController {
         }
     }
 
-        // Endpoint to get all members of a project
+    // Endpoint to get one page of the projects of a user as summaries, ordered by project id
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<?> getProjectSummariesByUserId(@PathVariable Long userId,
+                                                         @RequestParam(required = false) Long afterId,
+                                                         @RequestParam(defaultValue = "50") int size,
+                                                         @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        PageSizes.check(size, PageSizes.MAX_PAGE_SIZE);
+        List<ProjectSummaryDTO> summaries = projectService.getProjectSummariesByUserId(userId, afterId, size);
+        return ResponseEntity.ok(summaries);
+    }
+
+    // Endpoint to get all members of a project; the ETag is a hash of the memberships, If-None-Match with it gets a 304
     @GetMapping("/{projectId}/members")
-    public ResponseEntity<?> getProjectMembers(@PathVariable Long projectId) {
+    public ResponseEntity<?> getProjectMembers(
+            @PathVariable Long projectId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
         try {
-            List<MemberDTO> members = projectService.getProjectMembers(projectId);
-            return ResponseEntity.ok(members);
+            return responseCache.<List<MemberDTO>>respond("members", projectId, caller != null ? caller.userId() : null, null,
+                    ifNoneMatch, () -> projectService.getProjectMembersETag(projectId),
+                    () -> projectService.getProjectMembers(projectId));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error while retrieving project members: " + e.getMessage());
         }
     }
+
+    // Endpoint for the members of a project to get its activity, newest first; pass the changedAt and id of the last row to get the next page
+    @GetMapping("/{projectId}/activity")
+    public ResponseEntity<List<TaskHistory>> getProjectActivity(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeChangedAt,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkMember(caller, projectId, projectRoleCache);
+        PageSizes.check(size, PageSizes.MAX_PAGE_SIZE);
+        return ResponseEntity.ok(projectService.getProjectActivity(projectId, beforeChangedAt, beforeId, size));
+    }
 }
@@ -1,18 +1,48 @@
 package com.visiplus.pmt.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
+import com.visiplus.pmt.dto.BulkItemResultDTO;
+import com.visiplus.pmt.dto.ProjectTaskStatsDTO;
+import com.visiplus.pmt.dto.TaskFilterDTO;
 import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.dto.TaskStatusChangeDTO;
 import com.visiplus.pmt.entity.Task;
 import com.visiplus.pmt.entity.TaskHistory;
 import com.visiplus.pmt.enums.TaskStatus;
-import com.visiplus.pmt.repository.TaskHistoryRepository;
+import com.visiplus.pmt.events.TaskEventBroker;
+import com.visiplus.pmt.jwt.AuthenticatedUser;
 import com.visiplus.pmt.service.TaskService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @CrossOrigin(origins = "http://localhost:4200")
 @RestController
@@ -20,11 +50,28 @@ import java.util.Map;
 public class TaskController {
 
     private final TaskService taskService;
-    private final TaskHistoryRepository taskHistoryRepository;
+    private final TaskEventBroker taskEventBroker;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
+    private final ProjectRoleCache projectRoleCache;
 
-    public TaskController(TaskService taskService, TaskHistoryRepository taskHistoryRepository) {
+    // Items per service call (and transaction) of the NDJSON bulk endpoints
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    // RFC 7396 media type of PATCH bodies
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    // Attempts of an update whose UPDATE ... WHERE version = ? lost the race against a concurrent commit
+    private static final int OPTIMISTIC_LOCK_ATTEMPTS = 5;
+
+    public TaskController(TaskService taskService, TaskEventBroker taskEventBroker, ObjectMapper objectMapper,
+                          ResponseCache responseCache, ProjectRoleCache projectRoleCache) {
         this.taskService = taskService;
-        this.taskHistoryRepository = taskHistoryRepository;
+        this.taskEventBroker = taskEventBroker;
+        this.responseCache = responseCache;
+        this.projectRoleCache = projectRoleCache;
+        // Writer must not close the response between two rows
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     // Endpoint to create task
@@ -32,9 +79,33 @@ public class TaskController {
     public ResponseEntity<TaskResponseDTO> createTask(
             @PathVariable Long projectId,
             @PathVariable Long userId,
-            @RequestBody Task task) {
+            @RequestBody Task task,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
         TaskResponseDTO createdTask = taskService.createTask(task, projectId, userId);
-        return new ResponseEntity<>(createdTask, HttpStatus.CREATED);
+        return withETag(HttpStatus.CREATED, createdTask);
+    }
+
+    // Endpoint to create many tasks at once from a JSON array, with one result per task in request order
+    @PostMapping(value = "/{projectId}/tasks/{userId}/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkItemResultDTO>> createTasks(
+            @PathVariable Long projectId,
+            @PathVariable Long userId,
+            @RequestBody List<Task> tasks,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        return ResponseEntity.ok(taskService.createTasks(tasks, projectId, userId));
+    }
+
+    // Same endpoint for NDJSON bodies (one task per line), read and inserted chunk by chunk
+    @PostMapping(value = "/{projectId}/tasks/{userId}/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BulkItemResultDTO>> createTasksFromStream(
+            @PathVariable Long projectId,
+            @PathVariable Long userId,
+            InputStream body,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        return ResponseEntity.ok(applyInChunks(body, Task.class, chunk -> taskService.createTasks(chunk, projectId, userId)));
     }
 
     // Endpoint to assign task to member
@@ -43,37 +114,82 @@ public class TaskController {
             @PathVariable Long projectId,
             @PathVariable Long taskId,
             @PathVariable Long assigneeId,
-            @PathVariable Long userId) {
-        TaskResponseDTO updatedTask = taskService.assignTaskToMember(taskId, projectId, assigneeId, userId);
-        return new ResponseEntity<>(updatedTask, HttpStatus.OK);
+            @PathVariable Long userId,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        TaskResponseDTO updatedTask = retryOnConflict(() -> taskService.assignTaskToMember(taskId, projectId, assigneeId, userId));
+        return withETag(HttpStatus.OK, updatedTask);
     }
 
-    // Endpoint to update task
+    // Endpoint to update task; the version it was edited from (If-Match, else "version") lets concurrent changes be merged
     @PutMapping("/{projectId}/tasks/{taskId}/update/{userId}")
     public ResponseEntity<TaskResponseDTO> updateTask(
             @PathVariable Long projectId,
             @PathVariable Long taskId,
             @PathVariable Long userId,
-            @RequestBody Task updateTask) {
-        TaskResponseDTO updatedTaskDTO = taskService.updateTask(taskId, projectId, userId, updateTask);
-        return new ResponseEntity<>(updatedTaskDTO, HttpStatus.OK);
+            @RequestBody Task updateTask,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        Long expectedVersion = ifMatch != null ? parseETag(ifMatch) : updateTask.getVersion();
+        TaskResponseDTO updatedTaskDTO = retryOnConflict(() -> taskService.updateTask(taskId, projectId, userId, updateTask, expectedVersion));
+        return withETag(HttpStatus.OK, updatedTaskDTO);
+    }
+
+    // Endpoint to partially update a task (JSON merge patch): absent fields are kept, "completionDate": null clears it
+    @PatchMapping(value = "/{projectId}/tasks/{taskId}/update/{userId}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<TaskResponseDTO> patchTask(
+            @PathVariable Long projectId,
+            @PathVariable Long taskId,
+            @PathVariable Long userId,
+            @RequestBody JsonNode patch,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        if (!patch.isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A merge patch must be a JSON object");
+        }
+
+        // "version" is the version the patch was made from, not a field to set
+        Set<String> fields = new LinkedHashSet<>();
+        patch.fieldNames().forEachRemaining(fields::add);
+        fields.remove("version");
+        Long expectedVersion = ifMatch != null ? parseETag(ifMatch)
+                : patch.hasNonNull("version") ? patch.get("version").asLong() : null;
+
+        Task values;
+        try {
+            values = objectMapper.treeToValue(patch, Task.class);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid merge patch: " + e.getOriginalMessage(), e);
+        }
+        TaskResponseDTO patchedTask = retryOnConflict(() -> taskService.patchTask(taskId, projectId, userId, values, fields, expectedVersion));
+        return withETag(HttpStatus.OK, patchedTask);
     }
 
-    // Get task by id
+    // Get task by id; If-None-Match with its current version gets a 304 without the task being loaded
     @GetMapping("/{projectId}/tasks/{taskId}/view/{userId}")
     public ResponseEntity<TaskResponseDTO> getTaskById(
             @PathVariable Long projectId,
             @PathVariable Long taskId,
-            @PathVariable Long userId) {
-        TaskResponseDTO taskResponse = taskService.getTaskById(taskId, projectId, userId);
-        return new ResponseEntity<>(taskResponse, HttpStatus.OK);
+            @PathVariable Long userId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        return responseCache.respond("task", projectId, userId, taskId, ifNoneMatch,
+                () -> taskService.getTaskETag(taskId, projectId, userId),
+                () -> taskService.getTaskById(taskId, projectId, userId));
     }
 
-    // Endpoint to get tasks by projectId
+    // Endpoint to get tasks by projectId, optionally filtered and paginated on (dueDate, id); a filtered list is always a page
     @GetMapping("/{projectId}/tasks")
-    public ResponseEntity<?> getTasksByProjectId(@PathVariable Long projectId) {
+    public ResponseEntity<?> getTasksByProjectId(@PathVariable Long projectId, TaskFilterDTO filter) {
+        PageSizes.check(filter.getSize(), PageSizes.MAX_PAGE_SIZE);
+        checkCursor(filter);
         try {
-            List<TaskResponseDTO> tasks = taskService.getTasksByProjectId(projectId);
+            List<TaskResponseDTO> tasks = filter.isEmpty()
+                    ? taskService.getTasksByProjectId(projectId)
+                    : taskService.getTasksByProjectId(projectId, filter);
             return ResponseEntity.ok(tasks);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -81,41 +197,234 @@ public class TaskController {
         }
     }
 
+    // Endpoint to stream the tasks of a project as NDJSON, one task per line
+    @GetMapping(value = "/{projectId}/tasks/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTasksByProjectId(@PathVariable Long projectId, TaskFilterDTO filter) {
+        checkCursor(filter);
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writer();
+            taskService.streamTasksByProjectId(projectId, filter, task -> {
+                try {
+                    writer.writeValue(outputStream, task);
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 
-    // Endpoint to get all tasks by userId
+    // The cursor is (dueDate, id): an id alone would be ignored and return the first page again
+    private static void checkCursor(TaskFilterDTO filter) {
+        if (filter.getAfterId() != null && filter.getAfterDueDate() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "afterId requires afterDueDate");
+        }
+    }
+
+
+    // Pass "size" (and "afterId" from the last task received) to read the feed page by page
     @GetMapping("/tasks/user/{userId}")
-    public ResponseEntity<List<TaskResponseDTO>> getTasksByUserId(@PathVariable Long userId) {
-        List<TaskResponseDTO> tasks = taskService.getTasksByUserId(userId);
+    public ResponseEntity<List<TaskResponseDTO>> getTasksByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        PageSizes.check(size, PageSizes.MAX_PAGE_SIZE);
+        List<TaskResponseDTO> tasks = size != null
+                ? taskService.getTasksByUserId(userId, afterId, size)
+                : taskService.getTasksByUserId(userId);
         return new ResponseEntity<>(tasks, HttpStatus.OK);
     }
 
-    // get task by status
+    // Endpoint to search the tasks of the caller's projects by words of their name, description, project or assignee
+    @GetMapping("/search")
+    public ResponseEntity<List<TaskResponseDTO>> searchTasks(
+            @RequestParam String q,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        if (userId != null) {
+            AuthenticatedUser.checkCaller(caller, userId);
+        }
+        PageSizes.check(size, PageSizes.MAX_SEARCH_SIZE);
+        Long searcherId = caller != null ? caller.userId() : userId;
+        if (searcherId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId is required without a bearer token");
+        }
+        return ResponseEntity.ok(taskService.searchTasks(searcherId, q, size));
+    }
+
+    // get task by status; the ETag is a hash of the task versions, If-None-Match with it gets a 304
     @GetMapping("/{projectId}/tasks/status/{status}")
     public ResponseEntity<List<TaskResponseDTO>> getTasksByStatus(
             @PathVariable Long projectId,
-            @PathVariable TaskStatus status) {
-        List<TaskResponseDTO> tasks = taskService.getTasksByStatus(status, projectId);
-        return new ResponseEntity<>(tasks, HttpStatus.OK);
+            @PathVariable TaskStatus status,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        return responseCache.respond("tasksByStatus", projectId, caller != null ? caller.userId() : null, status, ifNoneMatch,
+                () -> taskService.getTasksByStatusETag(status, projectId),
+                () -> taskService.getTasksByStatus(status, projectId));
     }
 
-    // Update task status
+    // Endpoint to get the task counters of a project (by status, by priority, unassigned, overdue) in one row read
+    @GetMapping("/{projectId}/stats")
+    public ResponseEntity<ProjectTaskStatsDTO> getProjectStats(@PathVariable Long projectId) {
+        return ResponseEntity.ok(taskService.getProjectStats(projectId));
+    }
+
+    // Endpoint for the members of a project to follow its task changes as server-sent events; Last-Event-ID resumes after a disconnection
+    @GetMapping(value = "/{projectId}/tasks/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents(
+            @PathVariable Long projectId,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkMember(caller, projectId, projectRoleCache);
+        return taskEventBroker.subscribe(projectId, lastEventId,
+                (afterId, limit) -> taskService.getTaskEventsSince(projectId, afterId, limit));
+    }
+
+    // Update task status, merged with concurrent changes when If-Match carries an older version
     @PutMapping("/{projectId}/tasks/{taskId}/update-status/{userId}")
     public ResponseEntity<TaskResponseDTO> updateTaskStatus(
             @PathVariable Long projectId,
             @PathVariable Long taskId,
             @PathVariable Long userId,
-            @RequestBody Map<String, String> statusBody) {
+            @RequestBody Map<String, String> statusBody,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
         String status = statusBody.get("status");
-        TaskResponseDTO updatedTask = taskService.updateTaskStatus(taskId, projectId, userId, status);
-        return new ResponseEntity<>(updatedTask, HttpStatus.OK);
+        Long expectedVersion = ifMatch != null ? parseETag(ifMatch) : null;
+        TaskResponseDTO updatedTask = retryOnConflict(() -> taskService.updateTaskStatus(taskId, projectId, userId, status, expectedVersion));
+        return withETag(HttpStatus.OK, updatedTask);
+    }
+
+    // Endpoint to change the status of many tasks at once from a JSON array of {"taskId", "status"}
+    @PutMapping(value = "/{projectId}/tasks/{userId}/bulk-status", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkItemResultDTO>> updateTaskStatuses(
+            @PathVariable Long projectId,
+            @PathVariable Long userId,
+            @RequestBody List<TaskStatusChangeDTO> changes,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        return ResponseEntity.ok(retryOnConflict(() -> taskService.updateTaskStatuses(changes, projectId, userId)));
+    }
+
+    // Same endpoint for NDJSON bodies (one status change per line)
+    @PutMapping(value = "/{projectId}/tasks/{userId}/bulk-status", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BulkItemResultDTO>> updateTaskStatusesFromStream(
+            @PathVariable Long projectId,
+            @PathVariable Long userId,
+            InputStream body,
+            @RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser caller) {
+        AuthenticatedUser.checkCaller(caller, userId);
+        return ResponseEntity.ok(applyInChunks(body, TaskStatusChangeDTO.class,
+                chunk -> retryOnConflict(() -> taskService.updateTaskStatuses(chunk, projectId, userId))));
+    }
+
+    // The task version is its ETag ("3"), so clients can send it back in If-Match
+    private static ResponseEntity<TaskResponseDTO> withETag(HttpStatus status, TaskResponseDTO task) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (task != null && task.getVersion() != null) {
+            response.eTag(String.valueOf(task.getVersion()));
+        }
+        return response.body(task);
+    }
+
+    // Version carried by an If-Match header ("3" or W/"3"), null for "*"
+    private static Long parseETag(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid If-Match header: " + ifMatch);
+        }
     }
 
-    // Get task history
+    /**
+     * Runs a task update, again when it fails because another transaction committed the same tasks first.
+     * Each attempt reads the new version, so the update is merged with the concurrent one instead of overwriting it.
+     * Attempts are spaced by a random, doubling pause so that writers of a hot task stop colliding;
+     * after OPTIMISTIC_LOCK_ATTEMPTS failures the request ends with a 409.
+     */
+    private static <T> T retryOnConflict(Supplier<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == OPTIMISTIC_LOCK_ATTEMPTS) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Task was modified concurrently, please retry", e);
+                }
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(10L << attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an NDJSON body and hands it to the service BULK_CHUNK_SIZE items at a time, one transaction per chunk,
+     * so a large import never holds more than one chunk in memory. Result indexes are shifted to the line numbers.
+     * A malformed line stops the import with a 400; the chunks before it stay committed.
+     */
+    private <T> List<BulkItemResultDTO> applyInChunks(InputStream body, Class<T> type,
+                                                      Function<List<T>, List<BulkItemResultDTO>> apply) {
+        List<BulkItemResultDTO> results = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        try (MappingIterator<T> items = objectMapper.readerFor(type).readValues(body)) {
+            while (items.hasNextValue()) {
+                chunk.add(items.nextValue());
+                if (chunk.size() == BULK_CHUNK_SIZE) {
+                    applyChunk(chunk, apply, results);
+                }
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid NDJSON after " + (results.size() + chunk.size()) + " items: " + e.getMessage(), e);
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, apply, results);
+        }
+        return results;
+    }
+
+    private static <T> void applyChunk(List<T> chunk, Function<List<T>, List<BulkItemResultDTO>> apply,
+                                       List<BulkItemResultDTO> results) {
+        int offset = results.size();
+        for (BulkItemResultDTO result : apply.apply(chunk)) {
+            result.setIndex(result.getIndex() + offset);
+            results.add(result);
+        }
+        chunk.clear();
+    }
+
+    // Get task history, archived rows included, optionally paginated on (changedAt, id)
     @GetMapping("/{projectId}/tasks/{taskId}/history")
-    public ResponseEntity<List<TaskHistory>> getTaskHistory(@PathVariable Long projectId, @PathVariable Long taskId) {
-        List<TaskHistory> historyList = taskHistoryRepository.findByTaskId(taskId);
+    public ResponseEntity<List<TaskHistory>> getTaskHistory(
+            @PathVariable Long projectId,
+            @PathVariable Long taskId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterChangedAt,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        PageSizes.check(size, PageSizes.MAX_PAGE_SIZE);
+        List<TaskHistory> historyList = size != null
+                ? taskService.getTaskHistory(taskId, afterChangedAt, afterId, size)
+                : taskService.getTaskHistory(taskId);
 
-        if (historyList.isEmpty()) {
+        // Past the last page, the page is empty but the task has a history
+        if (historyList.isEmpty() && afterChangedAt == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(historyList);
         }
         return ResponseEntity.ok(historyList);
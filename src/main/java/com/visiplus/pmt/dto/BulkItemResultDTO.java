@@ -0,0 +1,27 @@
+package com.visiplus.pmt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk request, in request order.
+ * A failed item carries the reason and does not prevent the other items from being applied.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResultDTO {
+    private int index;
+    private Long taskId;
+    private boolean success;
+    private String error;
+
+    public static BulkItemResultDTO ok(int index, Long taskId) {
+        return new BulkItemResultDTO(index, taskId, true, null);
+    }
+
+    public static BulkItemResultDTO failed(int index, Long taskId, String error) {
+        return new BulkItemResultDTO(index, taskId, false, error);
+    }
+}
@@ -0,0 +1,22 @@
+package com.visiplus.pmt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Flat project row written by the NDJSON export of /projects/all/stream.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectRowDTO {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDate startDate;
+    private Long ownerId;
+    private String ownerUsername;
+}
@@ -0,0 +1,25 @@
+package com.visiplus.pmt.dto;
+
+import com.visiplus.pmt.enums.Role;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A project as listed for one of its members: the member's role and a few counters,
+ * without the owner or the membership list.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectSummaryDTO {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDate startDate;
+    private Role role;
+    private long memberCount;
+    private long openTaskCount;
+}
@@ -0,0 +1,28 @@
+package com.visiplus.pmt.dto;
+
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Task counters of a project, for dashboards: tasks by status and priority, unassigned and overdue tasks.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectTaskStatsDTO {
+    private Long projectId;
+    private long total;
+    private Map<TaskStatus, Long> byStatus;
+    private Map<Priority, Long> byPriority;
+    private long unassigned;
+    // Tasks not completed whose due date is past
+    private long overdue;
+    // Last check of the counters against the tasks, null if not checked yet
+    private LocalDateTime reconciledAt;
+}
@@ -0,0 +1,30 @@
+package com.visiplus.pmt.dto;
+
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.TaskStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters and keyset cursor for listing the tasks of a project.
+ * Tasks are ordered by (dueDate, id); a page starts right after (afterDueDate, afterId).
+ */
+@Data
+@NoArgsConstructor
+public class TaskFilterDTO {
+    private TaskStatus status;
+    private Priority priority;
+    private Long assigneeId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate afterDueDate;
+    private Long afterId;
+    private Integer size;
+
+    public boolean isEmpty() {
+        return status == null && priority == null && assigneeId == null
+                && afterDueDate == null && afterId == null && size == null;
+    }
+}
@@ -3,10 +3,12 @@ package com.visiplus.pmt.dto;
 import com.visiplus.pmt.enums.Priority;
 import com.visiplus.pmt.enums.TaskStatus;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
 @Data
+@NoArgsConstructor
 public class TaskResponseDTO {
     private Long id;
     private String name;
@@ -17,4 +19,33 @@ public class TaskResponseDTO {
     private TaskStatus status;
     private ProjectSimpleDTO project;
     private AssigneeDTO assignee;
+    // Task version, also sent as the ETag; send it back (If-Match or "version") to update without losing concurrent changes
+    private Long version;
+
+    /**
+     * Flat constructor used by JPQL constructor expressions, so a task row, its project
+     * and its assignee can be read in a single query without loading entities.
+     */
+    public TaskResponseDTO(Long id, String name, String description, LocalDate dueDate, Priority priority,
+                           LocalDate completionDate, TaskStatus status, Long version,
+                           Long projectId, String projectName, String projectDescription,
+                           Long assigneeId, String assigneeUsername, String assigneeEmail) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.dueDate = dueDate;
+        this.priority = priority;
+        this.completionDate = completionDate;
+        this.status = status;
+        this.version = version;
+
+        this.project = new ProjectSimpleDTO();
+        this.project.setId(projectId);
+        this.project.setName(projectName);
+        this.project.setDescription(projectDescription);
+
+        if (assigneeId != null) {
+            this.assignee = new AssigneeDTO(assigneeId, assigneeUsername, assigneeEmail);
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package com.visiplus.pmt.dto;
+
+import com.visiplus.pmt.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One item of a bulk status update: the task and its new status.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskStatusChangeDTO {
+    private Long taskId;
+    private TaskStatus status;
+}
@@ -1,19 +1,28 @@
 package com.visiplus.pmt.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = AppUser.CACHE_REGION)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class AppUser {
 
+    // Second-level cache regions, see SecondLevelCacheConfiguration
+    public static final String CACHE_REGION = "users";
+    public static final String BY_EMAIL_CACHE_REGION = "usersByEmail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,51 @@
+package com.visiplus.pmt.entity;
+
+import com.visiplus.pmt.enums.EmailStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_outbox")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, length = 4000)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmailStatus status;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // The dispatcher ignores the email until this time (coalescing window, retry backoff, then end of a claim)
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime sentAt;
+
+    private String lastError;
+
+    // Dispatcher run that claimed the email, while it is SENDING
+    @Column(length = 36)
+    private String claimToken;
+}
@@ -1,5 +1,6 @@
 package com.visiplus.pmt.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -7,18 +8,39 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Associations are lazy; each use case picks what it needs through one of the entity graphs below
+ * (see ProjectRepository), so a project is read together with its associations in one statement.
+ */
 @Entity
 @Table(name = "projects")
+@NamedEntityGraph(name = Project.SUMMARY_GRAPH)
+@NamedEntityGraph(name = Project.WITH_OWNER_GRAPH, attributeNodes = @NamedAttributeNode("owner"))
+@NamedEntityGraph(name = Project.WITH_MEMBERS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("owner"),
+                @NamedAttributeNode(value = "membersWithRoles", subgraph = "membersWithRoles")
+        },
+        subgraphs = @NamedSubgraph(name = "membersWithRoles", attributeNodes = @NamedAttributeNode("member")))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Project.CACHE_REGION)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Project {
 
+    public static final String SUMMARY_GRAPH = "Project.summary";
+    public static final String WITH_OWNER_GRAPH = "Project.withOwner";
+    public static final String WITH_MEMBERS_GRAPH = "Project.withMembers";
+    public static final String CACHE_REGION = "projects";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,11 +51,11 @@ public class Project {
     private String description;
     private LocalDate startDate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private AppUser owner;
 
-    @OneToMany(mappedBy = "project", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "project", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JsonManagedReference
     @EqualsAndHashCode.Exclude
     private Set<ProjectMemberRole> membersWithRoles = new HashSet<>();
@@ -1,33 +1,40 @@
 package com.visiplus.pmt.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.visiplus.pmt.enums.Role;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "project_member_roles", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user_id", "project_id"})
 })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ProjectMemberRole.CACHE_REGION)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class ProjectMemberRole {
 
+    public static final String CACHE_REGION = "projectMemberRoles";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "project_id")
     @JsonBackReference
     @EqualsAndHashCode.Exclude
     private Project project;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private AppUser member;
 
@@ -36,5 +43,8 @@ public class ProjectMemberRole {
     private Role role;
 
     public ProjectMemberRole(Project project, AppUser appUser, Role role) {
+        this.project = project;
+        this.member = appUser;
+        this.role = role;
     }
 }
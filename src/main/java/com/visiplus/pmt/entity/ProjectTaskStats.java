@@ -0,0 +1,63 @@
+package com.visiplus.pmt.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Task counters of a project, maintained by deltas on every task write so they can be read in one row.
+ * Also used as the delta itself: the counters to add to a project's row.
+ */
+@Entity
+@Table(name = "project_task_stats")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectTaskStats {
+
+    @Id
+    private Long projectId;
+
+    private long total;
+
+    private long todo;
+
+    private long inProgress;
+
+    private long completed;
+
+    private long onHold;
+
+    private long lowPriority;
+
+    private long mediumPriority;
+
+    private long highPriority;
+
+    private long unassigned;
+
+    // Tasks not completed and due before overdueAsOf
+    private long overdue;
+
+    @Column(nullable = false)
+    private LocalDate overdueAsOf;
+
+    private LocalDateTime reconciledAt;
+
+    // Counters computed from the tasks table (SUM is null when the project has no task)
+    public ProjectTaskStats(Long projectId, Long total, Long todo, Long inProgress, Long completed, Long onHold,
+                            Long lowPriority, Long mediumPriority, Long highPriority, Long unassigned, Long overdue,
+                            LocalDate overdueAsOf) {
+        this(projectId, orZero(total), orZero(todo), orZero(inProgress), orZero(completed), orZero(onHold),
+                orZero(lowPriority), orZero(mediumPriority), orZero(highPriority), orZero(unassigned), orZero(overdue),
+                overdueAsOf, null);
+    }
+
+    private static long orZero(Long count) {
+        return count != null ? count : 0L;
+    }
+}
@@ -6,18 +6,24 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "tasks")
+// UPDATEs only set the modified columns (and the version), not the whole row
+@DynamicUpdate
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Task {
 
+    // Pooled table-based ids, as for TaskHistory, so that bulk creation is inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "task_id")
+    @TableGenerator(name = "task_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "tasks", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -46,6 +52,15 @@ public class Task {
     @Enumerated(EnumType.STRING)
     private TaskStatus status;
 
+    // Optimistic lock: updates are conditional on the version read (WHERE version = ?) and increment it
+    @Version
+    private Long version;
+
+    public Task(Long id, String name, String description, LocalDate dueDate, Priority priority, Project project,
+                AppUser assignee, LocalDate completionDate, TaskStatus status) {
+        this(id, name, description, dueDate, priority, project, assignee, completionDate, status, null);
+    }
+
     public Task(Object o, String updatedTaskName, String updatedDescription, LocalDate localDate, Priority priority, Object o1, Object o2, TaskStatus taskStatus) {
     }
 }
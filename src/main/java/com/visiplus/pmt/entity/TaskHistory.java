@@ -13,14 +13,26 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 public class TaskHistory {
+    // Pooled table-based ids (unlike IDENTITY) let Hibernate batch the inserts of one update
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "task_history_id")
+    @TableGenerator(name = "task_history_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "task_history", allocationSize = 50)
     private Long id;
 
+    // Null for membership changes, which have a memberId instead
     private Long taskId;
 
+    private Long projectId;
+
+    // User whose membership changed (fieldName "memberRole"), null for task changes
+    private Long memberId;
+
     private Long changedBy;
 
+    // Stored as a SMALLINT code (TaskHistoryField)
+    @Convert(converter = TaskHistoryFieldConverter.class)
+    @Column(name = "field_code")
     private String fieldName;
 
     private String oldValue;
@@ -28,4 +40,16 @@ public class TaskHistory {
     private String newValue;
 
     private LocalDateTime changedAt;
+
+    // Version of the task once this change is written, null for rows recorded before tasks were versioned
+    private Long taskVersion;
+
+    public TaskHistory(Long id, Long taskId, Long changedBy, String fieldName, String oldValue, String newValue, LocalDateTime changedAt) {
+        this(id, taskId, changedBy, fieldName, oldValue, newValue, changedAt, null);
+    }
+
+    public TaskHistory(Long id, Long taskId, Long changedBy, String fieldName, String oldValue, String newValue,
+                       LocalDateTime changedAt, Long taskVersion) {
+        this(id, taskId, null, null, changedBy, fieldName, oldValue, newValue, changedAt, taskVersion);
+    }
 }
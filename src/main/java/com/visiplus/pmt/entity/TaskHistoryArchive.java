@@ -0,0 +1,42 @@
+package com.visiplus.pmt.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Task history rows older than pmt.history.archive.after, moved out of task_history with their id.
+ * Written only by TaskHistoryRecorder.archive, read together with task_history.
+ */
+@Entity
+@Table(name = "task_history_archive")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskHistoryArchive {
+    @Id
+    private Long id;
+
+    private Long taskId;
+
+    private Long projectId;
+
+    private Long memberId;
+
+    private Long changedBy;
+
+    @Convert(converter = TaskHistoryFieldConverter.class)
+    @Column(name = "field_code")
+    private String fieldName;
+
+    private String oldValue;
+
+    private String newValue;
+
+    private LocalDateTime changedAt;
+
+    private Long taskVersion;
+}
@@ -0,0 +1,20 @@
+package com.visiplus.pmt.entity;
+
+import com.visiplus.pmt.enums.TaskHistoryField;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Field names of the task history are written as their TaskHistoryField code
+@Converter
+public class TaskHistoryFieldConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String fieldName) {
+        return fieldName != null ? TaskHistoryField.fromFieldName(fieldName).getCode() : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        return code != null ? TaskHistoryField.fromCode(code).getFieldName() : null;
+    }
+}
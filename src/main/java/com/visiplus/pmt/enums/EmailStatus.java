@@ -0,0 +1,9 @@
+package com.visiplus.pmt.enums;
+
+public enum EmailStatus {
+    PENDING,
+    // Claimed by a dispatcher, being sent
+    SENDING,
+    SENT,
+    FAILED
+}
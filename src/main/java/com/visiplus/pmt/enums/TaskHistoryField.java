@@ -0,0 +1,59 @@
+package com.visiplus.pmt.enums;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Task fields recorded in the task history, stored as a SMALLINT code instead of their name.
+ * MEMBER_ROLE rows record membership changes of a project: a member added (no old value) or given another role.
+ * Codes are persisted: never renumber them, only add new ones.
+ */
+public enum TaskHistoryField {
+    NAME("name", 1),
+    DESCRIPTION("description", 2),
+    DUE_DATE("dueDate", 3),
+    COMPLETION_DATE("completionDate", 4),
+    PRIORITY("priority", 5),
+    STATUS("status", 6),
+    CREATED("created", 7),
+    ASSIGNEE("assignee", 8),
+    MEMBER_ROLE("memberRole", 9);
+
+    private static final Map<String, TaskHistoryField> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(TaskHistoryField::getFieldName, Function.identity()));
+
+    private final String fieldName;
+    private final short code;
+
+    TaskHistoryField(String fieldName, int code) {
+        this.fieldName = fieldName;
+        this.code = (short) code;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static TaskHistoryField fromFieldName(String fieldName) {
+        TaskHistoryField field = BY_NAME.get(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown task history field: " + fieldName);
+        }
+        return field;
+    }
+
+    public static TaskHistoryField fromCode(short code) {
+        for (TaskHistoryField field : values()) {
+            if (field.code == code) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task history field code: " + code);
+    }
+}
@@ -0,0 +1,40 @@
+package com.visiplus.pmt.events;
+
+import com.visiplus.pmt.entity.TaskHistory;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change of one field of a task, pushed to the subscribers of its project.
+ * Each event is a task history row: its id is the history row id, so a client resuming after the last id it
+ * received is sent the rows it missed.
+ */
+public record TaskChangedEvent(Long id, Long projectId, Long taskId, Type type, String field,
+                               String oldValue, String newValue, Long version, LocalDateTime changedAt) {
+
+    public enum Type {
+        CREATED, UPDATED, STATUS_CHANGED, ASSIGNED
+    }
+
+    // History rows written for task creations and assignments, besides one per updated field
+    public static final String CREATED_FIELD = "created";
+    public static final String ASSIGNEE_FIELD = "assignee";
+
+    /**
+     * Event of a task history row.
+     *
+     * @param projectId the project of the task
+     * @param change the history row, with its id once saved
+     * @return the event
+     */
+    public static TaskChangedEvent of(Long projectId, TaskHistory change) {
+        Type type = switch (change.getFieldName()) {
+            case CREATED_FIELD -> Type.CREATED;
+            case ASSIGNEE_FIELD -> Type.ASSIGNED;
+            case "status" -> Type.STATUS_CHANGED;
+            default -> Type.UPDATED;
+        };
+        return new TaskChangedEvent(change.getId(), projectId, change.getTaskId(), type, change.getFieldName(),
+                change.getOldValue(), change.getNewValue(), change.getTaskVersion(), change.getChangedAt());
+    }
+}
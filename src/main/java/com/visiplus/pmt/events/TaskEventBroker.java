@@ -0,0 +1,286 @@
+package com.visiplus.pmt.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * In-process fan-out of task events to the server-sent event streams of each project.
+ * Publishing only offers the event to the bounded buffer of every subscriber of the project; a small pool of
+ * sender threads writes the buffers to the streams. A subscriber whose buffer is full is too slow: its stream is
+ * closed, and the client resumes from the last event id it received. A project has at most
+ * max-subscribers-per-project open streams, so that no project can take all the sender threads.
+ */
+@Component
+public class TaskEventBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskEventBroker.class);
+
+    // Queued to keep idle streams open through proxies, and to notice clients that went away
+    private static final TaskChangedEvent HEARTBEAT = new TaskChangedEvent(null, null, null, null, null, null, null, null, null);
+
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final int replayLimit;
+    private final int maxSubscribersPerProject;
+    private final Counter droppedSubscribers;
+
+    public TaskEventBroker(@Value("${pmt.events.buffer-size:256}") int bufferSize,
+                           @Value("${pmt.events.sender-threads:4}") int senderThreads,
+                           @Value("${pmt.events.timeout:PT30M}") Duration timeout,
+                           @Value("${pmt.events.replay-limit:1000}") int replayLimit,
+                           @Value("${pmt.events.max-subscribers-per-project:100}") int maxSubscribersPerProject,
+                           MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.replayLimit = replayLimit;
+        this.maxSubscribersPerProject = maxSubscribersPerProject;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "task-events-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("pmt.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open task event streams")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("pmt.events.dropped")
+                .description("Task event streams closed because the client did not keep up")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a task event stream on a project.
+     * When the client resumes after lastEventId, the events it missed are read with history and sent first;
+     * the live events published meanwhile are held back until then, so none is lost or sent twice.
+     *
+     * @param projectId the project ID
+     * @param lastEventId the id of the last event the client received, or null for live events only
+     * @param history reads up to the given number of events of the project after an event id, in id order
+     * @return the stream, to return from the controller
+     * @throws ResponseStatusException with status 429 if the project already has max-subscribers-per-project streams
+     */
+    public SseEmitter subscribe(Long projectId, Long lastEventId, BiFunction<Long, Integer, List<TaskChangedEvent>> history) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribe(projectId, emitter, lastEventId, history);
+        return emitter;
+    }
+
+    /**
+     * Same as {@link #subscribe(Long, Long, BiFunction)}, on a given emitter.
+     */
+    public void subscribe(Long projectId, SseEmitter emitter, Long lastEventId,
+                          BiFunction<Long, Integer, List<TaskChangedEvent>> history) {
+        Subscription subscription = new Subscription(projectId, emitter, bufferSize);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(error -> unsubscribe(subscription));
+
+        // Buffering starts before the history is read: nothing committed in between can be missed
+        subscriptions.compute(projectId, (id, projectSubscriptions) -> {
+            Set<Subscription> updated = projectSubscriptions != null ? projectSubscriptions : ConcurrentHashMap.newKeySet();
+            if (updated.size() >= maxSubscribersPerProject) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Project " + projectId + " already has " + updated.size() + " event streams");
+            }
+            updated.add(subscription);
+            return updated;
+        });
+        subscriberCount.incrementAndGet();
+
+        if (lastEventId != null) {
+            List<TaskChangedEvent> missed;
+            try {
+                missed = history.apply(lastEventId, replayLimit + 1);
+            } catch (RuntimeException e) {
+                unsubscribe(subscription);
+                throw e;
+            }
+            if (missed.size() > replayLimit) {
+                // Too far behind: the client reloads the project instead
+                subscription.reset = true;
+            } else {
+                subscription.replay.addAll(missed);
+                subscription.replayedUpTo = missed.isEmpty() ? lastEventId : missed.get(missed.size() - 1).id();
+            }
+        }
+        subscription.started = true;
+        schedule(subscription);
+    }
+
+    /**
+     * Sends events to the subscribers of their project once the current transaction commits,
+     * or right away outside of a transaction.
+     *
+     * @param events the events, in order
+     */
+    public void publishAfterCommit(List<TaskChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    events.forEach(TaskEventBroker.this::publish);
+                }
+            });
+        } else {
+            events.forEach(this::publish);
+        }
+    }
+
+    /**
+     * Offers an event to every subscriber of its project, without waiting for any of them.
+     *
+     * @param event the event
+     */
+    public void publish(TaskChangedEvent event) {
+        Set<Subscription> projectSubscriptions = subscriptions.get(event.projectId());
+        if (projectSubscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : projectSubscriptions) {
+            offer(subscription, event);
+        }
+    }
+
+    /**
+     * Queues a heartbeat on every stream.
+     */
+    @Scheduled(fixedDelayString = "${pmt.events.heartbeat-interval:PT30S}",
+            initialDelayString = "${pmt.events.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        subscriptions.values().forEach(projectSubscriptions -> projectSubscriptions.forEach(s -> offer(s, HEARTBEAT)));
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscriptions.values().forEach(projectSubscriptions -> projectSubscriptions.forEach(s -> s.emitter.complete()));
+    }
+
+    private void offer(Subscription subscription, TaskChangedEvent event) {
+        if (!subscription.queue.offer(event)) {
+            logger.info("Task event stream of project {} is not keeping up, closing it", subscription.projectId);
+            droppedSubscribers.increment();
+            unsubscribe(subscription);
+            subscription.emitter.complete();
+            return;
+        }
+        schedule(subscription);
+    }
+
+    // One sender at a time per subscription, so its events are written in order
+    private void schedule(Subscription subscription) {
+        if (subscription.started && !subscription.closed.get() && subscription.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscription));
+        }
+    }
+
+    private void send(Subscription subscription) {
+        try {
+            if (subscription.reset) {
+                subscription.reset = false;
+                subscription.emitter.send(SseEmitter.event().name("reset").data(""));
+            }
+            TaskChangedEvent event;
+            while ((event = subscription.replay.poll()) != null) {
+                send(subscription.emitter, event);
+            }
+            // A dropped subscriber is not sent what was left in its buffer
+            while (!subscription.closed.get() && (event = subscription.queue.poll()) != null) {
+                // Already sent from the history
+                if (event.id() != null && subscription.replayedUpTo != null && event.id() <= subscription.replayedUpTo) {
+                    continue;
+                }
+                send(subscription.emitter, event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client gone, or stream already completed
+            unsubscribe(subscription);
+            subscription.emitter.completeWithError(e);
+        } finally {
+            subscription.sending.set(false);
+        }
+        // An event offered after the last poll but before the flag was cleared
+        if (!subscription.queue.isEmpty()) {
+            schedule(subscription);
+        }
+    }
+
+    private static void send(SseEmitter emitter, TaskChangedEvent event) throws IOException {
+        if (event == HEARTBEAT) {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+            return;
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.type().name()).data(event);
+        if (event.id() != null) {
+            builder.id(String.valueOf(event.id()));
+        }
+        emitter.send(builder);
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        if (!subscription.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscriptions.computeIfPresent(subscription.projectId, (id, projectSubscriptions) -> {
+            projectSubscriptions.remove(subscription);
+            return projectSubscriptions.isEmpty() ? null : projectSubscriptions;
+        });
+    }
+
+    private static final class Subscription {
+        private final Long projectId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<TaskChangedEvent> queue;
+        private final Queue<TaskChangedEvent> replay = new ArrayDeque<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean started;
+        private volatile boolean reset;
+        private volatile Long replayedUpTo;
+
+        private Subscription(Long projectId, SseEmitter emitter, int bufferSize) {
+            this.projectId = projectId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
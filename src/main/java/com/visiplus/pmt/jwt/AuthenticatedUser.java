@@ -0,0 +1,61 @@
+package com.visiplus.pmt.jwt;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.enums.Role;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Caller of the current request, read once from its bearer token by {@link JwtAuthenticationFilter}
+ * and exposed to controllers as the request attribute {@link #ATTRIBUTE}.
+ */
+public record AuthenticatedUser(Long userId, String username, String email, List<Role> roles) {
+
+    public static final String ATTRIBUTE = "pmt.authenticatedUser";
+
+    public AuthenticatedUser {
+        roles = List.copyOf(roles);
+    }
+
+    static AuthenticatedUser from(DecodedJWT decodedJWT) {
+        List<String> roleNames = decodedJWT.getClaim("roles").asList(String.class);
+        List<Role> roles = roleNames == null ? List.of() : roleNames.stream().map(Role::valueOf).toList();
+        return new AuthenticatedUser(decodedJWT.getClaim("userId").asLong(), decodedJWT.getClaim("username").asString(),
+                decodedJWT.getSubject(), roles);
+    }
+
+    /**
+     * Rejects a request acting on behalf of another user than the one authenticated.
+     * Requests without a token (caller is null) are let through, see pmt.auth.required.
+     *
+     * @param caller the authenticated user, or null
+     * @param userId the user id taken from the request path
+     * @throws ResponseStatusException with status 403 if the ids differ
+     */
+    public static void checkCaller(AuthenticatedUser caller, Long userId) {
+        if (caller != null && !caller.userId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Token does not belong to user " + userId);
+        }
+    }
+
+    /**
+     * Rejects a request on a project from a caller who is not one of its members.
+     * Unlike {@link #checkCaller}, a token is required: the request carries no user id to check against.
+     *
+     * @param caller the authenticated user, or null
+     * @param projectId the project id taken from the request path
+     * @param projectRoleCache the cached memberships
+     * @throws ResponseStatusException with status 401 without a token, 403 if the caller is not a member
+     */
+    public static void checkMember(AuthenticatedUser caller, Long projectId, ProjectRoleCache projectRoleCache) {
+        if (caller == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "A bearer token is required");
+        }
+        if (projectRoleCache.getRole(projectId, caller.userId()).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not a member of project " + projectId);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.visiplus.pmt.jwt;
+
+import com.visiplus.pmt.entity.RevokedToken;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in for the shared store: revocations live as long as the process and are not shared.
+ */
+@Component
+@ConditionalOnProperty(name = "pmt.jwt.blacklist.store", havingValue = "memory")
+public class InMemoryRevokedTokenStore implements RevokedTokenStore {
+
+    private final Map<String, RevokedToken> revokedTokens = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(RevokedToken revokedToken) {
+        revokedTokens.put(revokedToken.getTokenHash(), revokedToken);
+    }
+
+    @Override
+    public List<RevokedToken> findRevokedSince(Instant revokedAfter, Instant now) {
+        return revokedTokens.values().stream()
+                .filter(token -> token.getRevokedAt().isAfter(revokedAfter) && token.getExpiresAt().isAfter(now))
+                .toList();
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        int before = revokedTokens.size();
+        revokedTokens.values().removeIf(token -> !token.getExpiresAt().isAfter(now));
+        return before - revokedTokens.size();
+    }
+}
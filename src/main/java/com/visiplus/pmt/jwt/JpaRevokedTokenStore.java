@@ -0,0 +1,37 @@
+package com.visiplus.pmt.jwt;
+
+import com.visiplus.pmt.entity.RevokedToken;
+import com.visiplus.pmt.repository.RevokedTokenRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "pmt.jwt.blacklist.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRevokedTokenStore implements RevokedTokenStore {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    public JpaRevokedTokenStore(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    @Override
+    public void save(RevokedToken revokedToken) {
+        revokedTokenRepository.save(revokedToken);
+    }
+
+    @Override
+    public List<RevokedToken> findRevokedSince(Instant revokedAfter, Instant now) {
+        return revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(revokedAfter, now);
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpired(Instant now) {
+        return revokedTokenRepository.deleteExpired(now);
+    }
+}
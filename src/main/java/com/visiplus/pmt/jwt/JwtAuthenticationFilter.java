@@ -0,0 +1,81 @@
+package com.visiplus.pmt.jwt;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Verifies the bearer token once per request and stores the caller as an {@link AuthenticatedUser}
+ * request attribute. Invalid or revoked tokens are rejected with 401; requests without a token
+ * go through unless pmt.auth.required is set.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Set<String> PUBLIC_PATHS = Set.of("/users/login", "/users/register");
+
+    private final JwtService jwtService;
+    private final JwtBlacklistService jwtBlacklistService;
+    private final boolean authRequired;
+
+    public JwtAuthenticationFilter(JwtService jwtService, JwtBlacklistService jwtBlacklistService, boolean authRequired) {
+        this.jwtService = jwtService;
+        this.jwtBlacklistService = jwtBlacklistService;
+        this.authRequired = authRequired;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return HttpMethod.OPTIONS.matches(request.getMethod())
+                || PUBLIC_PATHS.contains(path)
+                || path.startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            if (authRequired) {
+                reject(response, "Missing bearer token");
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String token = header.substring(BEARER_PREFIX.length()).trim();
+        if (jwtBlacklistService.isTokenBlacklisted(token)) {
+            reject(response, "Token is blacklisted");
+            return;
+        }
+
+        AuthenticatedUser caller;
+        try {
+            caller = AuthenticatedUser.from(jwtService.decodeToken(token));
+        } catch (JWTVerificationException | IllegalArgumentException e) {
+            reject(response, "Invalid or expired token");
+            return;
+        }
+
+        request.setAttribute(AuthenticatedUser.ATTRIBUTE, caller);
+        filterChain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
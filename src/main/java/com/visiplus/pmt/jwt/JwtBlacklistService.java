@@ -1,20 +1,200 @@
 package com.visiplus.pmt.jwt;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.visiplus.pmt.entity.RevokedToken;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Revoked JWTs, keyed by the SHA-256 of the token and kept only until the token expires.
+ * Lookups first go through a Bloom filter so the common "not revoked" answer needs no map access.
+ * Revocations are written to a {@link RevokedTokenStore} and pulled back periodically,
+ * so they survive restarts and reach the other nodes within pmt.jwt.blacklist.sync-interval.
+ */
 @Service
 public class JwtBlacklistService {
 
-    private final Set<String> blacklistedTokens = new HashSet<>();
+    private static final HexFormat HEX = HexFormat.of();
 
+    private final RevokedTokenStore revokedTokenStore;
+    private final Duration defaultTtl;
+    private final int expectedEntries;
+
+    // Token hash -> token expiry
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+
+    // Revocations take the read lock, rebuilding the filter takes the write lock
+    // so no revocation can be missing from the filter that replaces the current one
+    private final ReadWriteLock filterLock = new ReentrantReadWriteLock();
+    private volatile RevocationBloomFilter bloomFilter;
+
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public JwtBlacklistService(RevokedTokenStore revokedTokenStore,
+                               @Value("${jwt.expiration}") long expiration,
+                               @Value("${pmt.jwt.blacklist.expected-entries:100000}") int expectedEntries) {
+        this.revokedTokenStore = revokedTokenStore;
+        this.defaultTtl = Duration.ofMillis(expiration);
+        this.expectedEntries = expectedEntries;
+        this.bloomFilter = new RevocationBloomFilter(expectedEntries);
+    }
+
+    /**
+     * Loads the revocations still in force, so a restarted node keeps rejecting revoked tokens.
+     */
+    @PostConstruct
+    public void loadRevokedTokens() {
+        syncFromStore();
+    }
+
+    /**
+     * Revokes a token until its own expiry, read from its exp claim.
+     *
+     * @param token the raw JWT
+     */
     public void blacklistToken(String token) {
-        blacklistedTokens.add(token);
+        byte[] digest = digest(token);
+        Instant now = Instant.now();
+        Instant expiresAt = expiryOf(token, now);
+        if (!expiresAt.isAfter(now)) {
+            // An expired token is already rejected by the signature check
+            return;
+        }
+        String tokenHash = HEX.formatHex(digest);
+        revokedTokenStore.save(new RevokedToken(tokenHash, expiresAt, now));
+        addLocally(tokenHash, digest, expiresAt);
     }
 
+    /**
+     * Checks whether a token has been revoked and has not expired yet.
+     *
+     * @param token the raw JWT
+     * @return true if the token must be rejected
+     */
     public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        byte[] digest = digest(token);
+        if (!bloomFilter.mightContain(digest)) {
+            return false;
+        }
+        Instant expiresAt = revokedTokens.get(HEX.formatHex(digest));
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    public int size() {
+        return revokedTokens.size();
+    }
+
+    /**
+     * Drops the revocations whose token has expired, locally and in the store,
+     * then rebuilds the Bloom filter so it does not fill up with stale entries.
+     *
+     * @return the number of entries removed locally
+     */
+    @Scheduled(fixedDelayString = "${pmt.jwt.blacklist.purge-interval:PT1M}")
+    public int purgeExpired() {
+        int removed = 0;
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            if (revokedTokens.remove(expiry.tokenHash(), expiry.expiresAt())) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            rebuildBloomFilter();
+        }
+        revokedTokenStore.deleteExpired(Instant.now());
+        return removed;
+    }
+
+    /**
+     * Pulls the revocations recorded by other nodes since the previous sync.
+     */
+    @Scheduled(fixedDelayString = "${pmt.jwt.blacklist.sync-interval:PT10S}",
+            initialDelayString = "${pmt.jwt.blacklist.sync-interval:PT10S}")
+    public void syncFromStore() {
+        Instant now = Instant.now();
+        // Overlap the previous window a little to tolerate clock skew between nodes
+        Instant since = lastSync.equals(Instant.EPOCH) ? Instant.EPOCH : lastSync.minusSeconds(5);
+        for (RevokedToken revokedToken : revokedTokenStore.findRevokedSince(since, now)) {
+            String tokenHash = revokedToken.getTokenHash();
+            if (!revokedTokens.containsKey(tokenHash)) {
+                addLocally(tokenHash, HEX.parseHex(tokenHash), revokedToken.getExpiresAt());
+            }
+        }
+        lastSync = now;
+    }
+
+    private void addLocally(String tokenHash, byte[] digest, Instant expiresAt) {
+        filterLock.readLock().lock();
+        try {
+            if (revokedTokens.put(tokenHash, expiresAt) == null) {
+                expiries.add(new Expiry(tokenHash, expiresAt));
+            }
+            bloomFilter.add(digest);
+        } finally {
+            filterLock.readLock().unlock();
+        }
+    }
+
+    private void rebuildBloomFilter() {
+        filterLock.writeLock().lock();
+        try {
+            RevocationBloomFilter rebuilt = new RevocationBloomFilter(Math.max(expectedEntries, revokedTokens.size()));
+            revokedTokens.keySet().forEach(tokenHash -> rebuilt.add(HEX.parseHex(tokenHash)));
+            bloomFilter = rebuilt;
+        } finally {
+            filterLock.writeLock().unlock();
+        }
+    }
+
+    private Instant expiryOf(String token, Instant now) {
+        try {
+            Instant expiresAt = JWT.decode(token).getExpiresAtAsInstant();
+            if (expiresAt != null) {
+                return expiresAt;
+            }
+        } catch (JWTDecodeException e) {
+            // Not a JWT we can read, keep it for the configured token lifetime
+        }
+        return now.plus(defaultTtl);
+    }
+
+    private static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Expiry(String tokenHash, Instant expiresAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), expiresAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return expiresAt.compareTo(((Expiry) other).expiresAt);
+        }
     }
 }
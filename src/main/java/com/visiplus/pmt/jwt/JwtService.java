@@ -1,12 +1,19 @@
 package com.visiplus.pmt.jwt;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.visiplus.pmt.enums.Role;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -14,13 +21,27 @@ import java.util.stream.Collectors;
 @Service
 public class JwtService {
 
-    private final String secret;
     private final Long expiration;
 
+    // HMAC key and verifier are immutable and thread-safe, built once
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+
+    // Recently verified tokens, keyed by their signature segment and kept until the token expires
+    private final Cache<String, DecodedJWT> verifiedTokens;
+
     public JwtService(@Value("${jwt.secret}") String secret,
-                      @Value("${jwt.expiration}") Long expiration) {
-        this.secret = secret;
+                      @Value("${jwt.expiration}") Long expiration,
+                      @Value("${pmt.jwt.verified-cache.maximum-size:10000}") long verifiedCacheSize) {
         this.expiration = expiration;
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm).build();
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(verifiedCacheSize)
+                        .expireAfter(new UntilTokenExpiry())
+                        .build()
+                : null;
     }
 
     // Generate token with userId
@@ -33,11 +54,57 @@ public class JwtService {
                 .withClaim("username", username)
                 .withExpiresAt(new Date(System.currentTimeMillis() + expiration))
                 .withClaim("roles", roleNames)
-                .sign(Algorithm.HMAC256(secret));
+                .sign(algorithm);
     }
 
     // Décoder et vérifier un token JWT
+    @Timed(value = "pmt.jwt.verify", description = "Bearer token verification, cache hits included", histogram = true)
     public DecodedJWT decodeToken(String token) {
-        return JWT.require(Algorithm.HMAC256(secret)).build().verify(token);
+        if (verifiedTokens == null) {
+            return verifier.verify(token);
+        }
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        DecodedJWT cached = verifiedTokens.getIfPresent(signature);
+        // The whole token must match: the signature alone does not cover a tampered header or payload
+        if (cached != null && cached.getToken().equals(token) && isNotExpired(cached)) {
+            return cached;
+        }
+        DecodedJWT decodedJWT = verifier.verify(token);
+        verifiedTokens.put(signature, decodedJWT);
+        return decodedJWT;
+    }
+
+    private static boolean isNotExpired(DecodedJWT decodedJWT) {
+        Instant expiresAt = decodedJWT.getExpiresAtAsInstant();
+        return expiresAt == null || expiresAt.isAfter(Instant.now());
+    }
+
+    // Evicts a cached token when its exp claim passes
+    private static final class UntilTokenExpiry implements Expiry<String, DecodedJWT> {
+
+        private static final Duration MAX_DURATION = Duration.ofDays(1);
+
+        @Override
+        public long expireAfterCreate(String key, DecodedJWT value, long currentTime) {
+            Instant expiresAt = value.getExpiresAtAsInstant();
+            if (expiresAt == null) {
+                return MAX_DURATION.toNanos();
+            }
+            Duration remaining = Duration.between(Instant.now(), expiresAt);
+            if (remaining.isNegative()) {
+                return 0;
+            }
+            return remaining.compareTo(MAX_DURATION) > 0 ? MAX_DURATION.toNanos() : remaining.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, DecodedJWT value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, DecodedJWT value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,56 @@
+package com.visiplus.pmt.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over SHA-256 token digests.
+ * The digest is already uniformly distributed, so the bit indexes are read straight from its bytes.
+ * A negative answer is definitive; a positive one must be confirmed against the blacklist.
+ */
+class RevocationBloomFilter {
+
+    private static final int HASH_COUNT = 7;
+
+    private final AtomicLongArray bits;
+    private final int bitCount;
+
+    // About 10 bits per expected entry gives ~1% false positives with 7 hashes
+    RevocationBloomFilter(int expectedEntries) {
+        long size = Math.max(64L, (long) expectedEntries * 10L);
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63L, (size + 63) / 64 * 64);
+        this.bits = new AtomicLongArray(bitCount / 64);
+    }
+
+    void add(byte[] digest) {
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int index = index(digest, i);
+            long mask = 1L << (index & 63);
+            int word = index >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(byte[] digest) {
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int index = index(digest, i);
+            if ((bits.get(index >>> 6) & (1L << (index & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // i-th 32-bit word of the digest, reduced to a bit index
+    private int index(byte[] digest, int i) {
+        int offset = i * 4;
+        int value = ((digest[offset] & 0xFF) << 24) | ((digest[offset + 1] & 0xFF) << 16)
+                | ((digest[offset + 2] & 0xFF) << 8) | (digest[offset + 3] & 0xFF);
+        return (value & Integer.MAX_VALUE) % bitCount;
+    }
+}
@@ -0,0 +1,20 @@
+package com.visiplus.pmt.jwt;
+
+import com.visiplus.pmt.entity.RevokedToken;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Persistent backend of the JWT blacklist, shared by every node of the application.
+ * Selected with pmt.jwt.blacklist.store ("jpa" by default, "memory" for a single node).
+ */
+public interface RevokedTokenStore {
+
+    void save(RevokedToken revokedToken);
+
+    // Revocations recorded after the given instant whose token has not expired yet
+    List<RevokedToken> findRevokedSince(Instant revokedAfter, Instant now);
+
+    int deleteExpired(Instant now);
+}
@@ -0,0 +1,36 @@
+package com.visiplus.pmt.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between start() and stop().
+ * Registered as the session factory's StatementInspector; statements outside a counted section are ignored.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> counts = new ThreadLocal<>();
+
+    public void start() {
+        counts.set(new int[1]);
+    }
+
+    /**
+     * Ends the counted section of the current thread.
+     *
+     * @return the number of statements prepared since start()
+     */
+    public int stop() {
+        int[] count = counts.get();
+        counts.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = counts.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
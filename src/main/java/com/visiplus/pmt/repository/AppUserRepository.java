@@ -1,10 +1,19 @@
 package com.visiplus.pmt.repository;
 
 import com.visiplus.pmt.entity.AppUser;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
 import java.util.Optional;
 
 public interface AppUserRepository extends CrudRepository<AppUser, Long> {
+
+    // Login and invitations: the id found is cached until the users table is next written, the user in its own region
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = AppUser.BY_EMAIL_CACHE_REGION)
+    })
     Optional<AppUser> findByEmail(String email);
 }
@@ -0,0 +1,32 @@
+package com.visiplus.pmt.repository;
+
+import com.visiplus.pmt.entity.EmailOutbox;
+import com.visiplus.pmt.enums.EmailStatus;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends CrudRepository<EmailOutbox, Long> {
+    List<EmailOutbox> findByStatusInAndNextAttemptAtLessThanEqualOrderByIdAsc(Collection<EmailStatus> statuses, LocalDateTime now, Pageable pageable);
+
+    // Other pending emails of the recipients, in their coalescing window or due, but not those waiting for a retry
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status = com.visiplus.pmt.enums.EmailStatus.PENDING " +
+            "AND e.recipient IN :recipients AND (e.attempts = 0 OR e.nextAttemptAt <= :now) ORDER BY e.id")
+    List<EmailOutbox> findDigestCandidates(Collection<String> recipients, LocalDateTime now, Pageable pageable);
+
+    // Conditional UPDATE: of the given rows, only those still to send, or whose claim expired, get the claim token
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE EmailOutbox e SET e.status = com.visiplus.pmt.enums.EmailStatus.SENDING, e.claimToken = :claimToken, " +
+            "e.nextAttemptAt = :claimExpiresAt WHERE e.id IN :ids AND ((e.status = com.visiplus.pmt.enums.EmailStatus.PENDING " +
+            "AND (e.attempts = 0 OR e.nextAttemptAt <= :now)) OR (e.status = com.visiplus.pmt.enums.EmailStatus.SENDING AND e.nextAttemptAt <= :now))")
+    int claim(Collection<Long> ids, String claimToken, LocalDateTime now, LocalDateTime claimExpiresAt);
+
+    List<EmailOutbox> findByClaimTokenOrderByIdAsc(String claimToken);
+}
@@ -1,6 +1,8 @@
 package com.visiplus.pmt.repository;
 
 import com.visiplus.pmt.entity.ProjectMemberRole;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import java.util.List;
@@ -9,5 +11,13 @@ import java.util.Optional;
 public interface ProjectMemberRoleRepository extends CrudRepository<ProjectMemberRole, Long> {
     Optional<ProjectMemberRole> findByProjectIdAndMemberId(Long projectId, Long memberId);
     List<ProjectMemberRole> findByMemberId(Long userId);
+
+    // In id order, the order of findIdsByProjectId
+    @EntityGraph(attributePaths = "member")
+    @Query("SELECT m FROM ProjectMemberRole m WHERE m.project.id = :projectId ORDER BY m.id")
     List<ProjectMemberRole> findByProjectId(Long projectId);
+
+    // Membership ids of a project, whose hash is the ETag of its member list
+    @Query("SELECT m.id FROM ProjectMemberRole m WHERE m.project.id = :projectId ORDER BY m.id")
+    List<Long> findIdsByProjectId(Long projectId);
 }
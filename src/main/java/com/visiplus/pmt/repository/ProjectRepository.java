@@ -1,12 +1,77 @@
 package com.visiplus.pmt.repository;
 
+import com.visiplus.pmt.dto.ProjectRowDTO;
+import com.visiplus.pmt.dto.ProjectSummaryDTO;
 import com.visiplus.pmt.entity.Project;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ProjectRepository extends CrudRepository<Project, Long> {
-    @Query("SELECT p FROM Project p JOIN p.membersWithRoles m WHERE p.owner.id = :userId OR m.member.id = :userId")
+public interface ProjectRepository extends CrudRepository<Project, Long>, PagingAndSortingRepository<Project, Long> {
+
+    // Project columns only, associations stay lazy
+    @EntityGraph(Project.SUMMARY_GRAPH)
+    Optional<Project> findSummaryById(Long id);
+
+    @EntityGraph(Project.WITH_OWNER_GRAPH)
+    Optional<Project> findWithOwnerById(Long id);
+
+    // Owner, memberships and their users in the same statement
+    @EntityGraph(Project.WITH_MEMBERS_GRAPH)
+    Optional<Project> findWithMembersById(Long id);
+
+    @Override
+    @EntityGraph(Project.WITH_MEMBERS_GRAPH)
+    List<Project> findAll();
+
+    // Pages are cut on ids first: a row limit cannot be applied to a query fetching a collection
+    @Query("SELECT p.id FROM Project p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsAfter(Long afterId, Pageable pageable);
+
+    @EntityGraph(Project.WITH_MEMBERS_GRAPH)
+    List<Project> findWithMembersByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /**
+     * Every project as a flat row, read through a forward-only cursor.
+     * Must be consumed inside a transaction and closed once done.
+     */
+    @Query("SELECT new com.visiplus.pmt.dto.ProjectRowDTO(p.id, p.name, p.description, p.startDate, o.id, o.username) " +
+            "FROM Project p LEFT JOIN p.owner o ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ProjectRowDTO> streamAllProjects();
+
+    /**
+     * Projects the user is a member of, one row each.
+     * Owners always get an ADMIN membership, so the membership index (user_id, project_id) is enough.
+     */
+    @EntityGraph(Project.WITH_MEMBERS_GRAPH)
+    @Query("SELECT p FROM Project p WHERE p.id IN " +
+            "(SELECT m.project.id FROM ProjectMemberRole m WHERE m.member.id = :userId) ORDER BY p.id")
     List<Project> findProjectsByUserId(Long userId);
+
+    // Ids of the projects a user is a member of (search scope)
+    @Query("SELECT m.project.id FROM ProjectMemberRole m WHERE m.member.id = :userId")
+    List<Long> findProjectIdsByUserId(Long userId);
+
+    /**
+     * Summaries of the projects of a user, read from the user's membership rows
+     * and ordered by project id for keyset pagination.
+     */
+    @Query("SELECT new com.visiplus.pmt.dto.ProjectSummaryDTO(p.id, p.name, p.description, p.startDate, m.role, " +
+            "(SELECT COUNT(mc.id) FROM ProjectMemberRole mc WHERE mc.project.id = p.id), " +
+            "(SELECT COUNT(t.id) FROM Task t WHERE t.project.id = p.id " +
+            "AND t.status <> com.visiplus.pmt.enums.TaskStatus.COMPLETED)) " +
+            "FROM ProjectMemberRole m JOIN m.project p " +
+            "WHERE m.member.id = :userId AND p.id > :afterId ORDER BY p.id")
+    List<ProjectSummaryDTO> findProjectSummariesByUserId(Long userId, Long afterId, Pageable pageable);
 }
@@ -0,0 +1,65 @@
+package com.visiplus.pmt.repository;
+
+import com.visiplus.pmt.entity.ProjectTaskStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface ProjectTaskStatsRepository extends CrudRepository<ProjectTaskStats, Long> {
+
+    // Tasks counted as overdue on :today
+    String OVERDUE = "(t.status IS NULL OR t.status <> com.visiplus.pmt.enums.TaskStatus.COMPLETED) AND t.dueDate < :today";
+
+    /**
+     * Adds a delta to the counters of a project in place, so concurrent writers never overwrite each other.
+     * The overdue delta is only added if it was computed on the day the row counts overdue tasks for.
+     *
+     * @return the number of updated rows, 0 if the project has no stats row yet
+     */
+    @Modifying
+    @Query("UPDATE ProjectTaskStats s SET s.total = s.total + :#{#delta.total}, " +
+            "s.todo = s.todo + :#{#delta.todo}, s.inProgress = s.inProgress + :#{#delta.inProgress}, " +
+            "s.completed = s.completed + :#{#delta.completed}, s.onHold = s.onHold + :#{#delta.onHold}, " +
+            "s.lowPriority = s.lowPriority + :#{#delta.lowPriority}, " +
+            "s.mediumPriority = s.mediumPriority + :#{#delta.mediumPriority}, " +
+            "s.highPriority = s.highPriority + :#{#delta.highPriority}, " +
+            "s.unassigned = s.unassigned + :#{#delta.unassigned}, " +
+            "s.overdue = CASE WHEN s.overdueAsOf = :#{#delta.overdueAsOf} THEN s.overdue + :#{#delta.overdue} ELSE s.overdue END " +
+            "WHERE s.projectId = :projectId")
+    int addDelta(Long projectId, ProjectTaskStats delta);
+
+    /**
+     * Recounts the overdue tasks of a project once the day they were counted for is over.
+     *
+     * @return the number of updated rows, 0 if the row is already up to date or missing
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ProjectTaskStats s SET s.overdue = (SELECT COUNT(t.id) FROM Task t " +
+            "WHERE t.project.id = :projectId AND " + OVERDUE + "), s.overdueAsOf = :today " +
+            "WHERE s.projectId = :projectId AND s.overdueAsOf < :today")
+    int refreshOverdue(Long projectId, LocalDate today);
+
+    // Row locked until the end of the transaction: task writes of the project wait on it before adding their delta
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProjectTaskStats s WHERE s.projectId = :projectId")
+    Optional<ProjectTaskStats> findForUpdate(Long projectId);
+
+    // Counters recomputed from the tasks of the project, in one aggregate over idx_tasks_project_status
+    @Query("SELECT new com.visiplus.pmt.entity.ProjectTaskStats(:projectId, COUNT(t.id), " +
+            "SUM(CASE WHEN t.status = com.visiplus.pmt.enums.TaskStatus.TODO THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.status = com.visiplus.pmt.enums.TaskStatus.IN_PROGRESS THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.status = com.visiplus.pmt.enums.TaskStatus.COMPLETED THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.status = com.visiplus.pmt.enums.TaskStatus.ON_HOLD THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.priority = com.visiplus.pmt.enums.Priority.LOW THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.priority = com.visiplus.pmt.enums.Priority.MEDIUM THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.priority = com.visiplus.pmt.enums.Priority.HIGH THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.assignee IS NULL THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN " + OVERDUE + " THEN 1L ELSE 0L END), :today) " +
+            "FROM Task t WHERE t.project.id = :projectId")
+    ProjectTaskStats countTasks(Long projectId, LocalDate today);
+}
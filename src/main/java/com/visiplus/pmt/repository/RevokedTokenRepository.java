@@ -0,0 +1,17 @@
+package com.visiplus.pmt.repository;
+
+import com.visiplus.pmt.entity.RevokedToken;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends CrudRepository<RevokedToken, String> {
+    List<RevokedToken> findByRevokedAtAfterAndExpiresAtAfter(Instant revokedAfter, Instant now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
@@ -0,0 +1,26 @@
+package com.visiplus.pmt.repository;
+
+import com.visiplus.pmt.enums.TaskStatus;
+
+import java.util.List;
+
+/**
+ * JDBC batch statements on tasks, part of TaskRepository.
+ * Hibernate does not batch the dynamic UPDATEs of Task, nor JPQL UPDATE statements, so bulk writes go through here.
+ */
+public interface TaskBatchRepository {
+
+    // New status of a task, written only while the task is still at the given version
+    record StatusChange(Long taskId, TaskStatus status, Long version) {
+    }
+
+    /**
+     * Sets the status of many tasks of a project with one JDBC batch of conditional UPDATEs of the status and
+     * version columns, run in order.
+     *
+     * @param projectId the project the tasks must belong to
+     * @param changes the status changes
+     * @return for each change, whether its task was updated (false if it is in another project or was modified since)
+     */
+    boolean[] updateStatuses(Long projectId, List<StatusChange> changes);
+}
@@ -0,0 +1,34 @@
+package com.visiplus.pmt.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+// Runs on the connection of the current JPA transaction
+class TaskBatchRepositoryImpl implements TaskBatchRepository {
+
+    private static final String UPDATE_STATUS =
+            "UPDATE tasks SET status = ?, version = version + 1 WHERE id = ? AND project_id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    TaskBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean[] updateStatuses(Long projectId, List<StatusChange> changes) {
+        boolean[] updated = new boolean[changes.size()];
+        if (changes.isEmpty()) {
+            return updated;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS, changes.stream()
+                .map(change -> new Object[]{change.status().name(), change.taskId(), projectId, change.version()})
+                .toList());
+        for (int i = 0; i < counts.length; i++) {
+            // Drivers that cannot tell report SUCCESS_NO_INFO (-2)
+            updated[i] = counts[i] != 0;
+        }
+        return updated;
+    }
+}
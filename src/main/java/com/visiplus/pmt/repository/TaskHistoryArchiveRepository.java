@@ -0,0 +1,40 @@
+package com.visiplus.pmt.repository;
+
+import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.entity.TaskHistoryArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Archived task history, read as unmanaged TaskHistory rows so both tiers can be returned together.
+ */
+public interface TaskHistoryArchiveRepository extends CrudRepository<TaskHistoryArchive, Long> {
+
+    String HISTORY_SELECT = "SELECT new com.visiplus.pmt.entity.TaskHistory(a.id, a.taskId, a.projectId, a.memberId, "
+            + "a.changedBy, a.fieldName, a.oldValue, a.newValue, a.changedAt, a.taskVersion) FROM TaskHistoryArchive a ";
+
+    @Query(HISTORY_SELECT + "WHERE a.taskId = :taskId ORDER BY a.id")
+    List<TaskHistory> findHistoryByTaskId(Long taskId);
+
+    // Changes written after the given task version, oldest first
+    @Query(HISTORY_SELECT + "WHERE a.taskId = :taskId AND a.taskVersion > :taskVersion ORDER BY a.taskVersion, a.id")
+    List<TaskHistory> findChangesAfterVersion(Long taskId, Long taskVersion);
+
+    // Same cursor as TaskHistoryRepository.findTaskHistoryPage
+    @Query(HISTORY_SELECT + "WHERE a.taskId = :taskId"
+            + " AND (:afterChangedAt IS NULL OR (a.changedAt >= :afterChangedAt"
+            + " AND (a.changedAt > :afterChangedAt OR a.id > :afterId)))"
+            + " ORDER BY a.changedAt, a.id")
+    List<TaskHistory> findTaskHistoryPage(Long taskId, LocalDateTime afterChangedAt, Long afterId, Pageable pageable);
+
+    // Same cursor as TaskHistoryRepository.findProjectActivityPage
+    @Query(HISTORY_SELECT + "WHERE a.projectId = :projectId"
+            + " AND (:beforeChangedAt IS NULL OR (a.changedAt <= :beforeChangedAt"
+            + " AND (a.changedAt < :beforeChangedAt OR a.id < :beforeId)))"
+            + " ORDER BY a.changedAt DESC, a.id DESC")
+    List<TaskHistory> findProjectActivityPage(Long projectId, LocalDateTime beforeChangedAt, Long beforeId, Pageable pageable);
+}
@@ -1,10 +1,56 @@
 package com.visiplus.pmt.repository;
 
 import com.visiplus.pmt.entity.TaskHistory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TaskHistoryRepository extends CrudRepository<TaskHistory, Long> {
     List<TaskHistory> findByTaskId(Long taskId);
+
+    // Changes written after the given task version, oldest first
+    List<TaskHistory> findByTaskIdAndTaskVersionGreaterThanOrderByTaskVersionAscIdAsc(Long taskId, Long taskVersion);
+
+    // Changes of the tasks of a project after the given row, in id order (replay of the task event stream)
+    @Query("SELECT h FROM TaskHistory h WHERE h.projectId = :projectId AND h.id > :afterId"
+            + " AND h.taskId IS NOT NULL ORDER BY h.id")
+    List<TaskHistory> findProjectHistoryAfter(Long projectId, Long afterId, Pageable pageable);
+
+    // Keyset page of the activity of a project, newest first; the cursor seeks in idx_task_history_project_changed_at
+    @Query("SELECT h FROM TaskHistory h WHERE h.projectId = :projectId"
+            + " AND (:beforeChangedAt IS NULL OR (h.changedAt <= :beforeChangedAt"
+            + " AND (h.changedAt < :beforeChangedAt OR h.id < :beforeId)))"
+            + " ORDER BY h.changedAt DESC, h.id DESC")
+    List<TaskHistory> findProjectActivityPage(Long projectId, LocalDateTime beforeChangedAt, Long beforeId, Pageable pageable);
+
+    // Keyset page of the history of a task in (changedAt, id) order; the cursor seeks in idx_task_history_task_changed_at
+    @Query("SELECT h FROM TaskHistory h WHERE h.taskId = :taskId"
+            + " AND (:afterChangedAt IS NULL OR (h.changedAt >= :afterChangedAt"
+            + " AND (h.changedAt > :afterChangedAt OR h.id > :afterId)))"
+            + " ORDER BY h.changedAt, h.id")
+    List<TaskHistory> findTaskHistoryPage(Long taskId, LocalDateTime afterChangedAt, Long afterId, Pageable pageable);
+
+    // Rows written before the given time, oldest first (archiving)
+    @Query("SELECT h.id FROM TaskHistory h WHERE h.changedAt < :before ORDER BY h.changedAt, h.id")
+    List<Long> findIdsChangedBefore(LocalDateTime before, Pageable pageable);
+
+    // Names the table written: otherwise Hibernate assumes any, and clears the whole second-level cache
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "task_history_archive"))
+    @Query(value = "INSERT INTO task_history_archive"
+            + " (id, task_id, project_id, member_id, changed_by, field_code, old_value, new_value, changed_at, task_version)"
+            + " SELECT id, task_id, project_id, member_id, changed_by, field_code, old_value, new_value, changed_at, task_version"
+            + " FROM task_history WHERE id IN (:ids)", nativeQuery = true)
+    int copyToArchive(List<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM TaskHistory h WHERE h.id IN :ids")
+    int deleteByIdIn(List<Long> ids);
 }
@@ -1,13 +1,109 @@
 package com.visiplus.pmt.repository;
 
+import com.visiplus.pmt.dto.TaskResponseDTO;
 import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
 import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.search.TaskSearchDocument;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface TaskRepository extends CrudRepository<Task, Long> {
+public interface TaskRepository extends CrudRepository<Task, Long>, TaskBatchRepository {
+
+    // Select clause building a TaskResponseDTO from tasks ⋈ projects ⟕ users in one row
+    String TASK_RESPONSE_SELECT = "SELECT new com.visiplus.pmt.dto.TaskResponseDTO(" +
+            "t.id, t.name, t.description, t.dueDate, t.priority, t.completionDate, t.status, t.version, " +
+            "p.id, p.name, p.description, a.id, a.username, a.email) " +
+            "FROM Task t JOIN t.project p LEFT JOIN t.assignee a ";
+
+    // Select clause building the search index document of a task, with its project name and assignee username
+    String TASK_SEARCH_SELECT = "SELECT new com.visiplus.pmt.search.TaskSearchDocument(" +
+            "t.id, p.id, t.name, t.description, p.name, a.username) " +
+            "FROM Task t JOIN t.project p LEFT JOIN t.assignee a ";
+
+    // Implemented by SimpleJpaRepository: runs the pending versioned UPDATEs before the service method returns
+    void flush();
+
+    // In id order, the order of the versions read by findVersionsByProjectIdAndStatus
+    @Query("SELECT t FROM Task t WHERE t.project.id = :projectId AND t.status = :status ORDER BY t.id")
     List<Task> findByProjectIdAndStatus(Long projectId, TaskStatus status);
     List<Task> findByProjectId(Long projectId);
+
+    // One task as a response row, only if it belongs to the project
+    @Query(TASK_RESPONSE_SELECT + "WHERE t.id = :taskId AND p.id = :projectId")
+    Optional<TaskResponseDTO> findTaskResponseById(Long taskId, Long projectId);
+
+    // Version of a task (its ETag) without loading it, only if it belongs to the project
+    @Query("SELECT t.version FROM Task t WHERE t.id = :taskId AND t.project.id = :projectId")
+    Optional<Long> findVersionByIdAndProjectId(Long taskId, Long projectId);
+
+    // "id:version" of the tasks of a project in a status, in id order: their ETag is a hash of these rows
+    @Query("SELECT CONCAT(t.id, ':', t.version) FROM Task t WHERE t.project.id = :projectId AND t.status = :status ORDER BY t.id")
+    List<String> findVersionsByProjectIdAndStatus(Long projectId, TaskStatus status);
+
+    // Search results: the matching tasks as response rows, in no particular order
+    @Query(TASK_RESPONSE_SELECT + "WHERE t.id IN :taskIds")
+    List<TaskResponseDTO> findTaskResponsesByIdIn(Collection<Long> taskIds);
+
+    // Documents of the tasks written by one transaction, indexed once it commits
+    @Query(TASK_SEARCH_SELECT + "WHERE t.id IN :taskIds")
+    List<TaskSearchDocument> findSearchDocumentsByIdIn(Collection<Long> taskIds);
+
+    // Documents of all tasks in id order, one keyset page at a time (index rebuild)
+    @Query(TASK_SEARCH_SELECT + "WHERE t.id > :afterId ORDER BY t.id")
+    List<TaskSearchDocument> findSearchDocumentsAfter(Long afterId, Pageable pageable);
+
+    /**
+     * Sets the status of a task in a single UPDATE of the status and version columns, without loading it.
+     * Only matches if the task belongs to the project and is still at the given version.
+     *
+     * @return the number of updated rows, 0 if the task is missing, in another project or was modified since
+     */
+    @Modifying
+    @Query("UPDATE Task t SET t.status = :status, t.version = t.version + 1 " +
+            "WHERE t.id = :taskId AND t.project.id = :projectId AND t.version = :version")
+    int updateStatus(Long taskId, Long projectId, TaskStatus status, Long version);
+
+    /**
+     * Cross-project task feed of a user: every task of every project the user is a member of,
+     * read in a single statement and ordered by task id for keyset pagination.
+     */
+    @Query(TASK_RESPONSE_SELECT +
+            "WHERE EXISTS (SELECT m.id FROM ProjectMemberRole m WHERE m.project.id = p.id AND m.member.id = :userId) " +
+            "AND t.id > :afterId ORDER BY t.id")
+    List<TaskResponseDTO> findTaskFeedByUserId(Long userId, Long afterId, Pageable pageable);
+
+    // Project tasks with optional filters, ordered by (dueDate, id) and starting after the given cursor.
+    // The cursor starts with a plain range on dueDate so it can seek in idx_tasks_project_due_date.
+    String PROJECT_TASKS_WHERE = "WHERE p.id = :projectId " +
+            "AND (:status IS NULL OR t.status = :status) " +
+            "AND (:priority IS NULL OR t.priority = :priority) " +
+            "AND (:assigneeId IS NULL OR a.id = :assigneeId) " +
+            "AND (:afterDueDate IS NULL OR (t.dueDate >= :afterDueDate " +
+            "AND (t.dueDate > :afterDueDate OR t.id > :afterId))) " +
+            "ORDER BY t.dueDate, t.id";
+
+    @Query(TASK_RESPONSE_SELECT + PROJECT_TASKS_WHERE)
+    List<TaskResponseDTO> findTasksByProjectId(Long projectId, TaskStatus status, Priority priority, Long assigneeId,
+                                               LocalDate afterDueDate, Long afterId, Pageable pageable);
+
+    /**
+     * Same rows as findTasksByProjectId, read through a forward-only cursor.
+     * Must be consumed inside a transaction and closed once done.
+     */
+    @Query(TASK_RESPONSE_SELECT + PROJECT_TASKS_WHERE)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TaskResponseDTO> streamTasksByProjectId(Long projectId, TaskStatus status, Priority priority, Long assigneeId,
+                                                   LocalDate afterDueDate, Long afterId);
 }
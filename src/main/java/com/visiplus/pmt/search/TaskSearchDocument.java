@@ -0,0 +1,8 @@
+package com.visiplus.pmt.search;
+
+/**
+ * The fields of a task written to the search index, read in one row from tasks ⋈ projects ⟕ users.
+ */
+public record TaskSearchDocument(Long taskId, Long projectId, String name, String description,
+                                 String projectName, String assigneeUsername) {
+}
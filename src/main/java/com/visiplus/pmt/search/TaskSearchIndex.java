@@ -0,0 +1,333 @@
+package com.visiplus.pmt.search;
+
+import com.visiplus.pmt.repository.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Embedded Lucene index of the tasks: name, description, project name and assignee username, with the project id
+ * to restrict a search to the projects of the caller.
+ * Task writes update it once their transaction commits; searches see the updates from their next refresh.
+ * The index lives in pmt.search.directory (in memory when empty) and is committed to disk periodically.
+ * A marker file stays in the directory while the index is open: found at startup, it means the updates since the
+ * last commit may be lost, and the index is rebuilt.
+ */
+@Component
+public class TaskSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskSearchIndex.class);
+
+    static final String ID = "id";
+    static final String PROJECT_ID = "projectId";
+    static final String NAME = "name";
+    static final String DESCRIPTION = "description";
+    static final String PROJECT = "project";
+    static final String ASSIGNEE = "assignee";
+
+    // Created when the index is opened, deleted once it is closed cleanly
+    static final String UNCLEAN_SHUTDOWN_MARKER = "unclean-shutdown";
+
+    // A word matches in any field, the name counting most
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(NAME, 3f, ASSIGNEE, 2f, PROJECT, 1.5f, DESCRIPTION, 1f);
+
+    // Longer queries are cut: every word is a clause per field
+    private static final int MAX_QUERY_TERMS = 16;
+
+    private final TaskRepository taskRepository;
+    private final int rebuildBatchSize;
+    private final boolean rebuildOnStartup;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final Counter failures;
+    // Null for an in-memory index, which always starts empty
+    private final Path uncleanShutdownMarker;
+    private final boolean uncleanShutdown;
+
+    // Set by every update, cleared by the refresh of the next search
+    private final AtomicBoolean stale = new AtomicBoolean();
+    // Searches keep the snapshot taken before a rebuild until it completes
+    private volatile boolean rebuilding;
+
+    public TaskSearchIndex(TaskRepository taskRepository,
+                           @Value("${pmt.search.directory:}") String directoryPath,
+                           @Value("${pmt.search.rebuild-batch-size:5000}") int rebuildBatchSize,
+                           @Value("${pmt.search.rebuild-on-startup:false}") boolean rebuildOnStartup,
+                           MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.rebuildOnStartup = rebuildOnStartup;
+        try {
+            this.directory = directoryPath.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(directoryPath));
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+            this.uncleanShutdownMarker = directoryPath.isBlank() ? null : Path.of(directoryPath, UNCLEAN_SHUTDOWN_MARKER);
+            this.uncleanShutdown = uncleanShutdownMarker != null && Files.exists(uncleanShutdownMarker);
+            if (uncleanShutdownMarker != null && !uncleanShutdown) {
+                Files.createFile(uncleanShutdownMarker);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the task search index in " + directoryPath, e);
+        }
+        this.failures = Counter.builder("pmt.search.index.failures")
+                .description("Task writes that could not be applied to the search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indexes tasks again once the current transaction commits, or right away outside of a transaction.
+     * A failure is logged and counted, never thrown: the write itself is already committed.
+     *
+     * @param taskIds the ids of the tasks written
+     */
+    public void indexAfterCommit(Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(taskIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    indexQuietly(ids);
+                }
+            });
+        } else {
+            indexQuietly(ids);
+        }
+    }
+
+    private void indexQuietly(List<Long> taskIds) {
+        try {
+            index(taskRepository.findSearchDocumentsByIdIn(taskIds));
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.warn("Could not index tasks {}, a rebuild will pick them up", taskIds, e);
+        }
+    }
+
+    /**
+     * Adds or replaces the documents of tasks.
+     *
+     * @param documents the documents, one per task
+     */
+    public void index(List<TaskSearchDocument> documents) {
+        try {
+            for (TaskSearchDocument document : documents) {
+                writer.updateDocument(new Term(ID, String.valueOf(document.taskId())), toDocument(document));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stale.set(true);
+    }
+
+    private static Document toDocument(TaskSearchDocument task) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(task.taskId()), Field.Store.YES));
+        document.add(new LongPoint(PROJECT_ID, task.projectId()));
+        addText(document, NAME, task.name());
+        addText(document, DESCRIPTION, task.description());
+        addText(document, PROJECT, task.projectName());
+        addText(document, ASSIGNEE, task.assigneeUsername());
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    /**
+     * Finds the tasks matching every word of a text, in one of the given projects.
+     * The last word also matches as a prefix, for search-as-you-type.
+     *
+     * @param text the words searched for
+     * @param projectIds the projects to search in
+     * @param size the maximum number of tasks
+     * @return the ids of the matching tasks, best match first
+     */
+    public List<Long> search(String text, Collection<Long> projectIds, int size) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty() || projectIds.isEmpty()) {
+            return List.of();
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            boolean prefix = i == terms.size() - 1 && term.length() > 1;
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            FIELD_BOOSTS.forEach((field, boost) -> {
+                Query match = prefix ? new PrefixQuery(new Term(field, term)) : new TermQuery(new Term(field, term));
+                anyField.add(new BoostQuery(match, boost), BooleanClause.Occur.SHOULD);
+            });
+            query.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+        query.add(LongPoint.newSetQuery(PROJECT_ID, projectIds), BooleanClause.Occur.FILTER);
+
+        try {
+            refreshIfStale();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                ScoreDoc[] hits = searcher.search(query.build(), size).scoreDocs;
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> taskIds = new ArrayList<>(hits.length);
+                for (ScoreDoc hit : hits) {
+                    taskIds.add(Long.valueOf(storedFields.document(hit.doc, Set.of(ID)).get(ID)));
+                }
+                return taskIds;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        try (TokenStream tokens = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken() && terms.size() < MAX_QUERY_TERMS) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private void refreshIfStale() throws IOException {
+        if (!rebuilding && stale.getAndSet(false)) {
+            searcherManager.maybeRefreshBlocking();
+        }
+    }
+
+    /**
+     * Replaces the whole index with the documents of all tasks, read in keyset pages of rebuildBatchSize.
+     * Searches keep using the previous index until the rebuild is committed.
+     *
+     * @return the number of tasks indexed
+     */
+    public synchronized int rebuild() {
+        rebuilding = true;
+        try {
+            writer.deleteAll();
+            int indexed = 0;
+            long afterId = 0;
+            List<TaskSearchDocument> batch;
+            while (!(batch = taskRepository.findSearchDocumentsAfter(afterId, PageRequest.ofSize(rebuildBatchSize))).isEmpty()) {
+                index(batch);
+                indexed += batch.size();
+                afterId = batch.get(batch.size() - 1).taskId();
+            }
+            writer.commit();
+            return indexed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            rebuilding = false;
+            stale.set(true);
+        }
+    }
+
+    /**
+     * Builds the index at startup when it is empty or was not closed cleanly, or every time with
+     * pmt.search.rebuild-on-startup=true.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        if (uncleanShutdown) {
+            logger.warn("The task search index was not closed cleanly, rebuilding it");
+        }
+        if (rebuildOnStartup || uncleanShutdown || writer.getDocStats().numDocs == 0) {
+            long start = System.nanoTime();
+            int indexed = rebuild();
+            logger.info("Indexed {} tasks for search in {} ms", indexed, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Makes the updates durable in the index directory. Waits for a rebuild in progress, which commits once complete,
+     * so a partly rebuilt index is never committed.
+     */
+    @Scheduled(fixedDelayString = "${pmt.search.commit-interval:PT1M}", initialDelayString = "${pmt.search.commit-interval:PT1M}")
+    public synchronized void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int documentCount() {
+        return writer.getDocStats().numDocs;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        // Commits the pending updates
+        writer.close();
+        if (uncleanShutdownMarker != null) {
+            Files.deleteIfExists(uncleanShutdownMarker);
+        }
+        directory.close();
+    }
+}
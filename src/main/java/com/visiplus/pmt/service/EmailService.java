@@ -2,4 +2,5 @@ package com.visiplus.pmt.service;
 
 public interface EmailService {
     void sendTaskAssignmentEmail(String to, String subject, String body);
+    void queueTaskAssignmentEmail(String to, String subject, String body);
 }
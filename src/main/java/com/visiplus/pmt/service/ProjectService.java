@@ -1,18 +1,31 @@
 package com.visiplus.pmt.service;
 
 import com.visiplus.pmt.dto.MemberDTO;
+import com.visiplus.pmt.dto.ProjectRowDTO;
+import com.visiplus.pmt.dto.ProjectSummaryDTO;
 import com.visiplus.pmt.entity.Project;
 import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.entity.TaskHistory;
 import com.visiplus.pmt.enums.Role;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProjectService {
     Project createProject(Project project, Long userId);
-    Project addMemberToProject(Long projectId, String email);
-    ProjectMemberRole assignRoleToMember(Long projectId, Long memberId, Role role);
+    Project addMemberToProject(Long projectId, String email, Long invitedBy);
+    ProjectMemberRole assignRoleToMember(Long projectId, Long memberId, Role role, Long assignedBy);
     Project getProjectById(Long projectId);
     List<Project> getAllProjects();
+    List<Project> getAllProjects(Long afterId, int size);
+    Page<Project> getAllProjects(Pageable pageable);
+    void streamAllProjects(Consumer<ProjectRowDTO> consumer);
     List<Project> getProjectsByUserId(Long userId);
+    List<ProjectSummaryDTO> getProjectSummariesByUserId(Long userId, Long afterId, int size);
     List<MemberDTO> getProjectMembers(Long projectId);
+    String getProjectMembersETag(Long projectId);
+    List<TaskHistory> getProjectActivity(Long projectId, LocalDateTime beforeChangedAt, Long beforeId, int size);
 }
@@ -1,18 +1,40 @@
 package com.visiplus.pmt.service;
 
+import com.visiplus.pmt.dto.BulkItemResultDTO;
+import com.visiplus.pmt.dto.ProjectTaskStatsDTO;
+import com.visiplus.pmt.dto.TaskFilterDTO;
 import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.dto.TaskStatusChangeDTO;
 import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.entity.TaskHistory;
 import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.events.TaskChangedEvent;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface TaskService {
     TaskResponseDTO createTask(Task task, Long projectId, Long userId);
+    List<BulkItemResultDTO> createTasks(List<Task> tasks, Long projectId, Long userId);
     TaskResponseDTO assignTaskToMember(Long taskId, Long projectId, Long assigneeId, Long userId);
-    TaskResponseDTO updateTask(Long taskId, Long projectId, Long userId, Task updateTask);
+    TaskResponseDTO updateTask(Long taskId, Long projectId, Long userId, Task updateTask, Long expectedVersion);
+    TaskResponseDTO patchTask(Long taskId, Long projectId, Long userId, Task patch, Set<String> fields, Long expectedVersion);
     TaskResponseDTO getTaskById(Long taskId, Long projectId, Long userId);
     List<TaskResponseDTO> getTasksByStatus(TaskStatus status, Long projectId);
-    TaskResponseDTO updateTaskStatus(Long taskId, Long projectId, Long userId, String status);
+    String getTaskETag(Long taskId, Long projectId, Long userId);
+    String getTasksByStatusETag(TaskStatus status, Long projectId);
+    TaskResponseDTO updateTaskStatus(Long taskId, Long projectId, Long userId, String status, Long expectedVersion);
+    List<BulkItemResultDTO> updateTaskStatuses(List<TaskStatusChangeDTO> changes, Long projectId, Long userId);
     List<TaskResponseDTO> getTasksByProjectId(Long projectId);
+    List<TaskResponseDTO> getTasksByProjectId(Long projectId, TaskFilterDTO filter);
+    void streamTasksByProjectId(Long projectId, TaskFilterDTO filter, Consumer<TaskResponseDTO> consumer);
     List<TaskResponseDTO> getTasksByUserId(Long userId);
+    List<TaskResponseDTO> getTasksByUserId(Long userId, Long afterId, int size);
+    List<TaskResponseDTO> searchTasks(Long userId, String text, int size);
+    ProjectTaskStatsDTO getProjectStats(Long projectId);
+    List<TaskChangedEvent> getTaskEventsSince(Long projectId, Long afterId, int limit);
+    List<TaskHistory> getTaskHistory(Long taskId);
+    List<TaskHistory> getTaskHistory(Long taskId, LocalDateTime afterChangedAt, Long afterId, int size);
 }
@@ -0,0 +1,207 @@
+package com.visiplus.pmt.service.impl;
+
+import com.visiplus.pmt.entity.EmailOutbox;
+import com.visiplus.pmt.enums.EmailStatus;
+import com.visiplus.pmt.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Background sender for the email outbox.
+ * Each run picks the pending emails that are due, groups them by recipient (one digest per recipient)
+ * and sends the whole batch over a single SMTP connection. Failed emails are retried with exponential backoff.
+ * Rows are claimed by a conditional UPDATE before being sent, so that with several nodes polling the same outbox
+ * each email is sent by one of them only; the claim of a node that dies while sending expires after claim-timeout.
+ */
+@Component
+@ConditionalOnProperty(name = "pmt.mail.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration claimTimeout;
+
+    // Latency of one batch send (one SMTP connection) and outcome of each message
+    private final Timer sendTimer;
+    private final Counter sentMessages;
+    private final Counter failedMessages;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender mailSender,
+                                 @Value("${pmt.mail.outbox.batch-size:100}") int batchSize,
+                                 @Value("${pmt.mail.outbox.max-attempts:5}") int maxAttempts,
+                                 @Value("${pmt.mail.outbox.retry-backoff:PT30S}") Duration retryBackoff,
+                                 @Value("${pmt.mail.outbox.claim-timeout:PT5M}") Duration claimTimeout,
+                                 MeterRegistry meterRegistry) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.claimTimeout = claimTimeout;
+        this.sendTimer = Timer.builder("pmt.email.send")
+                .description("Email send calls to the mail server")
+                .tag("mode", "outbox")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sentMessages = Counter.builder("pmt.email.messages").tag("mode", "outbox").tag("result", "sent").register(meterRegistry);
+        this.failedMessages = Counter.builder("pmt.email.messages").tag("mode", "outbox").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Sends one batch of due emails.
+     *
+     * @return the number of outbox rows processed
+     */
+    @Scheduled(fixedDelayString = "${pmt.mail.outbox.poll-interval:PT15S}")
+    public int dispatchPending() {
+        LocalDateTime now = LocalDateTime.now();
+        // Pending emails that are due, and emails whose claim expired
+        List<EmailOutbox> due = emailOutboxRepository.findByStatusInAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                List.of(EmailStatus.PENDING, EmailStatus.SENDING), now, PageRequest.ofSize(batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        // Pull the recipients' other pending emails too, so that everything queued for them goes in one digest;
+        // at most batchSize of them, the rest goes in the next digests
+        Set<String> recipients = new LinkedHashSet<>();
+        Set<Long> ids = new TreeSet<>();
+        due.forEach(email -> {
+            recipients.add(email.getRecipient());
+            ids.add(email.getId());
+        });
+        emailOutboxRepository.findDigestCandidates(recipients, now, PageRequest.ofSize(batchSize))
+                .forEach(email -> ids.add(email.getId()));
+
+        // Only the rows this run claimed are sent: another node may have claimed some of them meanwhile
+        String claimToken = UUID.randomUUID().toString();
+        if (emailOutboxRepository.claim(ids, claimToken, now, now.plus(claimTimeout)) == 0) {
+            return 0;
+        }
+        Map<String, List<EmailOutbox>> byRecipient = new LinkedHashMap<>();
+        for (EmailOutbox email : emailOutboxRepository.findByClaimTokenOrderByIdAsc(claimToken)) {
+            byRecipient.computeIfAbsent(email.getRecipient(), recipient -> new ArrayList<>()).add(email);
+        }
+
+        Map<SimpleMailMessage, List<EmailOutbox>> messages = new LinkedHashMap<>();
+        byRecipient.forEach((recipient, emails) -> messages.put(toMessage(recipient, emails), emails));
+
+        Map<Object, Exception> failures = sendTimer.record(() -> send(messages.keySet()));
+        sentMessages.increment(messages.size() - failures.size());
+        failedMessages.increment(failures.size());
+
+        List<EmailOutbox> processed = new ArrayList<>();
+        messages.forEach((message, emails) -> {
+            Exception failure = failures.get(message);
+            for (EmailOutbox email : emails) {
+                if (failure == null) {
+                    markSent(email, now);
+                } else {
+                    markFailed(email, failure, now);
+                }
+                processed.add(email);
+            }
+        });
+        emailOutboxRepository.saveAll(processed);
+
+        logger.info("Email outbox: {} messages sent, {} failed, {} outbox rows processed",
+                messages.size() - failures.size(), failures.size(), processed.size());
+        return processed.size();
+    }
+
+    // Sends all messages in one call (one SMTP connection) and returns the failed ones with their cause
+    private Map<Object, Exception> send(Collection<SimpleMailMessage> messages) {
+        try {
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+            return Map.of();
+        } catch (MailSendException e) {
+            if (!e.getFailedMessages().isEmpty()) {
+                return e.getFailedMessages();
+            }
+            return failAll(messages, e);
+        } catch (MailException e) {
+            return failAll(messages, e);
+        }
+    }
+
+    private static Map<Object, Exception> failAll(Collection<SimpleMailMessage> messages, Exception e) {
+        logger.error("Failed to send {} emails: {}", messages.size(), e.getMessage());
+        Map<Object, Exception> failures = new HashMap<>();
+        messages.forEach(message -> failures.put(message, e));
+        return failures;
+    }
+
+    private static SimpleMailMessage toMessage(String recipient, List<EmailOutbox> emails) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(recipient);
+
+        if (emails.size() == 1) {
+            message.setSubject(emails.get(0).getSubject());
+            message.setText(emails.get(0).getBody());
+            return message;
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append("Vous avez ").append(emails.size()).append(" nouvelles notifications :\n\n");
+        for (EmailOutbox email : emails) {
+            text.append("— ").append(email.getSubject()).append("\n\n")
+                    .append(email.getBody()).append("\n\n");
+        }
+        message.setSubject(emails.size() + " New Tasks Assigned");
+        message.setText(text.toString());
+        return message;
+    }
+
+    private static void markSent(EmailOutbox email, LocalDateTime now) {
+        email.setStatus(EmailStatus.SENT);
+        email.setClaimToken(null);
+        email.setSentAt(now);
+        email.setAttempts(email.getAttempts() + 1);
+        email.setLastError(null);
+    }
+
+    private void markFailed(EmailOutbox email, Exception failure, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(abbreviate(failure.getMessage()));
+        email.setClaimToken(null);
+
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailStatus.FAILED);
+            logger.error("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(), attempts);
+        } else {
+            email.setStatus(EmailStatus.PENDING);
+            // Exponential backoff: retryBackoff, 2 x retryBackoff, 4 x retryBackoff...
+            email.setNextAttemptAt(now.plus(retryBackoff.multipliedBy(1L << (attempts - 1))));
+        }
+    }
+
+    private static String abbreviate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 255 ? message : message.substring(0, 255);
+    }
+}
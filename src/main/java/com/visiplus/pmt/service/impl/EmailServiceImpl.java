@@ -1,24 +1,60 @@
 package com.visiplus.pmt.service.impl;
 
+import com.visiplus.pmt.entity.EmailOutbox;
+import com.visiplus.pmt.enums.EmailStatus;
+import com.visiplus.pmt.repository.EmailOutboxRepository;
 import com.visiplus.pmt.service.EmailService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 @Service
 public class EmailServiceImpl implements EmailService {
 
     // Logger for logging information and error messages
     private static final Logger logger = LoggerFactory.getLogger(EmailServiceImpl.class);
 
+    // Length of email_outbox.subject: a longer subject would fail the INSERT and roll back the assignment with it
+    static final int MAX_SUBJECT_LENGTH = 255;
+
     // JavaMailSender is responsible for sending email messages
     private final JavaMailSender mailSender;
 
+    // Outbox drained by EmailOutboxDispatcher
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    // Delay before a queued email may be sent, so that close notifications to one recipient are coalesced
+    private final Duration coalesceWindow;
+
+    // Same meters as EmailOutboxDispatcher, tagged mode=direct
+    private final Timer sendTimer;
+    private final Counter sentMessages;
+    private final Counter failedMessages;
+
     // Constructor-based dependency injection for JavaMailSender
-    public EmailServiceImpl(JavaMailSender mailSender) {
+    public EmailServiceImpl(JavaMailSender mailSender,
+                            EmailOutboxRepository emailOutboxRepository,
+                            @Value("${pmt.mail.outbox.coalesce-window:PT1M}") Duration coalesceWindow,
+                            MeterRegistry meterRegistry) {
         this.mailSender = mailSender;
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.coalesceWindow = coalesceWindow;
+        this.sendTimer = Timer.builder("pmt.email.send")
+                .description("Email send calls to the mail server")
+                .tag("mode", "direct")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sentMessages = Counter.builder("pmt.email.messages").tag("mode", "direct").tag("result", "sent").register(meterRegistry);
+        this.failedMessages = Counter.builder("pmt.email.messages").tag("mode", "direct").tag("result", "failed").register(meterRegistry);
     }
 
     /**
@@ -41,13 +77,40 @@ public class EmailServiceImpl implements EmailService {
             logger.info("Attempting to send email to {}", to);
 
             // Send the email using the JavaMailSender
-            mailSender.send(message);
+            sendTimer.record(() -> mailSender.send(message));
+            sentMessages.increment();
 
             // Log successful email sending
             logger.info("Email sent successfully to {}", to);
         } catch (Exception e) {
             // Log any failure during email sending
+            failedMessages.increment();
             logger.error("Failed to send email to {}: {}", to, e.getMessage());
         }
     }
+
+    /**
+     * Queues a task assignment email in the outbox table.
+     * The row joins the caller's transaction, so the email exists only if the assignment commits;
+     * it is sent later, outside any request, by EmailOutboxDispatcher. A subject too long for the outbox is cut.
+     *
+     * @param to the recipient's email address
+     * @param subject the email subject
+     * @param body the email content
+     */
+    @Override
+    public void queueTaskAssignmentEmail(String to, String subject, String body) {
+        LocalDateTime now = LocalDateTime.now();
+
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(to);
+        email.setSubject(subject.length() > MAX_SUBJECT_LENGTH ? subject.substring(0, MAX_SUBJECT_LENGTH - 1) + "…" : subject);
+        email.setBody(body);
+        email.setStatus(EmailStatus.PENDING);
+        email.setCreatedAt(now);
+        email.setNextAttemptAt(now.plus(coalesceWindow));
+
+        emailOutboxRepository.save(email);
+        logger.info("Email to {} queued in outbox", to);
+    }
 }
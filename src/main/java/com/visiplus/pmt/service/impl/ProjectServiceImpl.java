@@ -1,24 +1,43 @@
 package com.visiplus.pmt.service.impl;
 
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
 import com.visiplus.pmt.dto.MemberDTO;
+import com.visiplus.pmt.dto.ProjectRowDTO;
+import com.visiplus.pmt.dto.ProjectSummaryDTO;
 import com.visiplus.pmt.entity.AppUser;
 import com.visiplus.pmt.entity.Project;
 import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.entity.TaskHistory;
 import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskHistoryField;
 import com.visiplus.pmt.exception.UserNotFoundException;
 import com.visiplus.pmt.repository.AppUserRepository;
 import com.visiplus.pmt.repository.ProjectMemberRoleRepository;
 import com.visiplus.pmt.repository.ProjectRepository;
+import com.visiplus.pmt.repository.ProjectTaskStatsRepository;
 import com.visiplus.pmt.service.ProjectService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Timed(value = "pmt.service", histogram = true)
 @Service
 public class ProjectServiceImpl implements ProjectService {
 
@@ -26,12 +45,30 @@ public class ProjectServiceImpl implements ProjectService {
     private final ProjectRepository projectRepository;
     private final AppUserRepository appUserRepository;
     private final ProjectMemberRoleRepository projectMemberRoleRepository;
+    private final ProjectTaskStatsRepository projectTaskStatsRepository;
+
+    // Cache of membership roles, evicted whenever a membership changes
+    private final ProjectRoleCache projectRoleCache;
+
+    // Membership changes are recorded in the task history, which is also the activity feed of the project
+    private final TaskHistoryRecorder taskHistoryRecorder;
+    private final ProjectActivityCache projectActivityCache;
+
+    // Cached responses of the project, evicted with every membership change
+    private final ResponseCache responseCache;
 
     // Constructor-based dependency injection for repositories
-    public ProjectServiceImpl(ProjectRepository projectRepository, AppUserRepository appUserRepository, ProjectMemberRoleRepository projectMemberRoleRepository) {
+    public ProjectServiceImpl(ProjectRepository projectRepository, AppUserRepository appUserRepository, ProjectMemberRoleRepository projectMemberRoleRepository, ProjectRoleCache projectRoleCache,
+                              ProjectTaskStatsRepository projectTaskStatsRepository, TaskHistoryRecorder taskHistoryRecorder,
+                              ProjectActivityCache projectActivityCache, ResponseCache responseCache) {
         this.projectRepository = projectRepository;
         this.appUserRepository = appUserRepository;
         this.projectMemberRoleRepository = projectMemberRoleRepository;
+        this.projectRoleCache = projectRoleCache;
+        this.projectTaskStatsRepository = projectTaskStatsRepository;
+        this.taskHistoryRecorder = taskHistoryRecorder;
+        this.projectActivityCache = projectActivityCache;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -62,6 +99,11 @@ public class ProjectServiceImpl implements ProjectService {
 
         // Save the member role for the project owner
         projectMemberRoleRepository.save(memberRole);
+        projectRoleCache.evict(savedProject.getId(), appUser.getId());
+        recordMembershipChange(savedProject.getId(), appUser.getId(), appUser.getId(), null, Role.ADMIN);
+
+        // Task counters start at zero, then follow the task writes
+        projectTaskStatsRepository.save(ProjectTaskStatsRecorder.emptyStats(savedProject.getId(), LocalDate.now()));
 
         return savedProject;
     }
@@ -72,14 +114,16 @@ public class ProjectServiceImpl implements ProjectService {
      *
      * @param projectId the ID of the project to which the member is being added
      * @param email     the email of the user to be added
+     * @param invitedBy the ID of the user who invites them, recorded in the project activity
      * @return the project after adding the new member
      * @throws ResponseStatusException if the project or user is not found, or if the user is already a member
      */
     @Transactional
     @Override
-    public Project addMemberToProject(Long projectId, String email) {
+    public Project addMemberToProject(Long projectId, String email, Long invitedBy) {
         // Find the project by ID or throw an exception if not found
-        Project project = projectRepository.findById(projectId)
+        // Members are loaded with the project: the new one is added to them and the project is returned
+        Project project = projectRepository.findWithMembersById(projectId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Project not found with id: " + projectId));
 
         // Find the user by email or throw a custom exception if not found
@@ -105,6 +149,8 @@ public class ProjectServiceImpl implements ProjectService {
 
         // Save the new member role to the database
         projectMemberRoleRepository.save(memberRole);
+        projectRoleCache.evict(projectId, user.getId());
+        recordMembershipChange(projectId, user.getId(), invitedBy, null, Role.MEMBER);
 
         return project;
     }
@@ -115,16 +161,23 @@ public class ProjectServiceImpl implements ProjectService {
      * @param projectId the ID of the project
      * @param memberId  the ID of the member whose role is being updated
      * @param role      the new role to be assigned
+     * @param assignedBy the ID of the user who changes the role, or null if unknown; recorded in the project activity
      * @return the updated ProjectMemberRole after the role change
      * @throws RuntimeException if the member is not found in the project
      */
+    @Transactional
     @Override
-    public ProjectMemberRole assignRoleToMember(Long projectId, Long memberId, Role role) {
+    public ProjectMemberRole assignRoleToMember(Long projectId, Long memberId, Role role, Long assignedBy) {
         return projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, memberId)
                 .map(memberRole -> {
+                    if (memberRole.getRole() != role) {
+                        recordMembershipChange(projectId, memberId, assignedBy, memberRole.getRole(), role);
+                    }
                     // Update the role of the member
                     memberRole.setRole(role);
-                    return projectMemberRoleRepository.save(memberRole);
+                    ProjectMemberRole savedRole = projectMemberRoleRepository.save(memberRole);
+                    projectRoleCache.evict(projectId, memberId);
+                    return savedRole;
                 })
                 .orElseThrow(() -> new RuntimeException("Member with ID " + memberId + " not found in project with ID " + projectId));
     }
@@ -138,13 +191,57 @@ public class ProjectServiceImpl implements ProjectService {
      */
     @Override
     public Project getProjectById(Long projectId) {
-        return projectRepository.findById(projectId)
+        return projectRepository.findWithOwnerById(projectId)
                 .orElseThrow(() -> new RuntimeException("Project doesn't exist"));
     }
 
     @Override
     public List<Project> getAllProjects() {
-        return (List<Project>) projectRepository.findAll();
+        return projectRepository.findAll();
+    }
+
+    /**
+     * Retrieves one page of projects, with owners and members, ordered by id.
+     *
+     * @param afterId the last project id of the previous page, or null for the first page
+     * @param size    the maximum number of projects to return
+     * @return the projects of the page
+     */
+    @Override
+    public List<Project> getAllProjects(Long afterId, int size) {
+        List<Long> ids = projectRepository.findIdsAfter(afterId != null ? afterId : 0L, PageRequest.ofSize(size));
+        return ids.isEmpty() ? List.of() : projectRepository.findWithMembersByIdInOrderByIdAsc(ids);
+    }
+
+    /**
+     * Retrieves one page of projects by page number, with owners and members.
+     *
+     * @param pageable the page number, size and sort
+     * @return the page, with the total number of projects
+     */
+    @Override
+    @Transactional
+    public Page<Project> getAllProjects(Pageable pageable) {
+        Page<Project> page = projectRepository.findAll(pageable);
+        if (page.hasContent()) {
+            // Same persistence context: initializes owners and members of the page in one statement
+            projectRepository.findWithMembersByIdInOrderByIdAsc(page.map(Project::getId).getContent());
+        }
+        return page;
+    }
+
+    /**
+     * Streams every project as a flat row to the given consumer.
+     * Rows are read through a database cursor so memory stays flat whatever the number of projects.
+     *
+     * @param consumer receives each project in id order
+     */
+    @Override
+    @Transactional
+    public void streamAllProjects(Consumer<ProjectRowDTO> consumer) {
+        try (Stream<ProjectRowDTO> projects = projectRepository.streamAllProjects()) {
+            projects.forEach(consumer);
+        }
     }
 
     @Override
@@ -152,6 +249,19 @@ public class ProjectServiceImpl implements ProjectService {
         return projectRepository.findProjectsByUserId(userId);
     }
 
+    /**
+     * Retrieves one page of the projects of a user as summaries.
+     *
+     * @param userId  the ID of the user
+     * @param afterId the last project id of the previous page, or null for the first page
+     * @param size    the maximum number of projects to return
+     * @return the summaries ordered by project id
+     */
+    @Override
+    public List<ProjectSummaryDTO> getProjectSummariesByUserId(Long userId, Long afterId, int size) {
+        return projectRepository.findProjectSummariesByUserId(userId, afterId != null ? afterId : 0L, PageRequest.ofSize(size));
+    }
+
     @Override
     public List<MemberDTO> getProjectMembers(Long projectId) {
         List<ProjectMemberRole> projectMembers = projectMemberRoleRepository.findByProjectId(projectId);
@@ -159,4 +269,51 @@ public class ProjectServiceImpl implements ProjectService {
                 .map(memberRole -> new MemberDTO(memberRole.getMember().getId(), memberRole.getMember().getUsername(), memberRole.getMember().getEmail()))
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Returns the ETag of the members of a project: a hash of the ids of its memberships,
+     * which changes whenever a member joins or leaves. Users cannot change their name or email.
+     *
+     * @param projectId the ID of the project
+     * @return the ETag of the list returned by getProjectMembers
+     */
+    @Override
+    public String getProjectMembersETag(Long projectId) {
+        List<Long> membershipIds = projectMemberRoleRepository.findIdsByProjectId(projectId);
+        return DigestUtils.md5DigestAsHex(membershipIds.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Retrieves a page of the activity of a project: the changes of its tasks and of its members, newest first.
+     * First pages are served from the cached head page of the project; the next ones are read from
+     * (beforeChangedAt, beforeId), the last row of the previous page.
+     *
+     * @param projectId       the ID of the project
+     * @param beforeChangedAt the changedAt of the last row of the previous page, or null for the first page
+     * @param beforeId        the id of the last row of the previous page
+     * @param size            the maximum number of rows to return
+     * @return the history rows of the page
+     */
+    @Override
+    public List<TaskHistory> getProjectActivity(Long projectId, LocalDateTime beforeChangedAt, Long beforeId, int size) {
+        if (beforeChangedAt == null && size <= projectActivityCache.getHeadSize()) {
+            return projectActivityCache.getHeadPage(projectId, size,
+                    headSize -> taskHistoryRecorder.findProjectActivityPage(projectId, null, null, headSize));
+        }
+        return taskHistoryRecorder.findProjectActivityPage(projectId, beforeChangedAt, beforeId, size);
+    }
+
+    // History row of a member added to the project (no previous role) or given another role
+    private void recordMembershipChange(Long projectId, Long memberId, Long changedBy, Role oldRole, Role newRole) {
+        TaskHistory change = new TaskHistory();
+        change.setProjectId(projectId);
+        change.setMemberId(memberId);
+        change.setChangedBy(changedBy);
+        change.setFieldName(TaskHistoryField.MEMBER_ROLE.getFieldName());
+        change.setOldValue(oldRole != null ? oldRole.name() : null);
+        change.setNewValue(newRole.name());
+        change.setChangedAt(LocalDateTime.now());
+        taskHistoryRecorder.record(List.of(change));
+        responseCache.evict(projectId);
+    }
 }
@@ -0,0 +1,71 @@
+package com.visiplus.pmt.service.impl;
+
+import com.visiplus.pmt.repository.ProjectRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Periodic check of the task counters of every project against the tasks table.
+ * Projects are walked by id, one short transaction each, and rows that drifted (or are missing) are rewritten.
+ */
+@Component
+@ConditionalOnProperty(name = "pmt.stats.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class ProjectTaskStatsReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectTaskStatsReconciler.class);
+
+    private final ProjectTaskStatsRecorder projectTaskStatsRecorder;
+    private final ProjectRepository projectRepository;
+    private final int batchSize;
+
+    // Projects whose counters had to be repaired
+    private final Counter driftedProjects;
+
+    public ProjectTaskStatsReconciler(ProjectTaskStatsRecorder projectTaskStatsRecorder,
+                                      ProjectRepository projectRepository,
+                                      @Value("${pmt.stats.reconcile.batch-size:500}") int batchSize,
+                                      MeterRegistry meterRegistry) {
+        this.projectTaskStatsRecorder = projectTaskStatsRecorder;
+        this.projectRepository = projectRepository;
+        this.batchSize = batchSize;
+        this.driftedProjects = Counter.builder("pmt.stats.drift")
+                .description("Projects whose task stats did not match their tasks")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reconciles the task counters of every project.
+     *
+     * @return the number of projects whose counters were repaired
+     */
+    @Scheduled(fixedDelayString = "${pmt.stats.reconcile.interval:PT1H}",
+            initialDelayString = "${pmt.stats.reconcile.interval:PT1H}")
+    public int reconcileAll() {
+        int checked = 0;
+        int drifted = 0;
+        Long afterId = 0L;
+        List<Long> projectIds;
+        while (!(projectIds = projectRepository.findIdsAfter(afterId, PageRequest.ofSize(batchSize))).isEmpty()) {
+            for (Long projectId : projectIds) {
+                if (projectTaskStatsRecorder.reconcile(projectId)) {
+                    drifted++;
+                }
+            }
+            checked += projectIds.size();
+            afterId = projectIds.get(projectIds.size() - 1);
+        }
+
+        driftedProjects.increment(drifted);
+        logger.info("Task stats reconciliation: {} projects checked, {} repaired", checked, drifted);
+        return drifted;
+    }
+}
@@ -0,0 +1,183 @@
+package com.visiplus.pmt.service.impl;
+
+import com.visiplus.pmt.entity.ProjectTaskStats;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.repository.ProjectRepository;
+import com.visiplus.pmt.repository.ProjectTaskStatsRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Maintains the per-project task counters of project_task_stats.
+ * Task writes add a delta to their project's row, in the same transaction, instead of recounting the tasks;
+ * the counters are read back in one row, and recounted only by the reconciliation.
+ */
+@Component
+public class ProjectTaskStatsRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectTaskStatsRecorder.class);
+
+    private final ProjectTaskStatsRepository projectTaskStatsRepository;
+    private final ProjectRepository projectRepository;
+
+    public ProjectTaskStatsRecorder(ProjectTaskStatsRepository projectTaskStatsRepository, ProjectRepository projectRepository) {
+        this.projectTaskStatsRepository = projectTaskStatsRepository;
+        this.projectRepository = projectRepository;
+    }
+
+    /**
+     * Starts an empty delta, counting overdue tasks as of today.
+     *
+     * @return counters all at zero
+     */
+    public static ProjectTaskStats delta() {
+        return emptyStats(null, LocalDate.now());
+    }
+
+    /**
+     * Counters of a project without tasks.
+     *
+     * @param projectId the project ID
+     * @param overdueAsOf the day overdue tasks are counted for
+     * @return counters all at zero
+     */
+    public static ProjectTaskStats emptyStats(Long projectId, LocalDate overdueAsOf) {
+        ProjectTaskStats stats = new ProjectTaskStats();
+        stats.setProjectId(projectId);
+        stats.setOverdueAsOf(overdueAsOf);
+        return stats;
+    }
+
+    /**
+     * Adds a task to the delta (sign 1), or removes it (sign -1).
+     * A change is counted as the task before it removed and the task after it added.
+     *
+     * @param delta the delta to update
+     * @param task the task, in the state to count
+     * @param sign 1 or -1
+     */
+    public static void count(ProjectTaskStats delta, Task task, int sign) {
+        count(delta, task.getStatus(), task.getPriority(), task.getAssignee() != null, task.getDueDate(), sign);
+    }
+
+    /**
+     * Adds a task, given by the fields the counters depend on, to the delta (sign 1) or removes it (sign -1).
+     */
+    public static void count(ProjectTaskStats delta, TaskStatus status, Priority priority, boolean assigned,
+                             LocalDate dueDate, int sign) {
+        delta.setTotal(delta.getTotal() + sign);
+        if (status != null) {
+            switch (status) {
+                case TODO -> delta.setTodo(delta.getTodo() + sign);
+                case IN_PROGRESS -> delta.setInProgress(delta.getInProgress() + sign);
+                case COMPLETED -> delta.setCompleted(delta.getCompleted() + sign);
+                case ON_HOLD -> delta.setOnHold(delta.getOnHold() + sign);
+            }
+        }
+        if (priority != null) {
+            switch (priority) {
+                case LOW -> delta.setLowPriority(delta.getLowPriority() + sign);
+                case MEDIUM -> delta.setMediumPriority(delta.getMediumPriority() + sign);
+                case HIGH -> delta.setHighPriority(delta.getHighPriority() + sign);
+            }
+        }
+        if (!assigned) {
+            delta.setUnassigned(delta.getUnassigned() + sign);
+        }
+        if (status != TaskStatus.COMPLETED && dueDate != null && dueDate.isBefore(delta.getOverdueAsOf())) {
+            delta.setOverdue(delta.getOverdue() + sign);
+        }
+    }
+
+    /**
+     * Adds a delta to the counters of a project, as one UPDATE in the caller's transaction.
+     * Deltas that change nothing send no statement, so edits of other fields do not lock the project's row.
+     *
+     * @param projectId the project ID
+     * @param delta the counters to add
+     */
+    public void record(Long projectId, ProjectTaskStats delta) {
+        if (isEmpty(delta)) {
+            return;
+        }
+        if (projectTaskStatsRepository.addDelta(projectId, delta) == 0) {
+            // Created by the next reconciliation, from the tasks themselves
+            logger.debug("No task stats row for project {}, delta left to the reconciliation", projectId);
+        }
+    }
+
+    /**
+     * Reads the counters of a project, recounting its overdue tasks first if they were counted on a previous day.
+     *
+     * @param projectId the project ID
+     * @return the counters of the project
+     * @throws RuntimeException if the project is not found
+     */
+    @Transactional
+    public ProjectTaskStats current(Long projectId) {
+        LocalDate today = LocalDate.now();
+        Optional<ProjectTaskStats> stats = projectTaskStatsRepository.findById(projectId);
+        if (stats.isPresent() && stats.get().getOverdueAsOf().isBefore(today)) {
+            projectTaskStatsRepository.refreshOverdue(projectId, today);
+            stats = projectTaskStatsRepository.findById(projectId);
+        }
+        return stats.orElseGet(() -> {
+            // Not created yet: counted from the tasks this once, the reconciliation will store it
+            if (!projectRepository.existsById(projectId)) {
+                throw new RuntimeException("Project not found with id: " + projectId);
+            }
+            return projectTaskStatsRepository.countTasks(projectId, today);
+        });
+    }
+
+    /**
+     * Recounts the counters of a project from its tasks and repairs its row if they drifted.
+     * The row is locked before counting: task writes of the project wait for the end of this transaction
+     * to add their delta, so none is counted twice or lost.
+     *
+     * @param projectId the project ID
+     * @return true if the row was missing or did not match the tasks
+     */
+    @Transactional
+    public boolean reconcile(Long projectId) {
+        LocalDate today = LocalDate.now();
+        ProjectTaskStats stored = projectTaskStatsRepository.findForUpdate(projectId).orElse(null);
+        ProjectTaskStats counted = projectTaskStatsRepository.countTasks(projectId, today);
+        counted.setReconciledAt(LocalDateTime.now());
+
+        boolean drifted = stored == null || !sameCounters(stored, counted);
+        if (drifted) {
+            logger.warn("Task stats of project {} drifted, repaired: {} -> {}", projectId, stored, counted);
+        }
+        projectTaskStatsRepository.save(counted);
+        return drifted;
+    }
+
+    // Overdue tasks are only compared when both were counted on the same day
+    private static boolean sameCounters(ProjectTaskStats stored, ProjectTaskStats counted) {
+        return stored.getTotal() == counted.getTotal()
+                && stored.getTodo() == counted.getTodo()
+                && stored.getInProgress() == counted.getInProgress()
+                && stored.getCompleted() == counted.getCompleted()
+                && stored.getOnHold() == counted.getOnHold()
+                && stored.getLowPriority() == counted.getLowPriority()
+                && stored.getMediumPriority() == counted.getMediumPriority()
+                && stored.getHighPriority() == counted.getHighPriority()
+                && stored.getUnassigned() == counted.getUnassigned()
+                && (!stored.getOverdueAsOf().equals(counted.getOverdueAsOf()) || stored.getOverdue() == counted.getOverdue());
+    }
+
+    private static boolean isEmpty(ProjectTaskStats delta) {
+        return delta.getTotal() == 0 && delta.getTodo() == 0 && delta.getInProgress() == 0 && delta.getCompleted() == 0
+                && delta.getOnHold() == 0 && delta.getLowPriority() == 0 && delta.getMediumPriority() == 0
+                && delta.getHighPriority() == 0 && delta.getUnassigned() == 0 && delta.getOverdue() == 0;
+    }
+}
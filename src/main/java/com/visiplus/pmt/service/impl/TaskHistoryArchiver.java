@@ -0,0 +1,65 @@
+package com.visiplus.pmt.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Periodic move of the task history rows older than pmt.history.archive.after to task_history_archive,
+ * so task_history only holds the recent rows that updates and event streams read.
+ * Rows are moved oldest first, one short transaction per batch.
+ */
+@Component
+@ConditionalOnProperty(name = "pmt.history.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskHistoryArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryArchiver.class);
+
+    private final TaskHistoryRecorder taskHistoryRecorder;
+    private final Duration archiveAfter;
+    private final int batchSize;
+
+    // History rows moved to the archive
+    private final Counter archivedRows;
+
+    public TaskHistoryArchiver(TaskHistoryRecorder taskHistoryRecorder,
+                               @Value("${pmt.history.archive.after:P90D}") Duration archiveAfter,
+                               @Value("${pmt.history.archive.batch-size:1000}") int batchSize,
+                               MeterRegistry meterRegistry) {
+        this.taskHistoryRecorder = taskHistoryRecorder;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+        this.archivedRows = Counter.builder("pmt.history.archived")
+                .description("Task history rows moved to the archive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Archives every history row older than the archive delay.
+     *
+     * @return the number of rows moved
+     */
+    @Scheduled(fixedDelayString = "${pmt.history.archive.interval:PT1H}",
+            initialDelayString = "${pmt.history.archive.interval:PT1H}")
+    public int archiveAll() {
+        LocalDateTime before = LocalDateTime.now().minus(archiveAfter);
+        int archived = 0;
+        int moved;
+        do {
+            moved = taskHistoryRecorder.archive(before, batchSize);
+            archived += moved;
+        } while (moved == batchSize);
+
+        archivedRows.increment(archived);
+        logger.info("Task history archiving: {} rows changed before {} archived", archived, before);
+        return archived;
+    }
+}
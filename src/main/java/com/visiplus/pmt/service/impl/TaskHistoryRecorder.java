@@ -0,0 +1,235 @@
+package com.visiplus.pmt.service.impl;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.repository.TaskHistoryArchiveRepository;
+import com.visiplus.pmt.repository.TaskHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes task history rows.
+ * By default the rows of one update are saved together, in the caller's transaction, as a single JDBC batch.
+ * In write-behind mode they are buffered in a bounded queue once the caller's transaction commits,
+ * and flushed periodically in large batches; when the queue is full they are saved right away, in a transaction
+ * of their own.
+ * Old rows are moved to task_history_archive; the read methods return both tiers, archived rows first
+ * (they are the oldest).
+ * The cached activity feed of a project is evicted once its new rows are readable.
+ */
+@Component
+public class TaskHistoryRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryRecorder.class);
+
+    private final TaskHistoryRepository taskHistoryRepository;
+    private final TaskHistoryArchiveRepository taskHistoryArchiveRepository;
+    private final ProjectActivityCache projectActivityCache;
+    private final boolean writeBehind;
+    private final int flushBatchSize;
+    private final BlockingQueue<TaskHistory> pending;
+
+    // Overflow saves run after the caller's commit, where joining its transaction would never write them
+    private final TransactionTemplate overflowTransaction;
+
+    public TaskHistoryRecorder(TaskHistoryRepository taskHistoryRepository,
+                               TaskHistoryArchiveRepository taskHistoryArchiveRepository,
+                               ProjectActivityCache projectActivityCache,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${pmt.history.write-behind.enabled:false}") boolean writeBehind,
+                               @Value("${pmt.history.write-behind.capacity:10000}") int capacity,
+                               @Value("${pmt.history.write-behind.batch-size:500}") int flushBatchSize) {
+        this.taskHistoryRepository = taskHistoryRepository;
+        this.taskHistoryArchiveRepository = taskHistoryArchiveRepository;
+        this.projectActivityCache = projectActivityCache;
+        this.writeBehind = writeBehind;
+        this.flushBatchSize = flushBatchSize;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.overflowTransaction = new TransactionTemplate(transactionManager);
+        this.overflowTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Records the history rows produced by one task change.
+     *
+     * @param changes the history rows, saved together
+     */
+    public void record(List<TaskHistory> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (!writeBehind) {
+            save(changes);
+            return;
+        }
+
+        // Buffer only what has been committed, so a rolled back update leaves no history
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(changes);
+                }
+            });
+        } else {
+            enqueue(changes);
+        }
+    }
+
+    /**
+     * Tells whether recorded rows may still be buffered, i.e. not yet readable from task_history.
+     *
+     * @return true in write-behind mode
+     */
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    private void enqueue(List<TaskHistory> changes) {
+        List<TaskHistory> overflow = new ArrayList<>();
+        for (TaskHistory change : changes) {
+            if (!pending.offer(change)) {
+                overflow.add(change);
+            }
+        }
+        if (!overflow.isEmpty()) {
+            logger.warn("Task history queue full, saving {} rows synchronously", overflow.size());
+            overflowTransaction.executeWithoutResult(status -> save(overflow));
+        }
+    }
+
+    private void save(List<TaskHistory> changes) {
+        taskHistoryRepository.saveAll(changes);
+        changes.stream().map(TaskHistory::getProjectId).distinct().forEach(projectActivityCache::evict);
+    }
+
+    /**
+     * Saves the buffered history rows in batches of flushBatchSize.
+     *
+     * @return the number of rows saved
+     */
+    @Scheduled(fixedDelayString = "${pmt.history.write-behind.flush-interval:PT1S}")
+    public int flush() {
+        int flushed = 0;
+        List<TaskHistory> batch = new ArrayList<>();
+        while (pending.drainTo(batch, flushBatchSize) > 0) {
+            save(batch);
+            flushed += batch.size();
+            batch = new ArrayList<>();
+        }
+        return flushed;
+    }
+
+    /**
+     * Moves the oldest history rows written before a given time to task_history_archive, keeping their ids.
+     *
+     * @param before rows changed before this time are archived
+     * @param batchSize the maximum number of rows moved
+     * @return the number of rows moved, less than batchSize once none is left
+     */
+    @Transactional
+    public int archive(LocalDateTime before, int batchSize) {
+        List<Long> ids = taskHistoryRepository.findIdsChangedBefore(before, PageRequest.ofSize(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        taskHistoryRepository.copyToArchive(ids);
+        taskHistoryRepository.deleteByIdIn(ids);
+        return ids.size();
+    }
+
+    /**
+     * Reads the whole history of a task.
+     *
+     * @param taskId the task ID
+     * @return the archived rows, then the others, each in insertion order
+     */
+    @Transactional
+    public List<TaskHistory> findTaskHistory(Long taskId) {
+        List<TaskHistory> history = new ArrayList<>(taskHistoryArchiveRepository.findHistoryByTaskId(taskId));
+        history.addAll(taskHistoryRepository.findByTaskId(taskId));
+        return history;
+    }
+
+    /**
+     * Reads a page of the history of a task, in (changedAt, id) order.
+     * The page is read from the archive first and completed from task_history, in one transaction so
+     * no row moved to the archive in between is missed.
+     *
+     * @param taskId the task ID
+     * @param afterChangedAt the changedAt of the last row of the previous page, or null for the first page
+     * @param afterId the id of the last row of the previous page
+     * @param size the maximum number of rows
+     * @return the rows after the cursor
+     */
+    @Transactional
+    public List<TaskHistory> findTaskHistoryPage(Long taskId, LocalDateTime afterChangedAt, Long afterId, int size) {
+        List<TaskHistory> page = new ArrayList<>(taskHistoryArchiveRepository
+                .findTaskHistoryPage(taskId, afterChangedAt, afterId, PageRequest.ofSize(size)));
+        if (page.size() < size) {
+            page.addAll(taskHistoryRepository
+                    .findTaskHistoryPage(taskId, afterChangedAt, afterId, PageRequest.ofSize(size - page.size())));
+        }
+        return page;
+    }
+
+    /**
+     * Reads the changes of a task written after a version, archived ones included.
+     *
+     * @param taskId the task ID
+     * @param taskVersion the version
+     * @return the changes, oldest first
+     */
+    @Transactional
+    public List<TaskHistory> findChangesAfterVersion(Long taskId, Long taskVersion) {
+        List<TaskHistory> changes = new ArrayList<>(taskHistoryArchiveRepository.findChangesAfterVersion(taskId, taskVersion));
+        changes.addAll(taskHistoryRepository.findByTaskIdAndTaskVersionGreaterThanOrderByTaskVersionAscIdAsc(taskId, taskVersion));
+        return changes;
+    }
+
+    /**
+     * Reads a page of the activity of a project, newest first in (changedAt, id) order.
+     * The page is read from task_history first and completed from the archive, in one transaction.
+     *
+     * @param projectId the project ID
+     * @param beforeChangedAt the changedAt of the last row of the previous page, or null for the first page
+     * @param beforeId the id of the last row of the previous page
+     * @param size the maximum number of rows
+     * @return the rows before the cursor
+     */
+    @Transactional
+    public List<TaskHistory> findProjectActivityPage(Long projectId, LocalDateTime beforeChangedAt, Long beforeId, int size) {
+        List<TaskHistory> page = new ArrayList<>(taskHistoryRepository
+                .findProjectActivityPage(projectId, beforeChangedAt, beforeId, PageRequest.ofSize(size)));
+        if (page.size() < size) {
+            page.addAll(taskHistoryArchiveRepository
+                    .findProjectActivityPage(projectId, beforeChangedAt, beforeId, PageRequest.ofSize(size - page.size())));
+        }
+        return page;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush();
+        if (flushed > 0) {
+            logger.info("Flushed {} buffered task history rows on shutdown", flushed);
+        }
+    }
+}
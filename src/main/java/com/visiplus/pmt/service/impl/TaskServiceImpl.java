@@ -1,48 +1,95 @@
 package com.visiplus.pmt.service.impl;
 
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
 import com.visiplus.pmt.dto.AssigneeDTO;
+import com.visiplus.pmt.dto.BulkItemResultDTO;
 import com.visiplus.pmt.dto.ProjectSimpleDTO;
+import com.visiplus.pmt.dto.ProjectTaskStatsDTO;
+import com.visiplus.pmt.dto.TaskFilterDTO;
 import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.dto.TaskStatusChangeDTO;
 import com.visiplus.pmt.entity.*;
+import com.visiplus.pmt.enums.Priority;
 import com.visiplus.pmt.enums.Role;
 import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.events.TaskChangedEvent;
+import com.visiplus.pmt.events.TaskEventBroker;
 import com.visiplus.pmt.repository.*;
+import com.visiplus.pmt.search.TaskSearchIndex;
 import com.visiplus.pmt.service.EmailService;
 import com.visiplus.pmt.service.TaskService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
+// Latency of every public method, tagged with class, method and exception (pmt.service)
+@Timed(value = "pmt.service", histogram = true)
 @Service
 public class TaskServiceImpl implements TaskService {
 
     // Dependencies injected for task, project, user, and email repositories
     private final TaskRepository taskRepository;
     private final ProjectRepository projectRepository;
-    private final ProjectMemberRoleRepository projectMemberRoleRepository;
+    private final ProjectRoleCache projectRoleCache;
     private final AppUserRepository appUserRepository;
     private final EmailService emailService;
     private final TaskHistoryRepository taskHistoryRepository;
+    private final TaskHistoryRecorder taskHistoryRecorder;
+    private final ProjectTaskStatsRecorder projectTaskStatsRecorder;
+    private final TaskEventBroker taskEventBroker;
+    private final TaskSearchIndex taskSearchIndex;
+    private final ResponseCache responseCache;
+
+    // Ids per IN query of the bulk status update
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    // Page of the filtered task list when the request gives no size; the whole list is only streamed
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    // Fields a PATCH may set, the ones diffed by applyChanges
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "description", "dueDate", "priority", "completionDate", "status");
 
     // Constructor-based dependency injection
     public TaskServiceImpl(TaskRepository taskRepository,
                            ProjectRepository projectRepository,
-                           ProjectMemberRoleRepository projectMemberRoleRepository, AppUserRepository appUserRepository, EmailService emailService, TaskHistoryRepository taskHistoryRepository) {
+                           ProjectRoleCache projectRoleCache, AppUserRepository appUserRepository, EmailService emailService, TaskHistoryRepository taskHistoryRepository,
+                           TaskHistoryRecorder taskHistoryRecorder, ProjectTaskStatsRecorder projectTaskStatsRecorder,
+                           TaskEventBroker taskEventBroker, TaskSearchIndex taskSearchIndex, ResponseCache responseCache) {
         this.taskRepository = taskRepository;
         this.projectRepository = projectRepository;
-        this.projectMemberRoleRepository = projectMemberRoleRepository;
+        this.projectRoleCache = projectRoleCache;
         this.appUserRepository = appUserRepository;
         this.emailService = emailService;
         this.taskHistoryRepository = taskHistoryRepository;
+        this.taskHistoryRecorder = taskHistoryRecorder;
+        this.projectTaskStatsRecorder = projectTaskStatsRecorder;
+        this.taskEventBroker = taskEventBroker;
+        this.taskSearchIndex = taskSearchIndex;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -60,27 +107,116 @@ public class TaskServiceImpl implements TaskService {
         Project project = projectRepository.findById(projectId)
                 .orElseThrow(() -> new RuntimeException("Project not found with id: " + projectId));
 
-        ProjectMemberRole memberRole = projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId)
+        Role role = projectRoleCache.getRole(projectId, userId)
                 .orElseThrow(() -> new RuntimeException("User is not a member of this project"));
 
-        if (memberRole.getRole() != Role.ADMIN && memberRole.getRole() != Role.MEMBER) {
+        if (role != Role.ADMIN && role != Role.MEMBER) {
             throw new RuntimeException("You do not have permission to create tasks in this project");
         }
 
-        // Set task status to TODO and associate with the project
+        // Set task status to TODO and associate with the project; the version is assigned on insert
         task.setStatus(TaskStatus.TODO);
+        task.setVersion(null);
         task.setProject(project);
 
         // Save the task to the repository
         Task savedTask = taskRepository.save(task);
+        recordChanges(projectId, List.of(creationHistory(savedTask, userId)));
+        taskSearchIndex.indexAfterCommit(List.of(savedTask.getId()));
+
+        ProjectTaskStats delta = ProjectTaskStatsRecorder.delta();
+        ProjectTaskStatsRecorder.count(delta, savedTask, 1);
+        projectTaskStatsRecorder.record(projectId, delta);
 
         return getTaskResponseDTO(savedTask, project);
     }
 
+    /**
+     * Creates many tasks in one project with a single project lookup and permission check.
+     * Valid tasks are inserted together, in JDBC batches; invalid ones are reported and skipped.
+     *
+     * @param tasks the tasks to create, in request order
+     * @param projectId the ID of the project
+     * @param userId the ID of the user creating the tasks
+     * @return one result per task, in request order, carrying the id of each created task
+     * @throws RuntimeException if the project is not found or the user may not create tasks in it
+     */
+    @Override
+    @Transactional
+    public List<BulkItemResultDTO> createTasks(List<Task> tasks, Long projectId, Long userId) {
+        Project project = projectRepository.findById(projectId)
+                .orElseThrow(() -> new RuntimeException("Project not found with id: " + projectId));
+
+        Role role = projectRoleCache.getRole(projectId, userId)
+                .orElseThrow(() -> new RuntimeException("User is not a member of this project"));
+
+        if (role != Role.ADMIN && role != Role.MEMBER) {
+            throw new RuntimeException("You do not have permission to create tasks in this project");
+        }
+
+        BulkItemResultDTO[] results = new BulkItemResultDTO[tasks.size()];
+        List<Task> validTasks = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            String error = validateNewTask(task);
+            if (error != null) {
+                results[i] = BulkItemResultDTO.failed(i, null, error);
+                continue;
+            }
+            task.setId(null);
+            task.setVersion(null);
+            task.setStatus(TaskStatus.TODO);
+            task.setProject(project);
+            validTasks.add(task);
+        }
+
+        // Pooled ids are assigned on persist; the rows are sent in batches when the transaction flushes
+        taskRepository.saveAll(validTasks);
+        recordChanges(projectId, validTasks.stream().map(task -> creationHistory(task, userId)).toList());
+        taskSearchIndex.indexAfterCommit(validTasks.stream().map(Task::getId).toList());
+
+        // One delta for the whole batch
+        ProjectTaskStats delta = ProjectTaskStatsRecorder.delta();
+        validTasks.forEach(task -> ProjectTaskStatsRecorder.count(delta, task, 1));
+        projectTaskStatsRecorder.record(projectId, delta);
+
+        int next = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = BulkItemResultDTO.ok(i, validTasks.get(next++).getId());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // Reason why a task of a bulk creation is rejected, or null if it can be inserted
+    private static String validateNewTask(Task task) {
+        if (task == null) {
+            return "Task is required";
+        }
+        if (task.getName() == null || task.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (task.getDescription() == null) {
+            return "Description is required";
+        }
+        if (task.getDueDate() == null) {
+            return "Due date is required";
+        }
+        if (task.getPriority() == null) {
+            return "Priority is required";
+        }
+        if (task.getAssignee() != null) {
+            return "Assignee cannot be set on creation, use the assign endpoint";
+        }
+        return null;
+    }
+
     /**
      * Helper method to convert Task and Project entities to a TaskResponseDTO.
+     * Package-private for the service benchmarks.
      */
-    private static TaskResponseDTO getTaskResponseDTO(Task savedTask, Project project) {
+    static TaskResponseDTO getTaskResponseDTO(Task savedTask, Project project) {
         TaskResponseDTO taskResponseDTO = new TaskResponseDTO();
         taskResponseDTO.setId(savedTask.getId());
         taskResponseDTO.setName(savedTask.getName());
@@ -89,6 +225,7 @@ public class TaskServiceImpl implements TaskService {
         taskResponseDTO.setCompletionDate(savedTask.getCompletionDate());
         taskResponseDTO.setPriority(savedTask.getPriority());
         taskResponseDTO.setStatus(savedTask.getStatus());
+        taskResponseDTO.setVersion(savedTask.getVersion());
 
         ProjectSimpleDTO projectSimpleDTO = new ProjectSimpleDTO();
         projectSimpleDTO.setId(project.getId());
@@ -117,10 +254,10 @@ public class TaskServiceImpl implements TaskService {
     @Override
     @Transactional
     public TaskResponseDTO assignTaskToMember(Long taskId, Long projectId, Long assigneeId, Long userId) {
-        ProjectMemberRole memberRole = projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId)
+        Role role = projectRoleCache.getRole(projectId, userId)
                 .orElseThrow(() -> new RuntimeException("User is not a member of this project"));
 
-        if (memberRole.getRole() != Role.ADMIN && memberRole.getRole() != Role.MEMBER) {
+        if (role != Role.ADMIN && role != Role.MEMBER) {
             throw new RuntimeException("You do not have permission to assign tasks in this project");
         }
 
@@ -134,19 +271,30 @@ public class TaskServiceImpl implements TaskService {
         AppUser assignee = appUserRepository.findById(assigneeId)
                 .orElseThrow(() -> new RuntimeException("Assignee not found with id: " + assigneeId));
 
+        ProjectTaskStats delta = ProjectTaskStatsRecorder.delta();
+        ProjectTaskStatsRecorder.count(delta, task, -1);
+        Long previousAssigneeId = task.getAssignee() != null ? task.getAssignee().getId() : null;
+        if (!assignee.getId().equals(previousAssigneeId)) {
+            recordChanges(projectId, List.of(taskHistory(task, userId, TaskChangedEvent.ASSIGNEE_FIELD,
+                    String.valueOf(previousAssigneeId), String.valueOf(assignee.getId()))));
+            taskSearchIndex.indexAfterCommit(List.of(task.getId()));
+        }
         task.setAssignee(assignee);
+        ProjectTaskStatsRecorder.count(delta, task, 1);
 
-        // Save the updated task
+        // Save the updated task, flushed so the returned version is the one written
         Task updatedTask = taskRepository.save(task);
+        taskRepository.flush();
+        projectTaskStatsRecorder.record(projectId, delta);
 
-        // Send email notification to assignee
+        // Queue email notification to assignee, sent after commit by the outbox dispatcher
         sendTaskAssignmentEmail(task, assignee);
 
         return getTaskResponseDTO(updatedTask, task.getProject());
     }
 
     /**
-     * Method to send an email notification for task assignment.
+     * Method to queue an email notification for task assignment.
      *
      * @param task the task assigned
      * @param assignee the user assigned to the task
@@ -165,26 +313,71 @@ public class TaskServiceImpl implements TaskService {
                 task.getDescription(),
                 task.getDueDate()
         );
-        emailService.sendTaskAssignmentEmail(assignee.getEmail(), subject, body);
+        emailService.queueTaskAssignmentEmail(assignee.getEmail(), subject, body);
     }
 
     /**
      * Updates task details and logs changes in task history.
+     * When the details were edited from an older version of the task, they are merged with the changes made since.
      *
      * @param taskId the ID of the task
      * @param projectId the ID of the project
      * @param userId the ID of the user updating the task
      * @param updatedTaskInfo the updated task details
+     * @param expectedVersion the version the details were edited from, or null to overwrite the current version
      * @return TaskResponseDTO with updated task information
      * @throws RuntimeException if task, project, or user is invalid
+     * @throws ResponseStatusException 409 if a field was changed both by this update and concurrently
      */
     @Override
     @Transactional
-    public TaskResponseDTO updateTask(Long taskId, Long projectId, Long userId, Task updatedTaskInfo) {
-        ProjectMemberRole memberRole = projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId)
+    public TaskResponseDTO updateTask(Long taskId, Long projectId, Long userId, Task updatedTaskInfo, Long expectedVersion) {
+        Task task = findTaskToUpdate(taskId, projectId, userId);
+        return applyUpdate(task, updatedTaskInfo, userId, expectedVersion);
+    }
+
+    /**
+     * Partially updates a task with JSON merge patch semantics: only the fields present in the patch change,
+     * and null clears the completion date. Only the modified columns are written, with one history row per field.
+     *
+     * @param taskId the ID of the task
+     * @param projectId the ID of the project
+     * @param userId the ID of the user updating the task
+     * @param patch the values of the patched fields
+     * @param fields the names of the fields present in the patch
+     * @param expectedVersion the version the patch was made from, or null to patch the current version
+     * @return TaskResponseDTO with updated task information
+     * @throws RuntimeException if task, project, or user is invalid
+     * @throws ResponseStatusException 400 if a field cannot be patched or set to null, 409 on conflicting changes
+     */
+    @Override
+    @Transactional
+    public TaskResponseDTO patchTask(Long taskId, Long projectId, Long userId, Task patch, Set<String> fields, Long expectedVersion) {
+        for (String field : fields) {
+            if (!PATCHABLE_FIELDS.contains(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field cannot be patched: " + field);
+            }
+        }
+
+        Task task = findTaskToUpdate(taskId, projectId, userId);
+
+        // The current values, overwritten by the patched ones
+        Task edited = copyOf(task);
+        fields.forEach(field -> copyField(patch, edited, field));
+        if (edited.getName() == null || edited.getDescription() == null || edited.getDueDate() == null
+                || edited.getPriority() == null || edited.getStatus() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only completionDate can be set to null");
+        }
+
+        return applyUpdate(task, edited, userId, expectedVersion);
+    }
+
+    // Loads a task for an update by a member allowed to edit the tasks of its project
+    private Task findTaskToUpdate(Long taskId, Long projectId, Long userId) {
+        Role role = projectRoleCache.getRole(projectId, userId)
                 .orElseThrow(() -> new RuntimeException("User is not a member of this project"));
 
-        if (memberRole.getRole() != Role.ADMIN && memberRole.getRole() != Role.MEMBER) {
+        if (role != Role.ADMIN && role != Role.MEMBER) {
             throw new RuntimeException("You do not have permission to update tasks in this project");
         }
 
@@ -194,74 +387,209 @@ public class TaskServiceImpl implements TaskService {
         if (!task.getProject().getId().equals(projectId)) {
             throw new RuntimeException("Task does not belong to this project");
         }
+        return task;
+    }
+
+    // Writes the edited fields to the managed task, merged with the changes made since expectedVersion
+    private TaskResponseDTO applyUpdate(Task task, Task updatedTaskInfo, Long userId, Long expectedVersion) {
+        // Stale version: rebase the edits on the current version instead of overwriting the changes made since
+        if (expectedVersion != null && !expectedVersion.equals(task.getVersion())) {
+            updatedTaskInfo = mergeConcurrentChanges(task, updatedTaskInfo, expectedVersion);
+        }
+
+        // History rows of this update, saved together in one batch
+        ProjectTaskStats delta = ProjectTaskStatsRecorder.delta();
+        ProjectTaskStatsRecorder.count(delta, task, -1);
+        List<TaskHistory> changes = applyChanges(task, updatedTaskInfo, userId);
+        ProjectTaskStatsRecorder.count(delta, task, 1);
+
+        recordChanges(task.getProject().getId(), changes);
+        // Only the name and description of the task are indexed
+        if (changes.stream().anyMatch(change -> "name".equals(change.getFieldName()) || "description".equals(change.getFieldName()))) {
+            taskSearchIndex.indexAfterCommit(List.of(task.getId()));
+        }
+
+        // The flush runs the UPDATE ... WHERE version = ? now: a concurrent commit fails this call
+        // with an optimistic locking failure, and the returned version is the one written
+        Task updatedTask = taskRepository.save(task);
+        taskRepository.flush();
+        projectTaskStatsRecorder.record(task.getProject().getId(), delta);
+
+        return getTaskResponseDTO(updatedTask, task.getProject());
+    }
+
+    /**
+     * Rebases task details edited from an older version onto the current version of the task, field by field.
+     * The fields changed since expectedVersion are listed from the task history: the client's value is dropped
+     * when it is still the value of expectedVersion, and is a conflict when it differs from both.
+     *
+     * @param task the managed task, at its current version
+     * @param updatedTaskInfo the task details edited from expectedVersion
+     * @param expectedVersion the version the details were edited from
+     * @return a copy of updatedTaskInfo to apply on the current version
+     * @throws ResponseStatusException 409 if the changes conflict or the changes made since cannot be listed
+     */
+    private Task mergeConcurrentChanges(Task task, Task updatedTaskInfo, Long expectedVersion) {
+        // Unknown version, or history rows possibly still buffered by the write-behind recorder
+        if (expectedVersion > task.getVersion() || taskHistoryRecorder.isWriteBehind()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Task " + task.getId() + " was modified since version " + expectedVersion);
+        }
+
+        // Value at expectedVersion of every field changed since
+        Map<String, String> baseValues = new LinkedHashMap<>();
+        for (TaskHistory change : taskHistoryRecorder.findChangesAfterVersion(task.getId(), expectedVersion)) {
+            baseValues.putIfAbsent(change.getFieldName(), change.getOldValue());
+        }
+
+        Task merged = copyOf(updatedTaskInfo);
+        List<String> conflicts = new ArrayList<>();
+        baseValues.forEach((field, baseValue) -> {
+            String value = fieldValue(merged, field);
+            // A missing due date already means "unchanged" to applyChanges
+            if (Objects.equals(value, fieldValue(task, field)) || ("dueDate".equals(field) && merged.getDueDate() == null)) {
+                return;
+            }
+            if (Objects.equals(value, baseValue)) {
+                copyField(task, merged, field);
+            } else {
+                conflicts.add(field);
+            }
+        });
+
+        if (!conflicts.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Task " + task.getId() + " fields " + conflicts + " were modified since version " + expectedVersion);
+        }
+        return merged;
+    }
+
+    // Editable fields of a task, without its id, project or assignee
+    private static Task copyOf(Task task) {
+        return new Task(null, task.getName(), task.getDescription(), task.getDueDate(), task.getPriority(),
+                null, null, task.getCompletionDate(), task.getStatus());
+    }
+
+    // Value of a field as applyChanges writes it to the task history, null for fields it does not diff
+    private static String fieldValue(Task task, String field) {
+        return switch (field) {
+            case "name" -> task.getName();
+            case "description" -> task.getDescription();
+            case "dueDate" -> String.valueOf(task.getDueDate());
+            case "completionDate" -> String.valueOf(task.getCompletionDate());
+            case "priority" -> String.valueOf(task.getPriority());
+            case "status" -> String.valueOf(task.getStatus());
+            default -> null;
+        };
+    }
+
+    private static void copyField(Task from, Task to, String field) {
+        switch (field) {
+            case "name" -> to.setName(from.getName());
+            case "description" -> to.setDescription(from.getDescription());
+            case "dueDate" -> to.setDueDate(from.getDueDate());
+            case "completionDate" -> to.setCompletionDate(from.getCompletionDate());
+            case "priority" -> to.setPriority(from.getPriority());
+            case "status" -> to.setStatus(from.getStatus());
+            default -> { }
+        }
+    }
+
+
+    /**
+     * Copies the edited fields of updatedTaskInfo onto the task and records one history row per changed field.
+     * Package-private for the service benchmarks.
+     *
+     * @param task the managed task being updated
+     * @param updatedTaskInfo the updated task details
+     * @param userId the ID of the user updating the task
+     * @return the unsaved history rows, empty if nothing changed
+     */
+    static List<TaskHistory> applyChanges(Task task, Task updatedTaskInfo, Long userId) {
+        List<TaskHistory> changes = new ArrayList<>();
 
         if (!task.getName().equals(updatedTaskInfo.getName())) {
-            saveTaskHistory(taskId, userId, "name", task.getName(), updatedTaskInfo.getName());
+            changes.add(taskHistory(task, userId, "name", task.getName(), updatedTaskInfo.getName()));
             task.setName(updatedTaskInfo.getName());
         }
 
         if (!task.getDescription().equals(updatedTaskInfo.getDescription())) {
-            saveTaskHistory(taskId, userId, "description", task.getDescription(), updatedTaskInfo.getDescription());
+            changes.add(taskHistory(task, userId, "description", task.getDescription(), updatedTaskInfo.getDescription()));
             task.setDescription(updatedTaskInfo.getDescription());
         }
 
         if (updatedTaskInfo.getDueDate() != null && !task.getDueDate().equals(updatedTaskInfo.getDueDate())) {
-            saveTaskHistory(taskId, userId, "dueDate", task.getDueDate().toString(), updatedTaskInfo.getDueDate().toString());
+            changes.add(taskHistory(task, userId, "dueDate", task.getDueDate().toString(), updatedTaskInfo.getDueDate().toString()));
             task.setDueDate(updatedTaskInfo.getDueDate());
         }
 
         if (updatedTaskInfo.getCompletionDate() != null) {
             if (task.getCompletionDate() == null || !task.getCompletionDate().equals(updatedTaskInfo.getCompletionDate())) {
-                saveTaskHistory(
-                        taskId,
+                changes.add(taskHistory(
+                        task,
                         userId,
                         "completionDate",
                         task.getCompletionDate() != null ? task.getCompletionDate().toString() : "null",
                         updatedTaskInfo.getCompletionDate().toString()
-                );
+                ));
                 task.setCompletionDate(updatedTaskInfo.getCompletionDate());
             }
         } else {
             if (task.getCompletionDate() != null) {
-                saveTaskHistory(taskId, userId, "completionDate", task.getCompletionDate().toString(), "null");
+                changes.add(taskHistory(task, userId, "completionDate", task.getCompletionDate().toString(), "null"));
                 task.setCompletionDate(null);
             }
         }
 
         if (!task.getPriority().equals(updatedTaskInfo.getPriority())) {
-            saveTaskHistory(taskId, userId, "priority", task.getPriority().name(), updatedTaskInfo.getPriority().name());
+            changes.add(taskHistory(task, userId, "priority", task.getPriority().name(), updatedTaskInfo.getPriority().name()));
             task.setPriority(updatedTaskInfo.getPriority());
         }
 
         if (task.getStatus() != updatedTaskInfo.getStatus()) {
-            saveTaskHistory(taskId, userId, "status", task.getStatus().name(), updatedTaskInfo.getStatus().name());
+            changes.add(taskHistory(task, userId, "status", task.getStatus().name(), updatedTaskInfo.getStatus().name()));
             task.setStatus(updatedTaskInfo.getStatus());
         }
 
-        Task updatedTask = taskRepository.save(task);
-
-        return getTaskResponseDTO(updatedTask, task.getProject());
+        return changes;
     }
 
-
     /**
-     * Logs changes made to a task's field in the task history.
+     * Builds the task history row for a change made to a task's field.
      *
-     * @param taskId the ID of the task
+     * @param task the task, at the version the change is made on
      * @param userId the ID of the user making changes
      * @param fieldName the field that was changed
      * @param oldValue the old value of the field
      * @param newValue the new value of the field
+     * @return the unsaved history row
      */
-    private void saveTaskHistory(Long taskId, Long userId, String fieldName, String oldValue, String newValue) {
+    private static TaskHistory taskHistory(Task task, Long userId, String fieldName, String oldValue, String newValue) {
         TaskHistory taskHistory = new TaskHistory();
-        taskHistory.setTaskId(taskId);
+        taskHistory.setTaskId(task.getId());
         taskHistory.setChangedBy(userId);
         taskHistory.setFieldName(fieldName);
         taskHistory.setOldValue(oldValue);
         taskHistory.setNewValue(newValue);
         taskHistory.setChangedAt(LocalDateTime.now());
-        taskHistoryRepository.save(taskHistory);
+        // Dirty tasks are written once per flush, with their version incremented by one
+        taskHistory.setTaskVersion(task.getVersion() != null ? task.getVersion() + 1 : null);
+        return taskHistory;
+    }
+
+    // History row of a task just persisted, at its initial version
+    private static TaskHistory creationHistory(Task task, Long userId) {
+        return new TaskHistory(null, task.getId(), userId, TaskChangedEvent.CREATED_FIELD, null, task.getName(),
+                LocalDateTime.now(), task.getVersion());
+    }
+
+    // Saves the history rows of a write, then pushes them to the event streams of the project once it commits
+    private void recordChanges(Long projectId, List<TaskHistory> changes) {
+        // Set here rather than from the task: the status updates work on copies without their project
+        changes.forEach(change -> change.setProjectId(projectId));
+        taskHistoryRecorder.record(changes);
+        taskEventBroker.publishAfterCommit(changes.stream().map(change -> TaskChangedEvent.of(projectId, change)).toList());
+        responseCache.evict(projectId);
     }
 
 
@@ -276,7 +604,7 @@ public class TaskServiceImpl implements TaskService {
      */
     @Override
     public TaskResponseDTO getTaskById(Long taskId, Long projectId, Long userId) {
-        ProjectMemberRole memberRole = projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId)
+        Role role = projectRoleCache.getRole(projectId, userId)
                 .orElseThrow(() -> new RuntimeException("User is not a member of this project"));
 
         Task task = taskRepository.findById(taskId)
@@ -304,81 +632,350 @@ public class TaskServiceImpl implements TaskService {
     }
 
     /**
-     * Updates the status of a task.
+     * Returns the ETag of a task, its version, read without loading the task.
+     *
+     * @param taskId the task ID
+     * @param projectId the project ID
+     * @param userId the user ID
+     * @return the version of the task, or null if the task is not in the project
+     * @throws RuntimeException if the user is not a member of the project
+     */
+    @Override
+    public String getTaskETag(Long taskId, Long projectId, Long userId) {
+        projectRoleCache.getRole(projectId, userId)
+                .orElseThrow(() -> new RuntimeException("User is not a member of this project"));
+        return taskRepository.findVersionByIdAndProjectId(taskId, projectId).map(String::valueOf).orElse(null);
+    }
+
+    /**
+     * Returns the ETag of the tasks of a project in a status: a hash of their ids and versions,
+     * which changes whenever one of them is modified, enters or leaves the status.
+     *
+     * @param status the status of the tasks
+     * @param projectId the project ID
+     * @return the ETag of the list returned by getTasksByStatus
+     */
+    @Override
+    public String getTasksByStatusETag(TaskStatus status, Long projectId) {
+        List<String> versions = taskRepository.findVersionsByProjectIdAndStatus(projectId, status);
+        return DigestUtils.md5DigestAsHex(String.join(",", versions).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Updates the status of a task and logs the change in task history.
+     * The task is not loaded: its response row is read once, then a single UPDATE of the status and version
+     * columns is conditional on the project and on the version read.
      *
      * @param taskId the task ID
      * @param projectId the project ID
      * @param userId the user ID
      * @param status the new task status
+     * @param expectedVersion the version the status was changed from, or null to overwrite the current version
      * @return TaskResponseDTO with updated task details
+     * @throws RuntimeException if the user may not update the task or the task is not in the project
+     * @throws ResponseStatusException 409 if the status was also changed since expectedVersion
+     * @throws ObjectOptimisticLockingFailureException if the task was modified between the read and the UPDATE
      */
     @Override
-    public TaskResponseDTO updateTaskStatus(Long taskId, Long projectId, Long userId, String status) {
+    @Transactional
+    public TaskResponseDTO updateTaskStatus(Long taskId, Long projectId, Long userId, String status, Long expectedVersion) {
         // Check if the user has the permissions
-        ProjectMemberRole memberRole = projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId)
+        Role role = projectRoleCache.getRole(projectId, userId)
                 .orElseThrow(() -> new RuntimeException("User is not a member of this project"));
 
-        if (memberRole.getRole() != Role.ADMIN && memberRole.getRole() != Role.MEMBER && memberRole.getRole() != Role.OBSERVER) {
+        if (role != Role.ADMIN && role != Role.MEMBER && role != Role.OBSERVER) {
             throw new RuntimeException("You do not have permission to update tasks in this project");
         }
 
-        // Retrieve task
-        Task task = taskRepository.findById(taskId)
-                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        // Task, project and assignee in one row, found only if the task belongs to the project
+        TaskResponseDTO task = taskRepository.findTaskResponseById(taskId, projectId)
+                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId + " in project: " + projectId));
+        Task current = new Task(task.getId(), task.getName(), task.getDescription(), task.getDueDate(), task.getPriority(),
+                null, null, task.getCompletionDate(), task.getStatus());
+        current.setVersion(task.getVersion());
+
+        // Merged as a one-field update when made on an older version
+        TaskStatus newStatus = TaskStatus.valueOf(status);
+        if (expectedVersion != null && !expectedVersion.equals(task.getVersion())) {
+            Task edited = copyOf(current);
+            edited.setStatus(newStatus);
+            newStatus = mergeConcurrentChanges(current, edited, expectedVersion).getStatus();
+        }
+        if (task.getStatus() == newStatus) {
+            return task;
+        }
 
-        // Verify that the task belongs to the project
-        if (!task.getProject().getId().equals(projectId)) {
-            throw new RuntimeException("Task does not belong to this project");
+        // Compare-and-set on the version read, which also makes the status read the one recorded as replaced
+        if (taskRepository.updateStatus(taskId, projectId, newStatus, task.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Task.class, taskId);
         }
+        recordChanges(projectId, List.of(taskHistory(current, userId, "status", String.valueOf(task.getStatus()), newStatus.name())));
 
-        // Update the status of the task
-        task.setStatus(TaskStatus.valueOf(status));
+        ProjectTaskStats delta = ProjectTaskStatsRecorder.delta();
+        boolean assigned = task.getAssignee() != null;
+        ProjectTaskStatsRecorder.count(delta, task.getStatus(), task.getPriority(), assigned, task.getDueDate(), -1);
+        ProjectTaskStatsRecorder.count(delta, newStatus, task.getPriority(), assigned, task.getDueDate(), 1);
+        projectTaskStatsRecorder.record(projectId, delta);
 
-        // Save changes
-        Task updatedTask = taskRepository.save(task);
+        task.setStatus(newStatus);
+        task.setVersion(task.getVersion() + 1);
+        return task;
+    }
 
-        // Return the updated DTO
-        return getTaskResponseDTO(updatedTask, task.getProject());
+    /**
+     * Changes the status of many tasks of a project with a single permission check.
+     * Tasks are read with IN queries, then the changed ones are written as one JDBC batch of UPDATEs of their status
+     * and version, each conditional on the version read; their history rows are saved together.
+     *
+     * @param changes the status changes, in request order
+     * @param projectId the project ID
+     * @param userId the ID of the user updating the tasks
+     * @return one result per change, in request order
+     * @throws RuntimeException if the user may not update tasks in this project
+     */
+    @Override
+    @Transactional
+    public List<BulkItemResultDTO> updateTaskStatuses(List<TaskStatusChangeDTO> changes, Long projectId, Long userId) {
+        Role role = projectRoleCache.getRole(projectId, userId)
+                .orElseThrow(() -> new RuntimeException("User is not a member of this project"));
+
+        if (role != Role.ADMIN && role != Role.MEMBER && role != Role.OBSERVER) {
+            throw new RuntimeException("You do not have permission to update tasks in this project");
+        }
+
+        List<Long> taskIds = changes.stream()
+                .map(TaskStatusChangeDTO::getTaskId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Task> tasks = new HashMap<>();
+        for (int from = 0; from < taskIds.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = taskIds.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, taskIds.size()));
+            taskRepository.findAllById(chunk).forEach(task -> tasks.put(task.getId(), task));
+        }
+
+        // The loaded tasks stay untouched (a dirty Task would be written again, unbatched, at flush):
+        // the status and version each change leads to are tracked here, as a task may be changed twice
+        Map<Long, Task> written = new HashMap<>();
+        BulkItemResultDTO[] results = new BulkItemResultDTO[changes.size()];
+        List<Integer> updatedIndexes = new ArrayList<>();
+        List<TaskBatchRepository.StatusChange> updates = new ArrayList<>();
+        List<TaskHistory> history = new ArrayList<>();
+        List<TaskStatus> previousStatuses = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            TaskStatusChangeDTO change = changes.get(i);
+            Task task = change.getTaskId() != null ? tasks.get(change.getTaskId()) : null;
+            if (task == null) {
+                results[i] = BulkItemResultDTO.failed(i, change.getTaskId(), "Task not found with id: " + change.getTaskId());
+            } else if (!task.getProject().getId().equals(projectId)) {
+                results[i] = BulkItemResultDTO.failed(i, task.getId(), "Task does not belong to this project");
+            } else if (change.getStatus() == null) {
+                results[i] = BulkItemResultDTO.failed(i, task.getId(), "Status is required");
+            } else {
+                Task state = written.computeIfAbsent(task.getId(), id -> {
+                    Task copy = copyOf(task);
+                    copy.setId(id);
+                    copy.setVersion(task.getVersion());
+                    return copy;
+                });
+                if (state.getStatus() != change.getStatus()) {
+                    updatedIndexes.add(i);
+                    updates.add(new TaskBatchRepository.StatusChange(task.getId(), change.getStatus(), state.getVersion()));
+                    previousStatuses.add(state.getStatus());
+                    history.add(taskHistory(state, userId, "status", String.valueOf(state.getStatus()), change.getStatus().name()));
+                    state.setStatus(change.getStatus());
+                    state.setVersion(state.getVersion() + 1);
+                }
+                results[i] = BulkItemResultDTO.ok(i, task.getId());
+            }
+        }
+
+        // A task modified since it was read is reported, and its history row dropped
+        boolean[] updated = taskRepository.updateStatuses(projectId, updates);
+        List<TaskHistory> recorded = new ArrayList<>(history.size());
+        ProjectTaskStats delta = ProjectTaskStatsRecorder.delta();
+        for (int u = 0; u < updated.length; u++) {
+            if (updated[u]) {
+                recorded.add(history.get(u));
+                Task task = tasks.get(updates.get(u).taskId());
+                boolean assigned = task.getAssignee() != null;
+                ProjectTaskStatsRecorder.count(delta, previousStatuses.get(u), task.getPriority(), assigned, task.getDueDate(), -1);
+                ProjectTaskStatsRecorder.count(delta, updates.get(u).status(), task.getPriority(), assigned, task.getDueDate(), 1);
+            } else {
+                int i = updatedIndexes.get(u);
+                results[i] = BulkItemResultDTO.failed(i, updates.get(u).taskId(), "Task was modified concurrently");
+            }
+        }
+
+        recordChanges(projectId, recorded);
+        projectTaskStatsRecorder.record(projectId, delta);
+        return Arrays.asList(results);
     }
 
+    /**
+     * Retrieves all tasks of a project, ordered by due date.
+     * Rows are projected straight into TaskResponseDTO, no Task entity is loaded.
+     *
+     * @param projectId the project ID
+     * @return List of TaskResponseDTO containing the task details
+     */
     @Override
     public List<TaskResponseDTO> getTasksByProjectId(Long projectId) {
-        return List.of();
+        return taskRepository.findTasksByProjectId(projectId, null, null, null, null, null, Pageable.unpaged());
+    }
+
+    /**
+     * Retrieves one page of the tasks of a project, with optional status, priority and assignee filters.
+     * Pages are ordered by (dueDate, id) and start right after the cursor carried by the filter.
+     *
+     * @param projectId the project ID
+     * @param filter the filters, cursor and page size, 50 tasks if not given
+     * @return List of TaskResponseDTO containing the task details
+     */
+    @Override
+    public List<TaskResponseDTO> getTasksByProjectId(Long projectId, TaskFilterDTO filter) {
+        Pageable pageable = PageRequest.ofSize(filter.getSize() != null ? filter.getSize() : DEFAULT_PAGE_SIZE);
+        return taskRepository.findTasksByProjectId(projectId, filter.getStatus(), filter.getPriority(),
+                filter.getAssigneeId(), filter.getAfterDueDate(), cursorId(filter), pageable);
+    }
+
+    /**
+     * Streams the tasks of a project matching the filter to the given consumer.
+     * Rows are read through a database cursor so memory stays flat whatever the size of the project.
+     *
+     * @param projectId the project ID
+     * @param filter the filters and optional cursor (the page size is ignored)
+     * @param consumer receives each task in (dueDate, id) order
+     */
+    @Override
+    @Transactional
+    public void streamTasksByProjectId(Long projectId, TaskFilterDTO filter, Consumer<TaskResponseDTO> consumer) {
+        try (Stream<TaskResponseDTO> tasks = taskRepository.streamTasksByProjectId(projectId, filter.getStatus(),
+                filter.getPriority(), filter.getAssigneeId(), filter.getAfterDueDate(), cursorId(filter))) {
+            tasks.forEach(consumer);
+        }
+    }
+
+    // The (dueDate, id) cursor needs an id as soon as a due date is given
+    private static Long cursorId(TaskFilterDTO filter) {
+        return filter.getAfterId() != null ? filter.getAfterId() : 0L;
     }
 
 
 
+    /**
+     * Retrieves every task of every project the user is a member of.
+     * Tasks, projects and assignees are read in a single query, whatever the number of projects.
+     *
+     * @param userId the user ID
+     * @return List of TaskResponseDTO ordered by task id
+     */
     @Override
     public List<TaskResponseDTO> getTasksByUserId(Long userId) {
-        List<ProjectMemberRole> memberRoles = projectMemberRoleRepository.findByMemberId(userId);
+        return taskRepository.findTaskFeedByUserId(userId, 0L, Pageable.unpaged());
+    }
 
-        List<Task> tasks = memberRoles.stream()
-                .flatMap(role -> {
-                    List<Task> projectTasks = taskRepository.findByProjectId(role.getProject().getId());
-                    return projectTasks.stream();
-                })
-                .toList();
+    /**
+     * Retrieves one page of the user's cross-project task feed using keyset pagination.
+     *
+     * @param userId the user ID
+     * @param afterId the id of the last task of the previous page, or null for the first page
+     * @param size the maximum number of tasks to return
+     * @return List of TaskResponseDTO with ids greater than afterId, ordered by task id
+     */
+    @Override
+    public List<TaskResponseDTO> getTasksByUserId(Long userId, Long afterId, int size) {
+        return taskRepository.findTaskFeedByUserId(userId, afterId != null ? afterId : 0L, PageRequest.ofSize(size));
+    }
 
-        return tasks.stream().map(task -> getTaskResponseDTO(task, task.getProject())).collect(Collectors.toList());
+    /**
+     * Searches the tasks of the projects of a user with the full-text index.
+     * The index only returns ids; the tasks are then read in one query, so their details are always current.
+     *
+     * @param userId the user ID
+     * @param text the words searched for in the name, description, project name and assignee of the tasks
+     * @param size the maximum number of tasks to return
+     * @return List of TaskResponseDTO, best match first
+     */
+    @Override
+    public List<TaskResponseDTO> searchTasks(Long userId, String text, int size) {
+        List<Long> projectIds = projectRepository.findProjectIdsByUserId(userId);
+        List<Long> taskIds = taskSearchIndex.search(text, projectIds, size);
+        if (taskIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TaskResponseDTO> tasks = taskRepository.findTaskResponsesByIdIn(taskIds).stream()
+                .collect(Collectors.toMap(TaskResponseDTO::getId, Function.identity()));
+        return taskIds.stream().map(tasks::get).filter(Objects::nonNull).toList();
     }
 
+    /**
+     * Retrieves the task counters of a project, read from its stats row instead of counting its tasks.
+     *
+     * @param projectId the project ID
+     * @return ProjectTaskStatsDTO with the tasks by status and priority, unassigned and overdue tasks
+     * @throws RuntimeException if the project is not found
+     */
+    @Override
+    public ProjectTaskStatsDTO getProjectStats(Long projectId) {
+        ProjectTaskStats stats = projectTaskStatsRecorder.current(projectId);
+
+        Map<TaskStatus, Long> byStatus = new LinkedHashMap<>();
+        byStatus.put(TaskStatus.TODO, stats.getTodo());
+        byStatus.put(TaskStatus.IN_PROGRESS, stats.getInProgress());
+        byStatus.put(TaskStatus.COMPLETED, stats.getCompleted());
+        byStatus.put(TaskStatus.ON_HOLD, stats.getOnHold());
+
+        Map<Priority, Long> byPriority = new LinkedHashMap<>();
+        byPriority.put(Priority.LOW, stats.getLowPriority());
+        byPriority.put(Priority.MEDIUM, stats.getMediumPriority());
+        byPriority.put(Priority.HIGH, stats.getHighPriority());
+
+        return new ProjectTaskStatsDTO(projectId, stats.getTotal(), byStatus, byPriority,
+                stats.getUnassigned(), stats.getOverdue(), stats.getReconciledAt());
+    }
 
     /**
-     * Retrieves task history for a given project and task.
+     * Retrieves the task events of a project after an event id, to resume an event stream.
+     * Events are read back from the task history rows of the project's tasks.
      *
      * @param projectId the project ID
-     * @param taskId the task ID
-     * @return ResponseEntity with the task history or error message
+     * @param afterId the id of the last event received
+     * @param limit the maximum number of events
+     * @return the events after afterId, in id order
      */
-    @GetMapping("/{projectId}/tasks/{taskId}/history")
-    public ResponseEntity<String> getTaskHistory(@PathVariable Long projectId, @PathVariable Long taskId) {
-        List<TaskHistory> historyList = taskHistoryRepository.findByTaskId(taskId);
+    @Override
+    public List<TaskChangedEvent> getTaskEventsSince(Long projectId, Long afterId, int limit) {
+        return taskHistoryRepository.findProjectHistoryAfter(projectId, afterId, PageRequest.of(0, limit)).stream()
+                .map(change -> TaskChangedEvent.of(projectId, change))
+                .toList();
+    }
 
-        if (historyList.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No history found for the task with id: " + taskId);
-        }
 
-        return ResponseEntity.ok(historyList.toString());
+    /**
+     * Retrieves the whole history of a task, archived rows included.
+     *
+     * @param taskId the task ID
+     * @return the history rows, oldest first
+     */
+    @Override
+    public List<TaskHistory> getTaskHistory(Long taskId) {
+        return taskHistoryRecorder.findTaskHistory(taskId);
+    }
+
+    /**
+     * Retrieves a page of the history of a task, ordered by (changedAt, id).
+     * A page starts right after (afterChangedAt, afterId), the last row of the previous page.
+     *
+     * @param taskId the task ID
+     * @param afterChangedAt the changedAt of the last row of the previous page, or null for the first page
+     * @param afterId the id of the last row of the previous page
+     * @param size the maximum number of rows
+     * @return the history rows of the page
+     */
+    @Override
+    public List<TaskHistory> getTaskHistory(Long taskId, LocalDateTime afterChangedAt, Long afterId, int size) {
+        return taskHistoryRecorder.findTaskHistoryPage(taskId, afterChangedAt, afterId, size);
     }
 
 }
@@ -0,0 +1,58 @@
+-- Original schema, as generated by hibernate.ddl-auto=update before migrations were introduced.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip this script.
+-- Written in the SQL subset shared by MySQL 8 and H2 (used by the tests).
+
+CREATE TABLE users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE projects (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    start_date  DATE,
+    user_id     BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_projects_owner FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE project_member_roles (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    project_id BIGINT,
+    user_id    BIGINT,
+    role       VARCHAR(32),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_project_member_roles_user_project UNIQUE (user_id, project_id),
+    CONSTRAINT fk_project_member_roles_project FOREIGN KEY (project_id) REFERENCES projects (id),
+    CONSTRAINT fk_project_member_roles_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE tasks (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    name            VARCHAR(255) NOT NULL,
+    description     VARCHAR(255) NOT NULL,
+    due_date        DATE         NOT NULL,
+    priority        VARCHAR(32)  NOT NULL,
+    project_id      BIGINT       NOT NULL,
+    assignee_id     BIGINT,
+    completion_date DATE,
+    status          VARCHAR(32),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_tasks_project FOREIGN KEY (project_id) REFERENCES projects (id),
+    CONSTRAINT fk_tasks_assignee FOREIGN KEY (assignee_id) REFERENCES users (id)
+);
+
+CREATE TABLE task_history (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    task_id    BIGINT,
+    changed_by BIGINT,
+    field_name VARCHAR(255),
+    old_value  VARCHAR(255),
+    new_value  VARCHAR(255),
+    changed_at DATETIME(6),
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,38 @@
+-- Tables added after the baseline (email outbox, pooled history ids, revoked tokens).
+-- IF NOT EXISTS: databases still on ddl-auto=update may already have created them.
+
+CREATE TABLE IF NOT EXISTS id_generators (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT,
+    PRIMARY KEY (sequence_name)
+);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              BIGINT        NOT NULL AUTO_INCREMENT,
+    recipient       VARCHAR(255)  NOT NULL,
+    subject         VARCHAR(255)  NOT NULL,
+    body            VARCHAR(4000) NOT NULL,
+    status          VARCHAR(32)   NOT NULL,
+    attempts        INT           NOT NULL,
+    created_at      DATETIME(6)   NOT NULL,
+    next_attempt_at DATETIME(6)   NOT NULL,
+    sent_at         DATETIME(6),
+    last_error      VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    token_hash VARCHAR(64) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    revoked_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (token_hash)
+);
+
+-- Pooled task_history ids (allocation size 50) must start above the rows written with IDENTITY ids
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'task_history', 0 FROM (SELECT 1 AS one) seed
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'task_history');
+
+UPDATE id_generators
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM task_history))
+WHERE sequence_name = 'task_history';
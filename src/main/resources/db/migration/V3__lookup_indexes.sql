@@ -0,0 +1,23 @@
+-- One index per hot repository lookup; SchemaIndexTest checks each query plan uses its index.
+-- Lookups on a foreign key alone (tasks.assignee_id, projects.user_id, project_member_roles.project_id/user_id)
+-- use the index MySQL and H2 create with the constraint, named after it (fk_*).
+
+-- AppUserRepository.findByEmail (login, register, invite); also enforces one account per email
+CREATE UNIQUE INDEX uk_users_email ON users (email);
+
+-- TaskRepository.findByProjectIdAndStatus and the open task counters of the project summaries
+CREATE INDEX idx_tasks_project_status ON tasks (project_id, status);
+
+-- TaskRepository.findTasksByProjectId / streamTasksByProjectId: (due_date, id) order and cursor
+CREATE INDEX idx_tasks_project_due_date ON tasks (project_id, due_date, id);
+
+-- TaskHistoryRepository.findByTaskId, in insertion order
+CREATE INDEX idx_task_history_task ON task_history (task_id, id);
+
+-- EmailOutboxRepository: due emails, then the other pending emails of the same recipients
+CREATE INDEX idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at, id);
+CREATE INDEX idx_email_outbox_recipient_status ON email_outbox (recipient, status);
+
+-- RevokedTokenRepository: sync from other nodes and purge of expired revocations
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -0,0 +1,9 @@
+-- Task ids move from IDENTITY to the pooled id_generators table (allocation size 50), so task inserts can be batched.
+-- The generator must start above the ids already given by AUTO_INCREMENT; the column keeps its AUTO_INCREMENT.
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'tasks', 0 FROM (SELECT 1 AS one) seed
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'tasks');
+
+UPDATE id_generators
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM tasks))
+WHERE sequence_name = 'tasks';
@@ -0,0 +1,6 @@
+-- Optimistic locking of tasks: every UPDATE checks and increments the version; existing rows start at 0.
+ALTER TABLE tasks ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Task version produced by each history row, so a stale update can be merged field by field
+-- (rows are read through idx_task_history_task, a task has few of them).
+ALTER TABLE task_history ADD COLUMN task_version BIGINT;
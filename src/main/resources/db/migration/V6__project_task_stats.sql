@@ -0,0 +1,41 @@
+-- Task counters of each project, kept up to date by the task writes (one delta UPDATE per write)
+-- and checked against the tasks table by the periodic reconciliation (ProjectTaskStatsReconciler).
+-- overdue counts the tasks not COMPLETED whose due date is before overdue_as_of; it is recounted once the day changes.
+
+CREATE TABLE project_task_stats (
+    project_id      BIGINT      NOT NULL,
+    total           BIGINT      NOT NULL,
+    todo            BIGINT      NOT NULL,
+    in_progress     BIGINT      NOT NULL,
+    completed       BIGINT      NOT NULL,
+    on_hold         BIGINT      NOT NULL,
+    low_priority    BIGINT      NOT NULL,
+    medium_priority BIGINT      NOT NULL,
+    high_priority   BIGINT      NOT NULL,
+    unassigned      BIGINT      NOT NULL,
+    overdue         BIGINT      NOT NULL,
+    overdue_as_of   DATE        NOT NULL,
+    reconciled_at   DATETIME(6),
+    PRIMARY KEY (project_id),
+    CONSTRAINT fk_project_task_stats_project FOREIGN KEY (project_id) REFERENCES projects (id)
+);
+
+-- Counters of the existing projects, in one pass over the tasks
+INSERT INTO project_task_stats (project_id, total, todo, in_progress, completed, on_hold,
+                                low_priority, medium_priority, high_priority, unassigned, overdue, overdue_as_of, reconciled_at)
+SELECT p.id,
+       COUNT(t.id),
+       COALESCE(SUM(CASE WHEN t.status = 'TODO' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN t.status = 'IN_PROGRESS' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN t.status = 'COMPLETED' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN t.status = 'ON_HOLD' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN t.priority = 'LOW' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN t.priority = 'MEDIUM' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN t.priority = 'HIGH' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN t.id IS NOT NULL AND t.assignee_id IS NULL THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN (t.status IS NULL OR t.status <> 'COMPLETED') AND t.due_date < CURRENT_DATE THEN 1 ELSE 0 END), 0),
+       CURRENT_DATE,
+       CURRENT_TIMESTAMP
+FROM projects p
+LEFT JOIN tasks t ON t.project_id = p.id
+GROUP BY p.id;
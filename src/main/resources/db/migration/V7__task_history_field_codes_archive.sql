@@ -0,0 +1,37 @@
+-- Task history field names become SMALLINT codes (TaskHistoryField) instead of a VARCHAR repeated on every row.
+-- Only these names were ever written; the codes must match the enum.
+ALTER TABLE task_history ADD COLUMN field_code SMALLINT NOT NULL DEFAULT 0;
+
+UPDATE task_history SET field_code = CASE field_name
+    WHEN 'name' THEN 1
+    WHEN 'description' THEN 2
+    WHEN 'dueDate' THEN 3
+    WHEN 'completionDate' THEN 4
+    WHEN 'priority' THEN 5
+    WHEN 'status' THEN 6
+    WHEN 'created' THEN 7
+    WHEN 'assignee' THEN 8
+    ELSE 0 END;
+
+ALTER TABLE task_history DROP COLUMN field_name;
+
+-- Keyset pages of the history of a task, ordered by (changed_at, id)
+CREATE INDEX idx_task_history_task_changed_at ON task_history (task_id, changed_at, id);
+
+-- Oldest rows first, for the archiving job
+CREATE INDEX idx_task_history_changed_at ON task_history (changed_at, id);
+
+-- Cold tier: rows older than pmt.history.archive.after, moved with their id
+CREATE TABLE task_history_archive (
+    id           BIGINT NOT NULL,
+    task_id      BIGINT,
+    changed_by   BIGINT,
+    field_code   SMALLINT NOT NULL,
+    old_value    VARCHAR(255),
+    new_value    VARCHAR(255),
+    changed_at   DATETIME(6),
+    task_version BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_task_history_archive_task_changed_at ON task_history_archive (task_id, changed_at, id);
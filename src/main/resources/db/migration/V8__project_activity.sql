@@ -0,0 +1,19 @@
+-- The project of each history row is stored on the row, so the activity of a project is read without going
+-- through its tasks. Membership changes have no task: member_id is the user whose membership changed.
+ALTER TABLE task_history ADD COLUMN project_id BIGINT;
+ALTER TABLE task_history ADD COLUMN member_id BIGINT;
+
+UPDATE task_history SET project_id = (SELECT t.project_id FROM tasks t WHERE t.id = task_history.task_id);
+
+-- Activity feed of a project, newest first on (changed_at, id)
+CREATE INDEX idx_task_history_project_changed_at ON task_history (project_id, changed_at, id);
+
+-- Replay of the task event stream of a project, in id order
+CREATE INDEX idx_task_history_project_id ON task_history (project_id, id);
+
+ALTER TABLE task_history_archive ADD COLUMN project_id BIGINT;
+ALTER TABLE task_history_archive ADD COLUMN member_id BIGINT;
+
+UPDATE task_history_archive SET project_id = (SELECT t.project_id FROM tasks t WHERE t.id = task_history_archive.task_id);
+
+CREATE INDEX idx_task_history_archive_project_changed_at ON task_history_archive (project_id, changed_at, id);
@@ -0,0 +1,6 @@
+-- Outbox rows are claimed by one dispatcher before being sent: status SENDING, the claim token of the run and,
+-- in next_attempt_at, the time after which a claim left by a crashed node can be taken over.
+ALTER TABLE email_outbox ADD COLUMN claim_token VARCHAR(36);
+
+-- EmailOutboxRepository.findByClaimTokenOrderByIdAsc: rows claimed by a run
+CREATE INDEX idx_email_outbox_claim_token ON email_outbox (claim_token);
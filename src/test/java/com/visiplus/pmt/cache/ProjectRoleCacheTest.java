@@ -0,0 +1,130 @@
+package com.visiplus.pmt.cache;
+
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.repository.ProjectMemberRoleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProjectRoleCacheTest {
+
+    @Mock
+    private ProjectMemberRoleRepository projectMemberRoleRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ProjectRoleCache projectRoleCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        projectRoleCache = new ProjectRoleCache(projectMemberRoleRepository, 100, Duration.ofMinutes(5), meterRegistry);
+    }
+
+    @Test
+    void getRole_HitsDatabaseOnce_ForRepeatedLookups() {
+        when(projectMemberRoleRepository.findByProjectIdAndMemberId(1L, 2L)).thenReturn(Optional.of(memberRole(Role.MEMBER)));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Optional.of(Role.MEMBER), projectRoleCache.getRole(1L, 2L));
+        }
+
+        verify(projectMemberRoleRepository, times(1)).findByProjectIdAndMemberId(1L, 2L);
+        assertEquals(9.0, meterRegistry.get("cache.gets").tag("cache", ProjectRoleCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", ProjectRoleCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void getRole_CachesMissingMembership_UntilEvicted() {
+        when(projectMemberRoleRepository.findByProjectIdAndMemberId(1L, 2L)).thenReturn(Optional.empty());
+
+        assertTrue(projectRoleCache.getRole(1L, 2L).isEmpty());
+        assertTrue(projectRoleCache.getRole(1L, 2L).isEmpty());
+
+        when(projectMemberRoleRepository.findByProjectIdAndMemberId(1L, 2L)).thenReturn(Optional.of(memberRole(Role.ADMIN)));
+        projectRoleCache.evict(1L, 2L);
+
+        assertEquals(Optional.of(Role.ADMIN), projectRoleCache.getRole(1L, 2L));
+        verify(projectMemberRoleRepository, times(2)).findByProjectIdAndMemberId(1L, 2L);
+    }
+
+    @Test
+    void getRole_SharesOneLoad_BetweenConcurrentLookups() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(projectMemberRoleRepository.findByProjectIdAndMemberId(1L, 2L)).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await();
+            return Optional.of(memberRole(Role.MEMBER));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Optional<Role>> first = executor.submit(() -> projectRoleCache.getRole(1L, 2L));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            List<Future<Optional<Role>>> waiting = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                waiting.add(executor.submit(() -> projectRoleCache.getRole(1L, 2L)));
+            }
+            releaseLoad.countDown();
+
+            assertEquals(Optional.of(Role.MEMBER), first.get(5, TimeUnit.SECONDS));
+            for (Future<Optional<Role>> lookup : waiting) {
+                assertEquals(Optional.of(Role.MEMBER), lookup.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(projectMemberRoleRepository, times(1)).findByProjectIdAndMemberId(1L, 2L);
+    }
+
+    @Test
+    void getRole_DoesNotCacheFailedLoad() {
+        when(projectMemberRoleRepository.findByProjectIdAndMemberId(1L, 2L))
+                .thenThrow(new IllegalStateException("Database unavailable"))
+                .thenReturn(Optional.of(memberRole(Role.MEMBER)));
+
+        assertThrows(IllegalStateException.class, () -> projectRoleCache.getRole(1L, 2L));
+        assertEquals(Optional.of(Role.MEMBER), projectRoleCache.getRole(1L, 2L));
+    }
+
+    @Test
+    void key_KeepsProjectAndUserDistinct() {
+        assertNotEquals(ProjectRoleCache.key(1L, 2L), ProjectRoleCache.key(2L, 1L));
+        assertNotEquals(ProjectRoleCache.key(0xFFFFFFFFL, 1L), ProjectRoleCache.key(1L, 0xFFFFFFFFL));
+    }
+
+    @Test
+    void getRole_BypassesCache_WhenIdsDoNotFitInKey() {
+        long largeId = 1L << 40;
+        when(projectMemberRoleRepository.findByProjectIdAndMemberId(largeId, 2L)).thenReturn(Optional.of(memberRole(Role.OBSERVER)));
+
+        projectRoleCache.getRole(largeId, 2L);
+        projectRoleCache.getRole(largeId, 2L);
+
+        verify(projectMemberRoleRepository, times(2)).findByProjectIdAndMemberId(largeId, 2L);
+    }
+
+    private static ProjectMemberRole memberRole(Role role) {
+        ProjectMemberRole memberRole = new ProjectMemberRole();
+        memberRole.setRole(role);
+        return memberRole;
+    }
+}
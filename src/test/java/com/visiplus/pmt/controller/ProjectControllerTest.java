@@ -1,15 +1,22 @@
 package com.visiplus.pmt.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
 import com.visiplus.pmt.dto.InviteRequestDTO;
 import com.visiplus.pmt.dto.MemberDTO;
+import com.visiplus.pmt.dto.ProjectRowDTO;
+import com.visiplus.pmt.dto.ProjectSummaryDTO;
 import com.visiplus.pmt.dto.RoleAssignmentDTO;
 import com.visiplus.pmt.entity.AppUser;
 import com.visiplus.pmt.entity.Project;
 import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.entity.TaskHistory;
 import com.visiplus.pmt.enums.Role;
 import com.visiplus.pmt.exception.UserNotFoundException;
+import com.visiplus.pmt.jwt.AuthenticatedUser;
 import com.visiplus.pmt.service.ProjectService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -17,20 +24,33 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProjectController.class)
+@Import({ResponseCache.class, SimpleMeterRegistry.class})
 public class ProjectControllerTest {
 
     @Autowired
@@ -39,6 +59,9 @@ public class ProjectControllerTest {
     @MockBean
     private ProjectService projectService;
 
+    @MockBean
+    private ProjectRoleCache projectRoleCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -65,7 +88,7 @@ public class ProjectControllerTest {
         Project project = new Project();
         project.setId(projectId);
 
-        when(projectService.addMemberToProject(projectId, inviteRequestDTO.getEmail())).thenReturn(project);
+        when(projectService.addMemberToProject(projectId, inviteRequestDTO.getEmail(), userId)).thenReturn(project);
 
         mockMvc.perform(post("/projects/" + projectId + "/invite/" + userId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -80,7 +103,7 @@ public class ProjectControllerTest {
         Long userId = 2L;
         InviteRequestDTO inviteRequestDTO = new InviteRequestDTO("nonexistent@example.com");
 
-        when(projectService.addMemberToProject(projectId, inviteRequestDTO.getEmail())).thenThrow(new UserNotFoundException("User not found"));
+        when(projectService.addMemberToProject(projectId, inviteRequestDTO.getEmail(), userId)).thenThrow(new UserNotFoundException("User not found"));
 
         mockMvc.perform(post("/projects/" + projectId + "/invite/" + userId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -95,10 +118,13 @@ public class ProjectControllerTest {
         Long memberId = 2L;
         RoleAssignmentDTO roleAssignmentDTO = new RoleAssignmentDTO(Role.ADMIN);
 
-        when(projectService.assignRoleToMember(eq(projectId), eq(memberId), eq(roleAssignmentDTO.getRole())))
+        AuthenticatedUser caller = new AuthenticatedUser(3L, "admin", "admin@example.com", List.of(Role.ADMIN));
+
+        when(projectService.assignRoleToMember(eq(projectId), eq(memberId), eq(roleAssignmentDTO.getRole()), eq(3L)))
                 .thenReturn(new ProjectMemberRole());
 
         mockMvc.perform(put("/projects/" + projectId + "/assign-role/" + memberId)
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, caller)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(roleAssignmentDTO)))
                 .andExpect(status().isOk())
@@ -131,6 +157,72 @@ public class ProjectControllerTest {
                 .andExpect(jsonPath("$[0].name").value("User Project"));
     }
 
+    @Test
+    void getAllProjects_ReturnsKeysetOrOffsetPage_WhenSizeIsGiven() throws Exception {
+        Project project = new Project(4L, "Paged Project", "Description", null, new AppUser(), Collections.emptySet());
+        when(projectService.getAllProjects(3L, 1)).thenReturn(List.of(project));
+        when(projectService.getAllProjects(PageRequest.of(2, 1, Sort.by("id"))))
+                .thenReturn(new PageImpl<>(List.of(project), PageRequest.of(2, 1), 7));
+
+        mockMvc.perform(get("/projects/all").param("afterId", "3").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Paged Project"));
+
+        mockMvc.perform(get("/projects/all").param("page", "2").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "7"))
+                .andExpect(jsonPath("$[0].id").value(4));
+    }
+
+    @Test
+    void getAllProjects_ReturnsBadRequest_WhenPageOrSizeIsOutOfBounds() throws Exception {
+        mockMvc.perform(get("/projects/all").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/all").param("afterId", "3").param("size", "100000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/all").param("page", "-1").param("size", "10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/user/1/summary").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(projectService);
+    }
+
+    @Test
+    void streamAllProjects_WritesOneJsonObjectPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ProjectRowDTO> consumer = invocation.getArgument(0);
+            consumer.accept(new ProjectRowDTO(1L, "First", null, null, 9L, "owner"));
+            consumer.accept(new ProjectRowDTO(2L, "Second", null, null, 9L, "owner"));
+            return null;
+        }).when(projectService).streamAllProjects(any());
+
+        MvcResult result = mockMvc.perform(get("/projects/all/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Second", objectMapper.readTree(lines[1]).get("name").asText());
+    }
+
+    @Test
+    void getProjectSummariesByUserId_ReturnsPageOfSummaries() throws Exception {
+        ProjectSummaryDTO summary = new ProjectSummaryDTO(4L, "User Project", "Description", null, Role.ADMIN, 3, 2);
+        when(projectService.getProjectSummariesByUserId(1L, 3L, 10)).thenReturn(List.of(summary));
+
+        mockMvc.perform(get("/projects/user/1/summary").param("afterId", "3").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(jsonPath("$[0].role").value("ADMIN"))
+                .andExpect(jsonPath("$[0].memberCount").value(3))
+                .andExpect(jsonPath("$[0].openTaskCount").value(2));
+    }
+
     @Test
     void getProjectMembers_ReturnsListOfMembers() throws Exception {
         Long projectId = 1L;
@@ -144,4 +236,69 @@ public class ProjectControllerTest {
                 .andExpect(jsonPath("$[0].fullName").value("MemberName"));
     }
 
+    @Test
+    void getProjectMembers_ReturnsNotModified_WhenTheMembershipsAreUnchanged() throws Exception {
+        AuthenticatedUser caller = new AuthenticatedUser(2L, "member", "member@example.com", List.of(Role.MEMBER));
+        when(projectRoleCache.getRole(1L, 2L)).thenReturn(Optional.of(Role.MEMBER));
+        when(projectService.getProjectMembersETag(1L)).thenReturn("9f3c");
+
+        mockMvc.perform(get("/projects/1/members")
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, caller)
+                        .header("If-None-Match", "\"9f3c\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"9f3c\""));
+        verify(projectService, never()).getProjectMembers(any());
+    }
+
+    @Test
+    void getProjectActivity_ReturnsPageBeforeCursor() throws Exception {
+        LocalDateTime changedAt = LocalDateTime.of(2024, 5, 1, 10, 0);
+        TaskHistory change = new TaskHistory(7L, null, 1L, 2L, 1L, "memberRole", "MEMBER", "ADMIN", changedAt, null);
+        when(projectService.getProjectActivity(1L, null, null, 50)).thenReturn(List.of(change));
+        when(projectService.getProjectActivity(1L, changedAt, 7L, 20)).thenReturn(List.of());
+        AuthenticatedUser caller = new AuthenticatedUser(2L, "member", "member@example.com", List.of(Role.MEMBER));
+        when(projectRoleCache.getRole(1L, 2L)).thenReturn(Optional.of(Role.MEMBER));
+
+        mockMvc.perform(get("/projects/1/activity")
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, caller))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].memberId").value(2))
+                .andExpect(jsonPath("$[0].newValue").value("ADMIN"));
+        mockMvc.perform(get("/projects/1/activity")
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, caller)
+                        .param("beforeChangedAt", "2024-05-01T10:00:00")
+                        .param("beforeId", "7")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void getProjectActivity_RejectsCallersOutsideTheProject() throws Exception {
+        AuthenticatedUser outsider = new AuthenticatedUser(3L, "outsider", "outsider@example.com", List.of(Role.MEMBER));
+        when(projectRoleCache.getRole(1L, 3L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/projects/1/activity"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/projects/1/activity")
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, outsider))
+                .andExpect(status().isForbidden());
+        verify(projectService, never()).getProjectActivity(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getProjectActivity_ReturnsBadRequest_WhenSizeIsOutOfBounds() throws Exception {
+        AuthenticatedUser caller = new AuthenticatedUser(2L, "member", "member@example.com", List.of(Role.MEMBER));
+        when(projectRoleCache.getRole(1L, 2L)).thenReturn(Optional.of(Role.MEMBER));
+
+        mockMvc.perform(get("/projects/1/activity")
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, caller)
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/1/activity")
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, caller)
+                        .param("size", "501"))
+                .andExpect(status().isBadRequest());
+        verify(projectService, never()).getProjectActivity(any(), any(), any(), anyInt());
+    }
 }
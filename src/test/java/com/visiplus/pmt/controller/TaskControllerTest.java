@@ -1,27 +1,56 @@
 package com.visiplus.pmt.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
 import com.visiplus.pmt.dto.AssigneeDTO;
+import com.visiplus.pmt.dto.BulkItemResultDTO;
+import com.visiplus.pmt.dto.ProjectTaskStatsDTO;
+import com.visiplus.pmt.dto.TaskFilterDTO;
 import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.dto.TaskStatusChangeDTO;
 import com.visiplus.pmt.entity.Task;
 import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
 import com.visiplus.pmt.enums.TaskStatus;
-import com.visiplus.pmt.repository.TaskHistoryRepository;
+import com.visiplus.pmt.events.TaskChangedEvent;
+import com.visiplus.pmt.events.TaskEventBroker;
+import com.visiplus.pmt.jwt.AuthenticatedUser;
 import com.visiplus.pmt.service.TaskService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,16 +63,23 @@ class TaskControllerTest {
     private TaskService taskService;
 
     @Mock
-    private TaskHistoryRepository taskHistoryRepository;
+    private TaskEventBroker taskEventBroker;
+
+    @Mock
+    private ProjectRoleCache projectRoleCache;
+
+    private ResponseCache responseCache;
 
-    @InjectMocks
     private TaskController taskController;
 
-    private ObjectMapper objectMapper = new ObjectMapper();
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1), projectRoleCache, new SimpleMeterRegistry());
+        taskController = new TaskController(taskService, taskEventBroker, objectMapper, responseCache, projectRoleCache);
         mockMvc = MockMvcBuilders.standaloneSetup(taskController).build();
     }
 
@@ -66,6 +102,66 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.name").value("Sample Task"));
     }
 
+    @Test
+    void createTasks_ReturnsOneResultPerTask() throws Exception {
+        Long projectId = 1L;
+        Long userId = 2L;
+        Task first = new Task();
+        first.setName("First");
+        Task second = new Task();
+
+        when(taskService.createTasks(anyList(), eq(projectId), eq(userId))).thenReturn(List.of(
+                BulkItemResultDTO.ok(0, 10L),
+                BulkItemResultDTO.failed(1, null, "Name is required")));
+
+        mockMvc.perform(post("/projects/" + projectId + "/tasks/" + userId + "/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(first, second))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].taskId").value(10))
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].error").value("Name is required"));
+    }
+
+    @Test
+    void createTasksFromStream_AppliesNdjsonInChunks_WithLineIndexes() throws Exception {
+        Long projectId = 1L;
+        Long userId = 2L;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1500; i++) {
+            body.append("{\"name\":\"Task ").append(i).append("\"}\n");
+        }
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(taskService.createTasks(anyList(), eq(projectId), eq(userId))).thenAnswer(invocation -> {
+            List<Task> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            List<BulkItemResultDTO> results = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(BulkItemResultDTO.ok(i, (long) i));
+            }
+            return results;
+        });
+
+        mockMvc.perform(post("/projects/" + projectId + "/tasks/" + userId + "/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1500))
+                .andExpect(jsonPath("$[1200].index").value(1200));
+
+        assertEquals(List.of(1000, 500), chunkSizes);
+    }
+
+    @Test
+    void createTasksFromStream_ReturnsBadRequest_WhenLineIsMalformed() throws Exception {
+        mockMvc.perform(post("/projects/1/tasks/2/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Task\"}\n{not json\n"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void assignTaskToMember_AssignsTask_WhenValidInput() throws Exception {
         Long projectId = 1L;
@@ -97,7 +193,7 @@ class TaskControllerTest {
         TaskResponseDTO updatedTaskDTO = new TaskResponseDTO();
         updatedTaskDTO.setName("Updated Task");
 
-        when(taskService.updateTask(eq(taskId), eq(projectId), eq(userId), any(Task.class))).thenReturn(updatedTaskDTO);
+        when(taskService.updateTask(eq(taskId), eq(projectId), eq(userId), any(Task.class), isNull())).thenReturn(updatedTaskDTO);
 
         mockMvc.perform(put("/projects/" + projectId + "/tasks/" + taskId + "/update/" + userId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -122,6 +218,66 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.name").value("Sample Task"));
     }
 
+    @Test
+    void getTaskById_ReturnsNotModified_WhenTheClientHoldsTheCurrentVersion() throws Exception {
+        TaskResponseDTO taskResponse = new TaskResponseDTO();
+        taskResponse.setName("Sample Task");
+        when(projectRoleCache.getRole(1L, 2L)).thenReturn(Optional.of(Role.MEMBER));
+        when(taskService.getTaskETag(1L, 1L, 2L)).thenReturn("3");
+        when(taskService.getTaskById(1L, 1L, 2L)).thenReturn(taskResponse);
+
+        mockMvc.perform(get("/projects/1/tasks/1/view/2").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""));
+        verify(taskService, never()).getTaskById(any(), any(), any());
+
+        // An older copy gets the task, then the cached response serves the next requests
+        mockMvc.perform(get("/projects/1/tasks/1/view/2").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.name").value("Sample Task"));
+        mockMvc.perform(get("/projects/1/tasks/1/view/2").header("If-None-Match", "W/\"3\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/projects/1/tasks/1/view/2"))
+                .andExpect(status().isOk());
+        // Once for the 304, then before and after loading the task
+        verify(taskService, times(3)).getTaskETag(1L, 1L, 2L);
+        verify(taskService, times(1)).getTaskById(1L, 1L, 2L);
+    }
+
+    @Test
+    void getTaskById_DoesNotTagNorCacheTheBody_WhenAWriteLandsWhileItLoads() throws Exception {
+        TaskResponseDTO after = new TaskResponseDTO();
+        after.setName("After");
+        when(projectRoleCache.getRole(1L, 2L)).thenReturn(Optional.of(Role.MEMBER));
+        // The write commits after the tag is read and before the task is loaded
+        when(taskService.getTaskETag(1L, 1L, 2L)).thenReturn("3", "4");
+        when(taskService.getTaskById(1L, 1L, 2L)).thenReturn(after);
+
+        mockMvc.perform(get("/projects/1/tasks/1/view/2").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(jsonPath("$.name").value("After"));
+
+        // A client still holding version 3 gets the task again, not a 304
+        mockMvc.perform(get("/projects/1/tasks/1/view/2").header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.name").value("After"));
+        verify(taskService, times(2)).getTaskById(1L, 1L, 2L);
+    }
+
+    @Test
+    void getTaskById_ReturnsForbidden_WhenTokenBelongsToAnotherUser() throws Exception {
+        AuthenticatedUser caller = new AuthenticatedUser(5L, "other", "other@example.com", List.of(Role.MEMBER));
+
+        mockMvc.perform(get("/projects/1/tasks/1/view/2")
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, caller))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(taskService);
+    }
+
     @Test
     void getTasksByProjectId_ReturnsTasks_WhenValidInput() throws Exception {
         Long projectId = 1L;
@@ -137,6 +293,82 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Sample Task"));
     }
 
+    @Test
+    void getTasksByProjectId_ReturnsFilteredPage_WhenFiltersProvided() throws Exception {
+        Long projectId = 1L;
+
+        TaskResponseDTO task = new TaskResponseDTO();
+        task.setName("Filtered Task");
+
+        when(taskService.getTasksByProjectId(eq(projectId), argThat((TaskFilterDTO filter) ->
+                filter.getStatus() == TaskStatus.TODO
+                        && filter.getAfterDueDate().equals(LocalDate.of(2024, 5, 1))
+                        && filter.getAfterId() == 7L
+                        && filter.getSize() == 25)))
+                .thenReturn(List.of(task));
+
+        mockMvc.perform(get("/projects/" + projectId + "/tasks")
+                        .param("status", "TODO")
+                        .param("afterDueDate", "2024-05-01")
+                        .param("afterId", "7")
+                        .param("size", "25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Filtered Task"));
+    }
+
+    @Test
+    void getTasksByProjectId_ReturnsBadRequest_WhenSizeIsOutOfBounds() throws Exception {
+        for (String size : List.of("0", "-5", "501")) {
+            mockMvc.perform(get("/projects/1/tasks")
+                            .param("status", "TODO")
+                            .param("size", size))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    void getTasksByProjectId_ReturnsBadRequest_WhenAfterIdComesWithoutAfterDueDate() throws Exception {
+        mockMvc.perform(get("/projects/1/tasks")
+                        .param("afterId", "7")
+                        .param("size", "25"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/1/tasks/stream")
+                        .param("afterId", "7"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    void streamTasksByProjectId_WritesOneJsonObjectPerLine() throws Exception {
+        Long projectId = 1L;
+
+        TaskResponseDTO first = new TaskResponseDTO();
+        first.setName("First");
+        TaskResponseDTO second = new TaskResponseDTO();
+        second.setName("Second");
+
+        doAnswer(invocation -> {
+            Consumer<TaskResponseDTO> consumer = invocation.getArgument(2);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(taskService).streamTasksByProjectId(eq(projectId), any(TaskFilterDTO.class), any());
+
+        MvcResult result = mockMvc.perform(get("/projects/" + projectId + "/tasks/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("First", objectMapper.readTree(lines[0]).get("name").asText());
+        assertEquals("Second", objectMapper.readTree(lines[1]).get("name").asText());
+    }
+
     @Test
     void getTasksByUserId_ReturnsTasks_WhenValidInput() throws Exception {
         Long userId = 1L;
@@ -152,6 +384,66 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Sample Task"));
     }
 
+    @Test
+    void getTasksByUserId_ReturnsPage_WhenSizeProvided() throws Exception {
+        Long userId = 1L;
+
+        TaskResponseDTO task = new TaskResponseDTO();
+        task.setId(11L);
+
+        when(taskService.getTasksByUserId(userId, 10L, 20)).thenReturn(List.of(task));
+
+        mockMvc.perform(get("/projects/tasks/user/" + userId)
+                        .param("afterId", "10")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(11));
+    }
+
+    @Test
+    void getTasksByUserId_ReturnsBadRequest_WhenSizeIsOutOfBounds() throws Exception {
+        mockMvc.perform(get("/projects/tasks/user/1").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/tasks/user/1").param("size", "-5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/tasks/user/1").param("size", "100000"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    void searchTasks_SearchesTheProjectsOfTheUser_AndRequiresAUser() throws Exception {
+        TaskResponseDTO task = new TaskResponseDTO();
+        task.setId(11L);
+        task.setName("Fix login bug");
+
+        when(taskService.searchTasks(1L, "login", 20)).thenReturn(List.of(task));
+
+        mockMvc.perform(get("/projects/search")
+                        .param("q", "login")
+                        .param("userId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Fix login bug"));
+        mockMvc.perform(get("/projects/search").param("q", "login"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchTasks_ReturnsBadRequest_WhenSizeIsOutOfBounds() throws Exception {
+        mockMvc.perform(get("/projects/search")
+                        .param("q", "login")
+                        .param("userId", "1")
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/search")
+                        .param("q", "login")
+                        .param("userId", "1")
+                        .param("size", "101"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(taskService);
+    }
+
     @Test
     void getTasksByStatus_ReturnsTasks_WhenValidStatus() throws Exception {
         Long projectId = 1L;
@@ -168,6 +460,45 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Sample Task"));
     }
 
+    @Test
+    void getTasksByStatus_IsCachedUntilTheProjectChanges() throws Exception {
+        TaskResponseDTO task = new TaskResponseDTO();
+        task.setName("Sample Task");
+        when(taskService.getTasksByStatusETag(TaskStatus.TODO, 1L)).thenReturn("a1", "a1", "b2");
+        when(taskService.getTasksByStatus(TaskStatus.TODO, 1L)).thenReturn(List.of(task));
+
+        mockMvc.perform(get("/projects/1/tasks/status/TODO"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"a1\""));
+        mockMvc.perform(get("/projects/1/tasks/status/TODO").header("If-None-Match", "\"a1\""))
+                .andExpect(status().isNotModified());
+        verify(taskService, times(2)).getTasksByStatusETag(TaskStatus.TODO, 1L);
+
+        // A task of the project changed: the tag is read again and the list reloaded
+        responseCache.evict(1L);
+        mockMvc.perform(get("/projects/1/tasks/status/TODO").header("If-None-Match", "\"a1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"b2\""))
+                .andExpect(jsonPath("$[0].name").value("Sample Task"));
+        verify(taskService, times(2)).getTasksByStatus(TaskStatus.TODO, 1L);
+    }
+
+    @Test
+    void getTasksByStatus_StaysCached_WhenAnotherProjectChanges() throws Exception {
+        when(taskService.getTasksByStatusETag(TaskStatus.TODO, 1L)).thenReturn("a1");
+        when(taskService.getTasksByStatusETag(TaskStatus.TODO, 2L)).thenReturn("c3");
+        when(taskService.getTasksByStatus(eq(TaskStatus.TODO), any())).thenReturn(List.of());
+
+        mockMvc.perform(get("/projects/1/tasks/status/TODO")).andExpect(status().isOk());
+        mockMvc.perform(get("/projects/2/tasks/status/TODO")).andExpect(status().isOk());
+        responseCache.evict(2L);
+        mockMvc.perform(get("/projects/1/tasks/status/TODO")).andExpect(status().isOk());
+        mockMvc.perform(get("/projects/2/tasks/status/TODO")).andExpect(status().isOk());
+
+        verify(taskService, times(1)).getTasksByStatus(TaskStatus.TODO, 1L);
+        verify(taskService, times(2)).getTasksByStatus(TaskStatus.TODO, 2L);
+    }
+
     @Test
     void updateTaskStatus_UpdatesStatus_WhenValidInput() throws Exception {
         Long projectId = 1L;
@@ -178,7 +509,7 @@ class TaskControllerTest {
         TaskResponseDTO updatedTask = new TaskResponseDTO();
         updatedTask.setStatus(TaskStatus.IN_PROGRESS);
 
-        when(taskService.updateTaskStatus(taskId, projectId, userId, "IN_PROGRESS")).thenReturn(updatedTask);
+        when(taskService.updateTaskStatus(taskId, projectId, userId, "IN_PROGRESS", null)).thenReturn(updatedTask);
 
         mockMvc.perform(put("/projects/" + projectId + "/tasks/" + taskId + "/update-status/" + userId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -187,6 +518,153 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.status").value("IN_PROGRESS"));
     }
 
+    @Test
+    void updateTaskStatus_PassesIfMatchVersion_AndReturnsETag() throws Exception {
+        Long projectId = 1L;
+        Long taskId = 1L;
+        Long userId = 2L;
+
+        TaskResponseDTO updatedTask = new TaskResponseDTO();
+        updatedTask.setStatus(TaskStatus.COMPLETED);
+        updatedTask.setVersion(8L);
+
+        when(taskService.updateTaskStatus(taskId, projectId, userId, "COMPLETED", 7L)).thenReturn(updatedTask);
+
+        mockMvc.perform(put("/projects/" + projectId + "/tasks/" + taskId + "/update-status/" + userId)
+                        .header("If-Match", "W/\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("status", "COMPLETED"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"8\""))
+                .andExpect(jsonPath("$.version").value(8));
+    }
+
+    @Test
+    void getProjectStats_ReturnsCounters() throws Exception {
+        ProjectTaskStatsDTO stats = new ProjectTaskStatsDTO(1L, 3, Map.of(TaskStatus.TODO, 2L, TaskStatus.COMPLETED, 1L),
+                Map.of(Priority.HIGH, 3L), 1, 2, null);
+        when(taskService.getProjectStats(1L)).thenReturn(stats);
+
+        mockMvc.perform(get("/projects/1/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.byStatus.TODO").value(2))
+                .andExpect(jsonPath("$.byPriority.HIGH").value(3))
+                .andExpect(jsonPath("$.overdue").value(2));
+    }
+
+    @Test
+    void streamTaskEvents_ResumesAfterLastEventId_FromTheTaskHistory() throws Exception {
+        TaskChangedEvent missed = new TaskChangedEvent(43L, 1L, 7L, TaskChangedEvent.Type.STATUS_CHANGED, "status",
+                "TODO", "COMPLETED", 3L, null);
+        when(taskService.getTaskEventsSince(1L, 42L, 100)).thenReturn(List.of(missed));
+        when(taskEventBroker.subscribe(eq(1L), eq(42L), any())).thenAnswer(invocation -> {
+            BiFunction<Long, Integer, List<TaskChangedEvent>> history = invocation.getArgument(2);
+            SseEmitter emitter = new SseEmitter();
+            emitter.send(SseEmitter.event().id("43").name("STATUS_CHANGED").data(history.apply(42L, 100).get(0)));
+            emitter.complete();
+            return emitter;
+        });
+
+        AuthenticatedUser caller = new AuthenticatedUser(2L, "member", "member@example.com", List.of(Role.MEMBER));
+        when(projectRoleCache.getRole(1L, 2L)).thenReturn(Optional.of(Role.OBSERVER));
+
+        MvcResult result = mockMvc.perform(get("/projects/1/tasks/events")
+                        .header("Last-Event-ID", "42")
+                        .requestAttr(AuthenticatedUser.ATTRIBUTE, caller))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("id:43")))
+                .andExpect(content().string(containsString("\"newValue\":\"COMPLETED\"")));
+    }
+
+    @Test
+    void streamTaskEvents_IsReservedToTheMembersOfTheProject() throws Exception {
+        AuthenticatedUser outsider = new AuthenticatedUser(5L, "other", "other@example.com", List.of(Role.MEMBER));
+        when(projectRoleCache.getRole(1L, 5L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/projects/1/tasks/events"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/projects/1/tasks/events").requestAttr(AuthenticatedUser.ATTRIBUTE, outsider))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(taskEventBroker);
+    }
+
+    @Test
+    void patchTask_PassesPresentFieldsOnly_WithVersionFromBody() throws Exception {
+        Long projectId = 1L;
+        Long taskId = 1L;
+        Long userId = 2L;
+
+        TaskResponseDTO patchedTask = new TaskResponseDTO();
+        patchedTask.setPriority(Priority.HIGH);
+        patchedTask.setVersion(5L);
+
+        when(taskService.patchTask(eq(taskId), eq(projectId), eq(userId),
+                argThat(values -> values.getPriority() == Priority.HIGH && values.getName() == null),
+                eq(Set.of("priority", "completionDate")), eq(4L))).thenReturn(patchedTask);
+
+        mockMvc.perform(patch("/projects/" + projectId + "/tasks/" + taskId + "/update/" + userId)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"priority\":\"HIGH\",\"completionDate\":null,\"version\":4}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""))
+                .andExpect(jsonPath("$.priority").value("HIGH"));
+    }
+
+    @Test
+    void patchTask_ReturnsBadRequest_WhenPatchIsNotAnObject() throws Exception {
+        mockMvc.perform(patch("/projects/1/tasks/1/update/2")
+                        .contentType("application/merge-patch+json")
+                        .content("[\"name\"]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    void updateTask_RetriesOptimisticLockFailure_ThenReturnsConflict() throws Exception {
+        Long projectId = 1L;
+        Long taskId = 1L;
+        Long userId = 2L;
+
+        when(taskService.updateTask(eq(taskId), eq(projectId), eq(userId), any(Task.class), eq(3L)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Task.class, taskId));
+
+        mockMvc.perform(put("/projects/" + projectId + "/tasks/" + taskId + "/update/" + userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\",\"version\":3}"))
+                .andExpect(status().isConflict());
+
+        verify(taskService, times(5)).updateTask(eq(taskId), eq(projectId), eq(userId), any(Task.class), eq(3L));
+    }
+
+    @Test
+    void updateTaskStatuses_ReturnsOneResultPerChange() throws Exception {
+        Long projectId = 1L;
+        Long userId = 2L;
+        List<TaskStatusChangeDTO> changes = List.of(
+                new TaskStatusChangeDTO(10L, TaskStatus.COMPLETED),
+                new TaskStatusChangeDTO(99L, TaskStatus.COMPLETED));
+
+        when(taskService.updateTaskStatuses(eq(changes), eq(projectId), eq(userId))).thenReturn(List.of(
+                BulkItemResultDTO.ok(0, 10L),
+                BulkItemResultDTO.failed(1, 99L, "Task not found with id: 99")));
+
+        mockMvc.perform(put("/projects/" + projectId + "/tasks/" + userId + "/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(changes)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].taskId").value(99))
+                .andExpect(jsonPath("$[1].error").value("Task not found with id: 99"));
+    }
+
     @Test
     void getTaskHistory_ReturnsHistory_WhenHistoryExists() throws Exception {
         Long projectId = 1L;
@@ -194,7 +672,7 @@ class TaskControllerTest {
 
         List<TaskHistory> historyList = List.of(new TaskHistory());
 
-        when(taskHistoryRepository.findByTaskId(taskId)).thenReturn(historyList);
+        when(taskService.getTaskHistory(taskId)).thenReturn(historyList);
 
         mockMvc.perform(get("/projects/" + projectId + "/tasks/" + taskId + "/history"))
                 .andExpect(status().isOk());
@@ -205,9 +683,43 @@ class TaskControllerTest {
         Long projectId = 1L;
         Long taskId = 1L;
 
-        when(taskHistoryRepository.findByTaskId(taskId)).thenReturn(Collections.emptyList());
+        when(taskService.getTaskHistory(taskId)).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/projects/" + projectId + "/tasks/" + taskId + "/history"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void getTaskHistory_ReturnsPageAfterCursor_WhenSizeIsGiven() throws Exception {
+        TaskHistory change = new TaskHistory(8L, 1L, 2L, "status", "TODO", "COMPLETED",
+                LocalDateTime.of(2024, 5, 2, 10, 0), 3L);
+        when(taskService.getTaskHistory(1L, LocalDateTime.of(2024, 5, 1, 9, 30), 7L, 20)).thenReturn(List.of(change));
+
+        mockMvc.perform(get("/projects/1/tasks/1/history")
+                        .param("afterChangedAt", "2024-05-01T09:30:00")
+                        .param("afterId", "7")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(8))
+                .andExpect(jsonPath("$[0].fieldName").value("status"));
+
+        // Past the last page
+        when(taskService.getTaskHistory(1L, LocalDateTime.of(2024, 5, 2, 10, 0), 8L, 20)).thenReturn(List.of());
+        mockMvc.perform(get("/projects/1/tasks/1/history")
+                        .param("afterChangedAt", "2024-05-02T10:00:00")
+                        .param("afterId", "8")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void getTaskHistory_ReturnsBadRequest_WhenSizeIsOutOfBounds() throws Exception {
+        mockMvc.perform(get("/projects/1/tasks/1/history").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/projects/1/tasks/1/history").param("size", "100000"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(taskService);
+    }
 }
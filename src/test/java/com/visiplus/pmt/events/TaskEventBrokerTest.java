@@ -0,0 +1,161 @@
+package com.visiplus.pmt.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskEventBrokerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskEventBroker broker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        broker = new TaskEventBroker(2, 2, Duration.ofMinutes(1), 3, 3, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.shutdown();
+    }
+
+    @Test
+    void publish_SendsEventsInOrder_ToTheSubscribersOfTheirProjectOnly() throws Exception {
+        RecordingEmitter project1 = new RecordingEmitter();
+        RecordingEmitter project2 = new RecordingEmitter();
+        broker.subscribe(1L, project1, null, (after, limit) -> List.of());
+        broker.subscribe(2L, project2, null, (after, limit) -> List.of());
+
+        broker.publishAfterCommit(List.of(event(1L, 10L), event(1L, 11L)));
+
+        assertEquals(List.of(10L, 11L), project1.ids(2));
+        assertNull(project2.received.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(2, broker.subscriberCount());
+    }
+
+    @Test
+    void subscribe_ReplaysMissedEvents_WithoutSendingTheLiveOnesTwice() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // 6 and 7 are committed while the history is read: 6 is in the history, 7 is not yet
+        broker.subscribe(1L, emitter, 4L, (after, limit) -> {
+            broker.publish(event(1L, 6L));
+            broker.publish(event(1L, 7L));
+            return List.of(event(1L, 5L), event(1L, 6L));
+        });
+
+        assertEquals(List.of(5L, 6L, 7L), emitter.ids(3));
+        assertNull(emitter.received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void subscribe_SendsReset_WhenTooManyEventsWereMissed() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        broker.subscribe(1L, emitter, 1L,
+                (after, limit) -> List.of(event(1L, 2L), event(1L, 3L), event(1L, 4L), event(1L, 5L)));
+
+        assertEquals("reset", emitter.received.poll(5, TimeUnit.SECONDS));
+        assertNull(emitter.received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void publish_DropsSubscriber_WhoseBufferIsFull() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        broker.subscribe(1L, slow, null, (after, limit) -> List.of());
+
+        try {
+            broker.publish(event(1L, 1L));
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+            // The sender is stuck on the first event: two fill the buffer, the next one overflows it
+            for (long id = 2; id <= 4; id++) {
+                broker.publish(event(1L, id));
+            }
+        } finally {
+            release.countDown();
+        }
+
+        assertEquals(0, broker.subscriberCount());
+        assertEquals(1.0, meterRegistry.get("pmt.events.dropped").counter().count());
+
+        // The client reconnects and resumes after the last event it was sent
+        RecordingEmitter resumed = new RecordingEmitter();
+        broker.subscribe(1L, resumed, 1L, (after, limit) -> List.of(event(1L, 2L), event(1L, 3L), event(1L, 4L)));
+        broker.publish(event(1L, 5L));
+        assertEquals(List.of(2L, 3L, 4L, 5L), resumed.ids(4));
+    }
+
+    @Test
+    void subscribe_RejectsStreamsBeyondTheLimitOfTheProject() {
+        for (int i = 0; i < 3; i++) {
+            broker.subscribe(1L, new RecordingEmitter(), null, (after, limit) -> List.of());
+        }
+
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> broker.subscribe(1L, new RecordingEmitter(), null, (after, limit) -> List.of()));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        assertEquals(3, broker.subscriberCount());
+
+        // The limit is per project
+        broker.subscribe(2L, new RecordingEmitter(), null, (after, limit) -> List.of());
+        assertEquals(4, broker.subscriberCount());
+    }
+
+    private static TaskChangedEvent event(Long projectId, Long id) {
+        return new TaskChangedEvent(id, projectId, 1L, TaskChangedEvent.Type.UPDATED, "name", "old", "new", id, null);
+    }
+
+    // Keeps the ids of the events sent, and the resets
+    private static class RecordingEmitter extends SseEmitter {
+
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof TaskChangedEvent event) {
+                    received.add(event.id());
+                } else if (part.getData() instanceof String text && text.contains("event:reset")) {
+                    received.add("reset");
+                }
+            }
+        }
+
+        List<Long> ids(int count) throws InterruptedException {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Object id = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(id, "received " + ids);
+                ids.add((Long) id);
+            }
+            return ids;
+        }
+    }
+}
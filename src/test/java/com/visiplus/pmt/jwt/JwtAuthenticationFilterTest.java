@@ -0,0 +1,79 @@
+package com.visiplus.pmt.jwt;
+
+import com.visiplus.pmt.enums.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationFilterTest {
+
+    private JwtService jwtService;
+    private JwtBlacklistService jwtBlacklistService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService("secret", 60_000L, 100);
+        jwtBlacklistService = new JwtBlacklistService(new InMemoryRevokedTokenStore(), 60_000L, 100);
+        filter = new JwtAuthenticationFilter(jwtService, jwtBlacklistService, false);
+    }
+
+    @Test
+    void validToken_StoresPrincipalInRequest() throws Exception {
+        String token = jwtService.generateToken("alice@example.com", "alice", 7L, List.of(Role.MEMBER));
+        MockHttpServletRequest request = request("/projects/tasks/user/7", token);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        AuthenticatedUser caller = (AuthenticatedUser) request.getAttribute(AuthenticatedUser.ATTRIBUTE);
+        assertEquals(new AuthenticatedUser(7L, "alice", "alice@example.com", List.of(Role.MEMBER)), caller);
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void invalidOrRevokedToken_IsRejectedWithUnauthorized() throws Exception {
+        String token = jwtService.generateToken("alice@example.com", "alice", 7L, List.of(Role.MEMBER));
+        jwtBlacklistService.blacklistToken(token);
+
+        for (String sent : new String[]{"not-a-jwt", token}) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request("/projects/all", sent), response, chain);
+
+            assertEquals(401, response.getStatus());
+            assertNull(chain.getRequest());
+        }
+    }
+
+    @Test
+    void missingToken_PassesThroughUnlessAuthIsRequired() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("/projects/all", null), new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+
+        JwtAuthenticationFilter strictFilter = new JwtAuthenticationFilter(jwtService, jwtBlacklistService, true);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        strictFilter.doFilter(request("/projects/all", null), rejected, new MockFilterChain());
+        assertEquals(401, rejected.getStatus());
+
+        MockFilterChain loginChain = new MockFilterChain();
+        strictFilter.doFilter(request("/users/login", null), new MockHttpServletResponse(), loginChain);
+        assertNotNull(loginChain.getRequest());
+    }
+
+    private static MockHttpServletRequest request(String path, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,104 @@
+package com.visiplus.pmt.jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtBlacklistServiceTest {
+
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256("secret");
+
+    private InMemoryRevokedTokenStore store;
+    private JwtBlacklistService jwtBlacklistService;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRevokedTokenStore();
+        jwtBlacklistService = new JwtBlacklistService(store, 60_000, 1000);
+    }
+
+    @Test
+    void blacklistToken_RejectsOnlyThatToken() {
+        String revoked = token("alice", Instant.now().plusSeconds(60));
+        String other = token("bob", Instant.now().plusSeconds(60));
+
+        jwtBlacklistService.blacklistToken(revoked);
+
+        assertTrue(jwtBlacklistService.isTokenBlacklisted(revoked));
+        assertFalse(jwtBlacklistService.isTokenBlacklisted(other));
+        // Only the hash of the token is kept
+        assertEquals(64, store.findRevokedSince(Instant.EPOCH, Instant.now()).get(0).getTokenHash().length());
+    }
+
+    @Test
+    void purgeExpired_RemovesEntriesOnceTheTokenHasExpired() throws InterruptedException {
+        String shortLived = token("alice", Instant.now().plusMillis(1500));
+        String longLived = token("bob", Instant.now().plusSeconds(60));
+        jwtBlacklistService.blacklistToken(shortLived);
+        jwtBlacklistService.blacklistToken(longLived);
+
+        assertEquals(0, jwtBlacklistService.purgeExpired());
+        Thread.sleep(1600);
+
+        assertEquals(1, jwtBlacklistService.purgeExpired());
+        assertEquals(1, jwtBlacklistService.size());
+        assertFalse(jwtBlacklistService.isTokenBlacklisted(shortLived));
+        assertTrue(jwtBlacklistService.isTokenBlacklisted(longLived));
+        assertEquals(1, store.findRevokedSince(Instant.EPOCH, Instant.EPOCH).size());
+    }
+
+    @Test
+    void syncFromStore_SharesRevocationsBetweenNodes() {
+        JwtBlacklistService otherNode = new JwtBlacklistService(store, 60_000, 1000);
+        String token = token("alice", Instant.now().plusSeconds(60));
+
+        jwtBlacklistService.blacklistToken(token);
+        assertFalse(otherNode.isTokenBlacklisted(token));
+
+        otherNode.syncFromStore();
+        assertTrue(otherNode.isTokenBlacklisted(token));
+
+        // A restarted node loads the revocations still in force
+        JwtBlacklistService restarted = new JwtBlacklistService(store, 60_000, 1000);
+        restarted.loadRevokedTokens();
+        assertTrue(restarted.isTokenBlacklisted(token));
+    }
+
+    @Test
+    void blacklistToken_IsSafeUnderConcurrentRevocationsAndPurges() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String token = token("user" + i, Instant.now().plusSeconds(60));
+            futures.add(executor.submit(() -> {
+                jwtBlacklistService.blacklistToken(token);
+                if (token.hashCode() % 50 == 0) {
+                    jwtBlacklistService.purgeExpired();
+                }
+                return token;
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(2000, jwtBlacklistService.size());
+        for (Future<String> future : futures) {
+            assertTrue(jwtBlacklistService.isTokenBlacklisted(future.get()));
+        }
+    }
+
+    private static String token(String subject, Instant expiresAt) {
+        return JWT.create().withSubject(subject).withExpiresAt(expiresAt).sign(ALGORITHM);
+    }
+}
@@ -0,0 +1,52 @@
+package com.visiplus.pmt.jwt;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.visiplus.pmt.enums.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "test-secret";
+
+    @Test
+    void decodeToken_ReturnsCachedTokenOnRepeatedCalls() {
+        JwtService jwtService = new JwtService(SECRET, 60_000L, 100);
+        String token = jwtService.generateToken("alice@example.com", "alice", 1L, List.of(Role.ADMIN));
+
+        DecodedJWT first = jwtService.decodeToken(token);
+        DecodedJWT second = jwtService.decodeToken(token);
+
+        assertSame(first, second);
+        assertEquals(1L, second.getClaim("userId").asLong());
+    }
+
+    @Test
+    void decodeToken_RejectsTamperedPayloadReusingCachedSignature() {
+        JwtService jwtService = new JwtService(SECRET, 60_000L, 100);
+        String token = jwtService.generateToken("alice@example.com", "alice", 1L, List.of(Role.MEMBER));
+        jwtService.decodeToken(token);
+
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"mallory@example.com\",\"userId\":2}".getBytes());
+        String forged = parts[0] + "." + forgedPayload + "." + parts[2];
+
+        assertThrows(JWTVerificationException.class, () -> jwtService.decodeToken(forged));
+    }
+
+    @Test
+    void decodeToken_WithoutCache_VerifiesEveryCall() {
+        JwtService jwtService = new JwtService(SECRET, 60_000L, 0);
+        String token = jwtService.generateToken("alice@example.com", "alice", 1L, List.of(Role.MEMBER));
+
+        assertNotSame(jwtService.decodeToken(token), jwtService.decodeToken(token));
+        assertThrows(JWTVerificationException.class,
+                () -> new JwtService("other-secret", 60_000L, 100).decodeToken(token));
+    }
+}
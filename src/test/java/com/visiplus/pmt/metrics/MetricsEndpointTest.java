@@ -0,0 +1,50 @@
+package com.visiplus.pmt.metrics;
+
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.jwt.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.observations.annotations.enabled=true",
+        "management.metrics.data.repository.autotime.percentiles-histogram=true",
+        "pmt.mail.outbox.enabled=false",
+        "jwt.expiration=60000"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void prometheusEndpoint_ExposesServiceRepositoryAndSqlMetrics() throws Exception {
+        String token = jwtService.generateToken("user@example.com", "user", 1L, List.of(Role.MEMBER));
+        mockMvc.perform(get("/projects/all").header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("pmt_service_seconds_bucket{class=\"com.visiplus.pmt.service.impl.ProjectServiceImpl\",exception=\"none\",method=\"getAllProjects\"")
+                .contains("spring_data_repository_invocations_seconds_bucket{")
+                .contains("pmt_http_sql_statements_count{method=\"GET\",uri=\"/projects/all\"} 1")
+                .contains("pmt_jwt_verify_seconds_count{class=\"com.visiplus.pmt.jwt.JwtService\",exception=\"none\",method=\"decodeToken\"} 1");
+    }
+}
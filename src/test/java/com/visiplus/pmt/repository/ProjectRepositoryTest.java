@@ -0,0 +1,96 @@
+package com.visiplus.pmt.repository;
+
+import com.visiplus.pmt.dto.ProjectSummaryDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ProjectRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Test
+    void findProjectsByUserId_ReturnsEachProjectOnce() {
+        AppUser owner = persistUser("owner");
+        AppUser member = persistUser("member");
+        for (int i = 0; i < 3; i++) {
+            Project project = persistProject("Project " + i, owner);
+            persistMember(project, member, Role.MEMBER);
+            for (int j = 0; j < 3; j++) {
+                persistMember(project, persistUser("other" + i + "-" + j), Role.OBSERVER);
+            }
+        }
+        persistProject("Not shared", persistUser("stranger"));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(3, projectRepository.findProjectsByUserId(owner.getId()).size());
+        assertEquals(3, projectRepository.findProjectsByUserId(member.getId()).size());
+    }
+
+    @Test
+    void findProjectSummariesByUserId_CountsMembersAndOpenTasksAndPaginates() {
+        AppUser owner = persistUser("owner");
+        AppUser member = persistUser("member");
+        Project first = persistProject("First", owner);
+        persistMember(first, member, Role.OBSERVER);
+        persistTask(first, TaskStatus.TODO);
+        persistTask(first, TaskStatus.IN_PROGRESS);
+        persistTask(first, TaskStatus.COMPLETED);
+        Project second = persistProject("Second", owner);
+        Project third = persistProject("Third", owner);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<ProjectSummaryDTO> firstPage = projectRepository.findProjectSummariesByUserId(owner.getId(), 0L, PageRequest.ofSize(2));
+        List<ProjectSummaryDTO> secondPage = projectRepository.findProjectSummariesByUserId(owner.getId(),
+                firstPage.get(1).getId(), PageRequest.ofSize(2));
+        List<ProjectSummaryDTO> memberView = projectRepository.findProjectSummariesByUserId(member.getId(), 0L, PageRequest.ofSize(10));
+
+        assertEquals(List.of(first.getId(), second.getId()), firstPage.stream().map(ProjectSummaryDTO::getId).toList());
+        assertEquals(List.of(third.getId()), secondPage.stream().map(ProjectSummaryDTO::getId).toList());
+        ProjectSummaryDTO summary = firstPage.get(0);
+        assertEquals(Role.ADMIN, summary.getRole());
+        assertEquals(2, summary.getMemberCount());
+        assertEquals(2, summary.getOpenTaskCount());
+        assertEquals(1, memberView.size());
+        assertEquals(Role.OBSERVER, memberView.get(0).getRole());
+    }
+
+    private AppUser persistUser(String username) {
+        return entityManager.persist(new AppUser(null, username, username + "@example.com", "password", null));
+    }
+
+    private Project persistProject(String name, AppUser owner) {
+        Project project = entityManager.persist(new Project(null, name, "Description", LocalDate.now(), owner, null));
+        persistMember(project, owner, Role.ADMIN);
+        return project;
+    }
+
+    private void persistMember(Project project, AppUser member, Role role) {
+        entityManager.persist(new ProjectMemberRole(project, member, role));
+    }
+
+    private void persistTask(Project project, TaskStatus status) {
+        entityManager.persist(new Task(null, "Task", "Description", LocalDate.now(), Priority.LOW, project, null, null, status));
+    }
+}
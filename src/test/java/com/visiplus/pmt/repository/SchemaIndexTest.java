@@ -0,0 +1,80 @@
+package com.visiplus.pmt.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the SQL behind each hot repository lookup, against the schema built by the Flyway
+ * migrations, and checks the plan goes through the index meant for it.
+ * Tables are seeded and analyzed first so the H2 planner compares indexes on real statistics.
+ * The schema is also validated against the entity mappings.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        // ANALYZE commits, so the rows are written once and kept for every case of this class
+        Integer seeded = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email LIKE 'schema-index-%'", Integer.class);
+        if (seeded != null && seeded > 0) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO users (username, email, password) " +
+                "SELECT 'user' || X, 'schema-index-' || X || '@example.com', 'password' FROM SYSTEM_RANGE(1, 200)");
+        jdbcTemplate.update("INSERT INTO projects (name, user_id) " +
+                "SELECT 'Project ' || X, (SELECT MIN(id) FROM users) + MOD(X, 200) FROM SYSTEM_RANGE(1, 50)");
+        jdbcTemplate.update("INSERT INTO project_member_roles (project_id, user_id, role) " +
+                "SELECT p.id, u.id, 'MEMBER' FROM projects p JOIN users u ON MOD(u.id, 10) = MOD(p.id, 10)");
+        jdbcTemplate.update("INSERT INTO tasks (name, description, due_date, priority, project_id, assignee_id, status) " +
+                "SELECT 'Task', 'Description', DATEADD('DAY', MOD(X, 365), DATE '2024-01-01'), 'LOW', " +
+                "(SELECT MIN(id) FROM projects) + MOD(X, 50), (SELECT MIN(id) FROM users) + MOD(X, 200), " +
+                "CASEWHEN(MOD(X, 4) = 0, 'COMPLETED', 'TODO') FROM SYSTEM_RANGE(1, 5000)");
+        jdbcTemplate.update("INSERT INTO task_history (id, task_id, project_id, field_code, changed_at) " +
+                "SELECT X, X / 5, 1 + MOD(X / 5, 50), 6, DATEADD('MINUTE', X, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(1, 5000)");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = ';', value = {
+            "AppUserRepository.findByEmail; SELECT * FROM users WHERE email = 'a@example.com'; UK_USERS_EMAIL",
+            "ProjectMemberRoleRepository.findByMemberId; SELECT * FROM project_member_roles WHERE user_id = 1; (UK_PROJECT_MEMBER_ROLES_USER_PROJECT|FK_PROJECT_MEMBER_ROLES_USER)",
+            "ProjectMemberRoleRepository.findByProjectIdAndMemberId; SELECT * FROM project_member_roles WHERE project_id = 1 AND user_id = 2; UK_PROJECT_MEMBER_ROLES_USER_PROJECT",
+            "ProjectMemberRoleRepository.findByProjectId; SELECT * FROM project_member_roles WHERE project_id = 1; FK_PROJECT_MEMBER_ROLES_PROJECT",
+            "Projects owned by a user; SELECT * FROM projects WHERE user_id = 1; FK_PROJECTS_OWNER",
+            "TaskRepository.findByProjectIdAndStatus; SELECT * FROM tasks WHERE project_id = 1 AND status = 'TODO'; IDX_TASKS_PROJECT_STATUS",
+            "TaskRepository.findTasksByProjectId (next page); SELECT * FROM tasks WHERE project_id = 1 AND (DATE '2024-06-01' IS NULL OR (due_date >= DATE '2024-06-01' AND (due_date > DATE '2024-06-01' OR id > 5))) ORDER BY due_date, id; IDX_TASKS_PROJECT_DUE_DATE",
+            "Tasks assigned to a user; SELECT * FROM tasks WHERE assignee_id = 1; FK_TASKS_ASSIGNEE",
+            "TaskHistoryRepository.findByTaskId; SELECT * FROM task_history WHERE task_id = 1; IDX_TASK_HISTORY_TASK",
+            "TaskHistoryRepository.findTaskHistoryPage (next page); SELECT * FROM task_history WHERE task_id = 1 AND (changed_at >= TIMESTAMP '2024-01-01 00:05:00' AND (changed_at > TIMESTAMP '2024-01-01 00:05:00' OR id > 5)) ORDER BY changed_at, id; IDX_TASK_HISTORY_TASK_CHANGED_AT",
+            "TaskHistoryRepository.findIdsChangedBefore; SELECT id FROM task_history WHERE changed_at < TIMESTAMP '2024-01-01 01:00:00' ORDER BY changed_at, id; IDX_TASK_HISTORY_CHANGED_AT",
+            "TaskHistoryRepository.findProjectHistoryAfter; SELECT * FROM task_history WHERE project_id = 1 AND id > 100 AND task_id IS NOT NULL ORDER BY id; IDX_TASK_HISTORY_PROJECT_ID",
+            "TaskHistoryRepository.findProjectActivityPage (next page); SELECT * FROM task_history WHERE project_id = 1 AND (changed_at <= TIMESTAMP '2024-01-02 00:00:00' AND (changed_at < TIMESTAMP '2024-01-02 00:00:00' OR id < 1440)) ORDER BY changed_at DESC, id DESC; IDX_TASK_HISTORY_PROJECT_CHANGED_AT",
+            "TaskHistoryArchiveRepository.findProjectActivityPage; SELECT * FROM task_history_archive WHERE project_id = 1 ORDER BY changed_at DESC, id DESC; IDX_TASK_HISTORY_ARCHIVE_PROJECT_CHANGED_AT",
+            "TaskHistoryArchiveRepository.findTaskHistoryPage; SELECT * FROM task_history_archive WHERE task_id = 1 ORDER BY changed_at, id; IDX_TASK_HISTORY_ARCHIVE_TASK_CHANGED_AT",
+            "EmailOutboxRepository due emails; SELECT * FROM email_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= CURRENT_TIMESTAMP ORDER BY id; IDX_EMAIL_OUTBOX_STATUS_NEXT_ATTEMPT",
+            "EmailOutboxRepository.findDigestCandidates; SELECT * FROM email_outbox WHERE status = 'PENDING' AND recipient IN ('a', 'b') AND (attempts = 0 OR next_attempt_at <= CURRENT_TIMESTAMP) ORDER BY id; IDX_EMAIL_OUTBOX_RECIPIENT_STATUS",
+            "EmailOutboxRepository.findByClaimTokenOrderByIdAsc; SELECT * FROM email_outbox WHERE claim_token = 'a' ORDER BY id; IDX_EMAIL_OUTBOX_CLAIM_TOKEN",
+            "RevokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter; SELECT * FROM revoked_tokens WHERE revoked_at > CURRENT_TIMESTAMP AND expires_at > CURRENT_TIMESTAMP; IDX_REVOKED_TOKENS_(REVOKED|EXPIRES)_AT",
+            "RevokedTokenRepository.deleteExpired; DELETE FROM revoked_tokens WHERE expires_at <= CURRENT_TIMESTAMP; IDX_REVOKED_TOKENS_EXPIRES_AT"
+    })
+    void queryPlanUsesIndex(String lookup, String sql, String index) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+        assertTrue(Pattern.compile("/\\* PUBLIC\\." + index).matcher(plan).find(),
+                () -> lookup + " does not use " + index + ":\n" + plan);
+    }
+}
@@ -0,0 +1,150 @@
+package com.visiplus.pmt.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.visiplus.pmt.config.SecondLevelCacheConfiguration;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.enums.Role;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.cache.CacheManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads of users, projects and memberships against the second-level cache: repeated reads issue no statement,
+ * writes are seen by the next read, and regions stay within their maximum size.
+ * Not transactional, so that every write is committed and reaches the cache.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "pmt.cache.second-level.users.maximum-size=3"
+})
+@Import(SecondLevelCacheConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ProjectMemberRoleRepository projectMemberRoleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager secondLevelCacheManager;
+
+    @Autowired
+    private MeterBinder secondLevelCacheMetrics;
+
+    private Statistics statistics;
+    private AppUser owner;
+    private Project project;
+    private ProjectMemberRole membership;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = appUserRepository.save(new AppUser(null, "owner", "owner@example.com", "password", null));
+        project = projectRepository.save(new Project(null, "Project", "Description", null, owner, null));
+        membership = projectMemberRoleRepository.save(new ProjectMemberRole(project, owner, Role.ADMIN));
+        statistics.clear();
+    }
+
+    // Rows inserted with an identity id are cached by their first read
+    private void readOnce() {
+        appUserRepository.findById(owner.getId());
+        projectRepository.findById(project.getId());
+        projectMemberRoleRepository.findById(membership.getId());
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        projectMemberRoleRepository.deleteAll();
+        projectRepository.deleteAll();
+        appUserRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedReads_AreServedFromTheCache() {
+        readOnce();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("owner", appUserRepository.findById(owner.getId()).orElseThrow().getUsername());
+            assertEquals("Project", projectRepository.findById(project.getId()).orElseThrow().getName());
+            assertEquals(Role.ADMIN, projectMemberRoleRepository.findById(membership.getId()).orElseThrow().getRole());
+        }
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(9, statistics.getSecondLevelCacheHitCount());
+
+        // The first lookup by email runs the query, the next ones reuse its result
+        for (int i = 0; i < 3; i++) {
+            assertEquals(owner.getId(), appUserRepository.findByEmail("owner@example.com").orElseThrow().getId());
+        }
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void writes_AreSeenByTheNextRead() {
+        readOnce();
+        appUserRepository.findByEmail("owner@example.com");
+        AppUser renamed = appUserRepository.findById(owner.getId()).orElseThrow();
+        renamed.setUsername("renamed");
+        appUserRepository.save(renamed);
+        appUserRepository.save(new AppUser(null, "other", "other@example.com", "password", null));
+        statistics.clear();
+
+        assertEquals("renamed", appUserRepository.findById(owner.getId()).orElseThrow().getUsername());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // The users table changed: the cached lookup result is stale and read again
+        assertTrue(appUserRepository.findByEmail("other@example.com").isPresent());
+        assertEquals("renamed", appUserRepository.findByEmail("owner@example.com").orElseThrow().getUsername());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void regions_AreBounded_AndCountTheirEvictions() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        secondLevelCacheMetrics.bindTo(registry);
+        FunctionCounter evictions = registry.get("cache.evictions").tag("cache", AppUser.CACHE_REGION).functionCounter();
+        Cache<?, ?> users = secondLevelCacheManager.getCache(AppUser.CACHE_REGION).unwrap(Cache.class);
+        users.invalidateAll();
+        double evictedBefore = evictions.count();
+
+        // Five users read into a region of three
+        for (int i = 0; i < 5; i++) {
+            Long id = appUserRepository.save(new AppUser(null, "user" + i, "user" + i + "@example.com", "password", null)).getId();
+            appUserRepository.findById(id);
+        }
+        users.cleanUp();
+        assertEquals(3, users.estimatedSize());
+
+        // Evictions are counted by a listener running on another thread
+        for (int i = 0; i < 50 && evictions.count() - evictedBefore < 2; i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(evictions.count() - evictedBefore >= 2);
+    }
+}
@@ -0,0 +1,52 @@
+package com.visiplus.pmt.repository;
+
+import com.visiplus.pmt.entity.TaskHistory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+class TaskHistoryRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskHistoryRepository taskHistoryRepository;
+
+    @Test
+    void saveAll_InsertsHistoryRowsOfOneUpdateInOneBatch() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        // Warm up the pooled id generator so the measured update needs no id allocation
+        taskHistoryRepository.save(new TaskHistory(null, 1L, 1L, "name", "a", "b", LocalDateTime.now()));
+        entityManager.flush();
+        statistics.clear();
+
+        List<TaskHistory> changes = new ArrayList<>();
+        for (String field : List.of("name", "description", "dueDate", "completionDate", "priority", "status")) {
+            changes.add(new TaskHistory(null, 2L, 1L, field, "old", "new", LocalDateTime.now()));
+        }
+        taskHistoryRepository.saveAll(changes);
+        entityManager.flush();
+
+        assertEquals(6, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getPrepareStatementCount(), "The six inserts should share one batched statement");
+        assertTrue(changes.stream().allMatch(change -> change.getId() != null));
+    }
+}
@@ -0,0 +1,216 @@
+package com.visiplus.pmt.repository;
+
+import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TaskRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findTaskFeedByUserId_UsesOneStatement_WhateverTheProjectCount() {
+        AppUser user = persistUser("member");
+        AppUser assignee = persistUser("assignee");
+
+        // Query count must stay the same as the number of projects grows
+        for (int projectCount : new int[]{1, 10, 50}) {
+            for (int i = 0; i < projectCount; i++) {
+                Project project = persistProject("Project " + projectCount + "-" + i, user);
+                persistTask("Task " + i, project, i % 2 == 0 ? assignee : null);
+            }
+            entityManager.flush();
+            entityManager.clear();
+            statistics.clear();
+
+            List<TaskResponseDTO> tasks = taskRepository.findTaskFeedByUserId(user.getId(), 0L, Pageable.unpaged());
+
+            assertFalse(tasks.isEmpty());
+            assertEquals(1, statistics.getPrepareStatementCount(),
+                    "Expected a single statement for " + projectCount + " projects");
+            assertNotNull(tasks.get(0).getProject().getName());
+            assertNotNull(tasks.get(0).getAssignee());
+        }
+    }
+
+    @Test
+    void findTaskFeedByUserId_PaginatesByTaskId() {
+        AppUser user = persistUser("member");
+        AppUser outsider = persistUser("outsider");
+        Project project = persistProject("Mine", user);
+        Project otherProject = persistProject("Not mine", outsider);
+        for (int i = 0; i < 5; i++) {
+            persistTask("Task " + i, project, null);
+            persistTask("Other " + i, otherProject, null);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TaskResponseDTO> firstPage = taskRepository.findTaskFeedByUserId(user.getId(), 0L, PageRequest.ofSize(3));
+        Long lastId = firstPage.get(firstPage.size() - 1).getId();
+        List<TaskResponseDTO> secondPage = taskRepository.findTaskFeedByUserId(user.getId(), lastId, PageRequest.ofSize(3));
+
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertTrue(secondPage.stream().allMatch(task -> task.getId() > lastId));
+        assertTrue(secondPage.stream().allMatch(task -> task.getProject().getName().equals("Mine")));
+    }
+
+    @Test
+    void findTasksByProjectId_AppliesFiltersAndDueDateCursor() {
+        AppUser user = persistUser("member");
+        AppUser assignee = persistUser("assignee");
+        Project project = persistProject("Board", user);
+        LocalDate today = LocalDate.now();
+        Task first = persistTask("First", project, assignee, today, Priority.HIGH);
+        Task second = persistTask("Second", project, assignee, today, Priority.HIGH);
+        persistTask("Low", project, assignee, today.plusDays(1), Priority.LOW);
+        Task third = persistTask("Third", project, null, today.plusDays(2), Priority.HIGH);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TaskResponseDTO> highPriority = taskRepository.findTasksByProjectId(project.getId(), TaskStatus.TODO,
+                Priority.HIGH, null, null, 0L, Pageable.unpaged());
+        List<TaskResponseDTO> afterFirst = taskRepository.findTasksByProjectId(project.getId(), null,
+                Priority.HIGH, null, today, first.getId(), PageRequest.ofSize(10));
+        List<TaskResponseDTO> assigned = taskRepository.findTasksByProjectId(project.getId(), null,
+                null, assignee.getId(), null, 0L, Pageable.unpaged());
+
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()),
+                highPriority.stream().map(TaskResponseDTO::getId).toList());
+        assertEquals(List.of(second.getId(), third.getId()),
+                afterFirst.stream().map(TaskResponseDTO::getId).toList());
+        assertEquals(3, assigned.size());
+    }
+
+    @Test
+    void findTasksByProjectId_WalksEveryTaskOnce_WithTheDueDateAndIdOfTheLastRow() {
+        AppUser user = persistUser("member");
+        Project project = persistProject("Board", user);
+        LocalDate today = LocalDate.now();
+        // Several tasks share each due date, so pages end in the middle of a tie
+        for (int i = 0; i < 10; i++) {
+            persistTask("Task " + i, project, null, today.plusDays(i % 3), Priority.LOW);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TaskResponseDTO> all = taskRepository.findTasksByProjectId(project.getId(), null, null, null, null, 0L, Pageable.unpaged());
+        List<TaskResponseDTO> walked = new ArrayList<>();
+        List<TaskResponseDTO> page = taskRepository.findTasksByProjectId(project.getId(), null, null, null, null, 0L, PageRequest.ofSize(4));
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            TaskResponseDTO last = page.get(page.size() - 1);
+            page = taskRepository.findTasksByProjectId(project.getId(), null, null, null, last.getDueDate(), last.getId(),
+                    PageRequest.ofSize(4));
+        }
+
+        assertEquals(10, walked.size());
+        assertEquals(all, walked);
+    }
+
+    @Test
+    void streamTasksByProjectId_ReturnsSameRowsAsList() {
+        AppUser user = persistUser("member");
+        Project project = persistProject("Board", user);
+        for (int i = 0; i < 20; i++) {
+            persistTask("Task " + i, project, null);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TaskResponseDTO> listed = taskRepository.findTasksByProjectId(project.getId(), null, null, null, null, 0L, Pageable.unpaged());
+        List<TaskResponseDTO> streamed;
+        try (Stream<TaskResponseDTO> stream = taskRepository.streamTasksByProjectId(project.getId(), null, null, null, null, 0L)) {
+            streamed = stream.toList();
+        }
+
+        assertEquals(20, streamed.size());
+        assertEquals(listed, streamed);
+    }
+
+    @Test
+    void findVersions_ReadTheTagsOfTheTasksInIdOrder() {
+        AppUser user = persistUser("member");
+        Project project = persistProject("Board", user);
+        Project otherProject = persistProject("Other", user);
+        Task first = persistTask("First", project, null);
+        Task second = persistTask("Second", project, null);
+        Task other = persistTask("Other", otherProject, null);
+        entityManager.flush();
+
+        assertEquals(List.of(first.getId() + ":0", second.getId() + ":0"),
+                taskRepository.findVersionsByProjectIdAndStatus(project.getId(), TaskStatus.TODO));
+        assertEquals(List.of(), taskRepository.findVersionsByProjectIdAndStatus(project.getId(), TaskStatus.COMPLETED));
+
+        // Each write bumps the version, so the tag of the task and of its list change
+        first.setName("First, renamed");
+        entityManager.flush();
+        assertEquals(Optional.of(1L), taskRepository.findVersionByIdAndProjectId(first.getId(), project.getId()));
+        assertEquals(first.getId() + ":1", taskRepository.findVersionsByProjectIdAndStatus(project.getId(), TaskStatus.TODO).get(0));
+        assertEquals(Optional.empty(), taskRepository.findVersionByIdAndProjectId(other.getId(), project.getId()));
+    }
+
+    private AppUser persistUser(String username) {
+        AppUser user = new AppUser(null, username, username + "@example.com", "password", null);
+        return entityManager.persist(user);
+    }
+
+    private Project persistProject(String name, AppUser owner) {
+        Project project = new Project();
+        project.setName(name);
+        project.setOwner(owner);
+        entityManager.persist(project);
+
+        ProjectMemberRole memberRole = new ProjectMemberRole();
+        memberRole.setProject(project);
+        memberRole.setMember(owner);
+        memberRole.setRole(Role.ADMIN);
+        entityManager.persist(memberRole);
+        return project;
+    }
+
+    private Task persistTask(String name, Project project, AppUser assignee) {
+        return persistTask(name, project, assignee, LocalDate.now(), Priority.MEDIUM);
+    }
+
+    private Task persistTask(String name, Project project, AppUser assignee, LocalDate dueDate, Priority priority) {
+        Task task = new Task(null, name, "Description", dueDate, priority, project, assignee, null, TaskStatus.TODO);
+        return entityManager.persist(task);
+    }
+}
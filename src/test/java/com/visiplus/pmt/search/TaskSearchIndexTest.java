@@ -0,0 +1,183 @@
+package com.visiplus.pmt.search;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
+import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.events.TaskEventBroker;
+import com.visiplus.pmt.repository.TaskRepository;
+import com.visiplus.pmt.service.EmailService;
+import com.visiplus.pmt.service.TaskService;
+import com.visiplus.pmt.service.impl.ProjectTaskStatsRecorder;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import com.visiplus.pmt.service.impl.TaskServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Task search against the database and an in-memory index: fields searched, ranking, scope of the caller's
+ * projects and updates applied once the write commits.
+ */
+@DataJpaTest
+@Import({TaskSearchIndex.class, SimpleMeterRegistry.class, TaskServiceImpl.class, TaskHistoryRecorder.class,
+        ProjectTaskStatsRecorder.class})
+class TaskSearchIndexTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @MockBean
+    private ProjectRoleCache projectRoleCache;
+
+    @MockBean
+    private ProjectActivityCache projectActivityCache;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private TaskEventBroker taskEventBroker;
+
+    @MockBean
+    private ResponseCache responseCache;
+
+    private AppUser alice;
+    private AppUser bob;
+    private Project website;
+
+    @BeforeEach
+    void setUp() {
+        alice = entityManager.persist(new AppUser(null, "alice", "alice@example.com", "password", null));
+        bob = entityManager.persist(new AppUser(null, "bob", "bob@example.com", "password", null));
+        website = project("Website", alice);
+        Project mobile = project("Mobile", bob);
+
+        task("Fix login bug", "Crash when the form is submitted", website, null);
+        task("Write release notes", "Mention the login fix", website, bob);
+        task("Login screen redesign", "New colors", mobile, bob);
+        entityManager.flush();
+
+        when(projectRoleCache.getRole(any(), any())).thenReturn(Optional.of(Role.ADMIN));
+        assertEquals(3, taskSearchIndex.rebuild());
+    }
+
+    @Test
+    void searchTasks_MatchesEveryField_InTheProjectsOfTheUserOnly() {
+        // Name matches rank before description matches; the Mobile task is not in Alice's projects
+        assertEquals(List.of("Fix login bug", "Write release notes"), names(taskService.searchTasks(alice.getId(), "Login", 10)));
+        assertEquals(List.of("Fix login bug"), names(taskService.searchTasks(alice.getId(), "crash", 10)));
+        assertEquals(List.of("Write release notes"), names(taskService.searchTasks(alice.getId(), "bob", 10)));
+        assertEquals(2, taskService.searchTasks(alice.getId(), "website", 10).size());
+
+        // Every word must match, the last one as a prefix
+        assertEquals(List.of("Fix login bug"), names(taskService.searchTasks(alice.getId(), "login cra", 10)));
+        assertEquals(List.of(), taskService.searchTasks(alice.getId(), "login colors", 10));
+        assertEquals(List.of("Login screen redesign"), names(taskService.searchTasks(bob.getId(), "login", 10)));
+        assertEquals(List.of(), taskService.searchTasks(alice.getId(), "  ", 10));
+    }
+
+    @Test
+    void taskWrites_AreIndexedOnceCommitted() {
+        Long taskId = taskService.createTask(new Task(null, "Deploy to staging", "Description", LocalDate.now(),
+                Priority.LOW, null, null, null, TaskStatus.TODO), website.getId(), alice.getId()).getId();
+        assertEquals(List.of(), taskService.searchTasks(alice.getId(), "staging", 10));
+
+        commit();
+        assertEquals(List.of(taskId), taskService.searchTasks(alice.getId(), "staging", 10).stream()
+                .map(TaskResponseDTO::getId).toList());
+
+        // Renamed: found under its new name only
+        Task renamed = new Task(null, "Deploy to production", "Description", LocalDate.now(), Priority.LOW, null, null, null, TaskStatus.TODO);
+        taskService.updateTask(taskId, website.getId(), alice.getId(), renamed, null);
+        commit();
+        assertEquals(List.of(), taskService.searchTasks(alice.getId(), "staging", 10));
+        assertEquals(1, taskService.searchTasks(alice.getId(), "production", 10).size());
+        assertEquals(4, taskSearchIndex.documentCount());
+    }
+
+    @Test
+    void rebuildIfNeeded_RebuildsAnIndexThatWasNotClosedCleanly(@TempDir Path directory) throws IOException {
+        Path marker = directory.resolve(TaskSearchIndex.UNCLEAN_SHUTDOWN_MARKER);
+        TaskSearchIndex first = new TaskSearchIndex(taskRepository, directory.toString(), 100, false, new SimpleMeterRegistry());
+        first.rebuildIfNeeded();
+        assertEquals(3, first.documentCount());
+        first.close();
+        assertFalse(Files.exists(marker));
+
+        // Closed cleanly: the index is kept as is
+        task("Deploy to staging", "Description", website, null);
+        entityManager.flush();
+        TaskSearchIndex second = new TaskSearchIndex(taskRepository, directory.toString(), 100, false, new SimpleMeterRegistry());
+        assertTrue(Files.exists(marker));
+        second.rebuildIfNeeded();
+        assertEquals(3, second.documentCount());
+        second.close();
+
+        // A crash leaves the marker behind: the index is rebuilt and gets the task it missed
+        Files.createFile(marker);
+        TaskSearchIndex third = new TaskSearchIndex(taskRepository, directory.toString(), 100, false, new SimpleMeterRegistry());
+        third.rebuildIfNeeded();
+        assertEquals(4, third.documentCount());
+        third.close();
+    }
+
+    // Runs what the registered synchronizations do after a commit; the test transaction itself is rolled back
+    private void commit() {
+        entityManager.flush();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private Project project(String name, AppUser member) {
+        Project project = entityManager.persist(new Project(null, name, "Description", null, member, null));
+        ProjectMemberRole memberRole = new ProjectMemberRole();
+        memberRole.setProject(project);
+        memberRole.setMember(member);
+        memberRole.setRole(Role.ADMIN);
+        entityManager.persist(memberRole);
+        return project;
+    }
+
+    private void task(String name, String description, Project project, AppUser assignee) {
+        entityManager.persist(new Task(null, name, description, LocalDate.now(), Priority.LOW, project, assignee, null, TaskStatus.TODO));
+    }
+
+    private static List<String> names(List<TaskResponseDTO> tasks) {
+        return tasks.stream().map(TaskResponseDTO::getName).toList();
+    }
+}
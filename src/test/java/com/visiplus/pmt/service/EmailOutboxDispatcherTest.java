@@ -0,0 +1,253 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.entity.EmailOutbox;
+import com.visiplus.pmt.enums.EmailStatus;
+import com.visiplus.pmt.repository.EmailOutboxRepository;
+import com.visiplus.pmt.service.impl.EmailOutboxDispatcher;
+import com.visiplus.pmt.service.impl.EmailServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class EmailOutboxDispatcherTest {
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    private FakeMailSender mailSender;
+
+    private EmailServiceImpl emailService;
+
+    private EmailOutboxDispatcher dispatcher;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        mailSender = new FakeMailSender();
+        // No coalescing delay, so queued emails are due right away
+        emailService = new EmailServiceImpl(mailSender, emailOutboxRepository, Duration.ZERO, meterRegistry);
+        dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, mailSender, 100, 3, Duration.ofSeconds(30),
+                Duration.ofMinutes(5), meterRegistry);
+    }
+
+    @Test
+    void queueTaskAssignmentEmail_OnlyWritesOutboxRow() {
+        emailService.queueTaskAssignmentEmail("member@example.com", "New Task Assigned: A", "Body A");
+
+        assertEquals(0, mailSender.sendCalls);
+        EmailOutbox queued = emailOutboxRepository.findAll().iterator().next();
+        assertEquals(EmailStatus.PENDING, queued.getStatus());
+        assertEquals("member@example.com", queued.getRecipient());
+    }
+
+    @Test
+    void queueTaskAssignmentEmail_CutsTheSubject_OfATaskWithTheLongestName() {
+        String taskName = "x".repeat(255);
+
+        emailService.queueTaskAssignmentEmail("member@example.com", "New Task Assigned: " + taskName, "Body");
+
+        EmailOutbox queued = emailOutboxRepository.findAll().iterator().next();
+        assertEquals(255, queued.getSubject().length());
+        assertTrue(queued.getSubject().startsWith("New Task Assigned: xxx"));
+        assertTrue(queued.getSubject().endsWith("…"));
+    }
+
+    @Test
+    void dispatchPending_CoalescesEmailsPerRecipient_InOneSendCall() {
+        for (int i = 0; i < 30; i++) {
+            emailService.queueTaskAssignmentEmail("busy@example.com", "New Task Assigned: " + i, "Body " + i);
+        }
+        emailService.queueTaskAssignmentEmail("other@example.com", "New Task Assigned: X", "Body X");
+
+        int processed = dispatcher.dispatchPending();
+
+        assertEquals(31, processed);
+        assertEquals(1, mailSender.sendCalls);
+        assertEquals(2, mailSender.sent.size());
+
+        SimpleMailMessage digest = mailSender.sent.get(0);
+        assertArrayEquals(new String[]{"busy@example.com"}, digest.getTo());
+        assertEquals("30 New Tasks Assigned", digest.getSubject());
+        assertTrue(digest.getText().contains("Body 29"));
+        assertEquals("New Task Assigned: X", mailSender.sent.get(1).getSubject());
+
+        emailOutboxRepository.findAll().forEach(email -> assertEquals(EmailStatus.SENT, email.getStatus()));
+        assertEquals(0, dispatcher.dispatchPending());
+    }
+
+    @Test
+    void dispatchPending_LeavesEmailsForLater_DuringCoalescingWindow() {
+        EmailServiceImpl delayedEmailService = new EmailServiceImpl(mailSender, emailOutboxRepository, Duration.ofMinutes(1), meterRegistry);
+        delayedEmailService.queueTaskAssignmentEmail("member@example.com", "Subject", "Body");
+
+        assertEquals(0, dispatcher.dispatchPending());
+        assertEquals(0, mailSender.sendCalls);
+    }
+
+    @Test
+    void dispatchPending_RetriesWithBackoff_ThenGivesUp() {
+        mailSender.failingRecipient = "down@example.com";
+        emailService.queueTaskAssignmentEmail("down@example.com", "Subject", "Body");
+        emailService.queueTaskAssignmentEmail("up@example.com", "Subject", "Body");
+
+        dispatcher.dispatchPending();
+
+        Map<String, EmailOutbox> byRecipient = new HashMap<>();
+        emailOutboxRepository.findAll().forEach(email -> byRecipient.put(email.getRecipient(), email));
+        EmailOutbox failed = byRecipient.get("down@example.com");
+        assertEquals(EmailStatus.SENT, byRecipient.get("up@example.com").getStatus());
+        assertEquals(EmailStatus.PENDING, failed.getStatus());
+        assertEquals(1, failed.getAttempts());
+        assertTrue(failed.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(20)));
+
+        // Not due yet: nothing is sent again
+        assertEquals(0, dispatcher.dispatchPending());
+
+        for (int attempt = 2; attempt <= 3; attempt++) {
+            failed.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+            emailOutboxRepository.save(failed);
+            dispatcher.dispatchPending();
+            failed = emailOutboxRepository.findById(failed.getId()).orElseThrow();
+            assertEquals(attempt, failed.getAttempts());
+        }
+        assertEquals(EmailStatus.FAILED, failed.getStatus());
+
+        assertEquals(1, meterRegistry.get("pmt.email.messages").tag("mode", "outbox").tag("result", "sent").counter().count());
+        assertEquals(3, meterRegistry.get("pmt.email.messages").tag("mode", "outbox").tag("result", "failed").counter().count());
+        assertEquals(3, meterRegistry.get("pmt.email.send").tag("mode", "outbox").timer().count());
+    }
+
+    @Test
+    void dispatchPending_LeavesEmailsInBackoff_OutOfTheDigest() {
+        mailSender.failingRecipient = "down@example.com";
+        emailService.queueTaskAssignmentEmail("down@example.com", "First", "Body");
+        dispatcher.dispatchPending();
+
+        // The recipient is back, but the failed email waits for its retry
+        mailSender.failingRecipient = null;
+        emailService.queueTaskAssignmentEmail("down@example.com", "Second", "Body");
+        assertEquals(1, dispatcher.dispatchPending());
+        assertEquals("Second", mailSender.sent.get(0).getSubject());
+
+        EmailOutbox failed = bySubject("First");
+        assertEquals(EmailStatus.PENDING, failed.getStatus());
+        assertEquals(1, failed.getAttempts());
+        assertEquals(0, dispatcher.dispatchPending());
+    }
+
+    @Test
+    void dispatchPending_CapsTheDigest_AtTheBatchSize() {
+        EmailOutboxDispatcher smallBatches = new EmailOutboxDispatcher(emailOutboxRepository, mailSender, 5, 3,
+                Duration.ofSeconds(30), Duration.ofMinutes(5), meterRegistry);
+        for (int i = 0; i < 12; i++) {
+            emailService.queueTaskAssignmentEmail("busy@example.com", "New Task Assigned: " + i, "Body " + i);
+        }
+
+        assertEquals(5, smallBatches.dispatchPending());
+        assertEquals(5, smallBatches.dispatchPending());
+        assertEquals(2, smallBatches.dispatchPending());
+        assertEquals(List.of("5 New Tasks Assigned", "5 New Tasks Assigned", "2 New Tasks Assigned"),
+                mailSender.sent.stream().map(SimpleMailMessage::getSubject).toList());
+    }
+
+    @Test
+    void dispatchPending_SendsOnlyTheRowsItClaimed_UntilAnotherClaimExpires() {
+        emailService.queueTaskAssignmentEmail("a@example.com", "For A", "Body");
+        emailService.queueTaskAssignmentEmail("b@example.com", "For B", "Body");
+        EmailOutbox forA = bySubject("For A");
+
+        // Another node claimed the email of A and is sending it
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(1, emailOutboxRepository.claim(List.of(forA.getId()), "other-node", now, now.plusMinutes(5)));
+        assertEquals(0, emailOutboxRepository.claim(List.of(forA.getId()), "third-node", now, now.plusMinutes(5)));
+
+        assertEquals(1, dispatcher.dispatchPending());
+        assertEquals(List.of("For B"), mailSender.sent.stream().map(SimpleMailMessage::getSubject).toList());
+        assertEquals(0, dispatcher.dispatchPending());
+
+        // That node stopped: once its claim expired, the email is sent here
+        forA = emailOutboxRepository.findById(forA.getId()).orElseThrow();
+        assertEquals(EmailStatus.SENDING, forA.getStatus());
+        forA.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        emailOutboxRepository.save(forA);
+
+        assertEquals(1, dispatcher.dispatchPending());
+        assertEquals("For A", mailSender.sent.get(1).getSubject());
+        EmailOutbox sent = emailOutboxRepository.findById(forA.getId()).orElseThrow();
+        assertEquals(EmailStatus.SENT, sent.getStatus());
+        assertNull(sent.getClaimToken());
+    }
+
+    private EmailOutbox bySubject(String subject) {
+        for (EmailOutbox email : emailOutboxRepository.findAll()) {
+            if (email.getSubject().equals(subject)) {
+                return email;
+            }
+        }
+        throw new AssertionError("No email with subject " + subject);
+    }
+
+    /**
+     * In-memory JavaMailSender recording what would have been sent.
+     */
+    private static class FakeMailSender implements JavaMailSender {
+
+        private final List<SimpleMailMessage> sent = new ArrayList<>();
+        private int sendCalls;
+        private String failingRecipient;
+
+        @Override
+        public void send(SimpleMailMessage... simpleMessages) throws MailException {
+            sendCalls++;
+            Map<Object, Exception> failures = new LinkedHashMap<>();
+            for (SimpleMailMessage message : simpleMessages) {
+                if (message.getTo() != null && Arrays.asList(message.getTo()).contains(failingRecipient)) {
+                    failures.put(message, new IllegalStateException("Mailbox unavailable"));
+                } else {
+                    sent.add(message);
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new MailSendException(failures);
+            }
+        }
+
+        @Override
+        public MimeMessage createMimeMessage() {
+            return new MimeMessage((Session) null);
+        }
+
+        @Override
+        public MimeMessage createMimeMessage(java.io.InputStream contentStream) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void send(MimeMessage... mimeMessages) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void send(MimeMessagePreparator... mimeMessagePreparators) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.events.TaskEventBroker;
+import com.visiplus.pmt.repository.TaskHistoryRepository;
+import com.visiplus.pmt.search.TaskSearchIndex;
+import com.visiplus.pmt.service.impl.ProjectServiceImpl;
+import com.visiplus.pmt.service.impl.ProjectTaskStatsRecorder;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import com.visiplus.pmt.service.impl.TaskServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Activity feed of a project against the database: task and membership changes, pages across both history tiers,
+ * and the cached first page.
+ */
+@DataJpaTest
+@Import({ProjectServiceImpl.class, TaskServiceImpl.class, TaskHistoryRecorder.class, ProjectTaskStatsRecorder.class,
+        ProjectActivityCache.class, SimpleMeterRegistry.class})
+class ProjectActivityTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskHistoryRecorder taskHistoryRecorder;
+
+    @Autowired
+    private TaskHistoryRepository taskHistoryRepository;
+
+    @MockBean
+    private ProjectRoleCache projectRoleCache;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private TaskEventBroker taskEventBroker;
+
+    @MockBean
+    private TaskSearchIndex taskSearchIndex;
+
+    @MockBean
+    private ResponseCache responseCache;
+
+    private AppUser owner;
+    private Long projectId;
+    private Long taskId;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(new AppUser(null, "owner", "owner@example.com", "password", null));
+        AppUser member = entityManager.persist(new AppUser(null, "member", "member@example.com", "password", null));
+        projectId = projectService.createProject(new Project(null, "Project", "Description", null, null, null), owner.getId()).getId();
+        when(projectRoleCache.getRole(any(), any())).thenReturn(Optional.of(Role.ADMIN));
+
+        // Another project, whose activity must not show up
+        Long otherProjectId = projectService.createProject(new Project(null, "Other", "Description", null, null, null), owner.getId()).getId();
+        taskService.createTask(task("Other"), otherProjectId, owner.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        projectService.addMemberToProject(projectId, member.getEmail(), owner.getId());
+        taskId = taskService.createTask(task("First"), projectId, owner.getId()).getId();
+        taskService.createTask(task("Second"), projectId, owner.getId());
+        taskService.assignTaskToMember(taskId, projectId, member.getId(), owner.getId());
+        projectService.assignRoleToMember(projectId, member.getId(), Role.OBSERVER, owner.getId());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getProjectActivity_ReturnsTaskAndMembershipChanges_NewestFirst() {
+        List<TaskHistory> activity = projectService.getProjectActivity(projectId, null, null, 50);
+
+        assertEquals(List.of("memberRole", "assignee", "created", "created", "memberRole", "memberRole"),
+                activity.stream().map(TaskHistory::getFieldName).toList());
+        assertTrue(activity.stream().allMatch(row -> projectId.equals(row.getProjectId())));
+        assertEquals("MEMBER", activity.get(0).getOldValue());
+        assertEquals("OBSERVER", activity.get(0).getNewValue());
+        assertNull(activity.get(0).getTaskId());
+        // Whoever invited or promoted the member
+        assertEquals(owner.getId(), activity.get(0).getChangedBy());
+        assertEquals(owner.getId(), activity.get(4).getChangedBy());
+        assertEquals(taskId, activity.get(1).getTaskId());
+        // The owner joined first, as ADMIN
+        assertNull(activity.get(5).getOldValue());
+        assertEquals("ADMIN", activity.get(5).getNewValue());
+        assertEquals(owner.getId(), activity.get(5).getMemberId());
+    }
+
+    @Test
+    void getProjectActivity_WalksBothTiersInOrder() {
+        List<TaskHistory> all = taskHistoryRecorder.findProjectActivityPage(projectId, null, null, 50);
+        taskHistoryRecorder.archive(LocalDateTime.now().plusSeconds(1), 4);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TaskHistory> walked = new ArrayList<>();
+        List<TaskHistory> page = projectService.getProjectActivity(projectId, null, null, 4);
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            TaskHistory last = page.get(page.size() - 1);
+            page = projectService.getProjectActivity(projectId, last.getChangedAt(), last.getId(), 4);
+        }
+
+        assertEquals(all, walked);
+    }
+
+    @Test
+    void getProjectActivity_ServesFirstPageFromCache_UntilTheProjectChanges() {
+        List<TaskHistory> head = projectService.getProjectActivity(projectId, null, null, 3);
+        assertEquals(3, head.size());
+
+        // Written behind the recorder's back: the cached page does not see it
+        taskHistoryRepository.save(new TaskHistory(null, taskId, projectId, null, owner.getId(), "name", "First", "Renamed",
+                LocalDateTime.now(), null));
+        assertEquals(head, projectService.getProjectActivity(projectId, null, null, 3));
+        assertEquals(head.subList(0, 2), projectService.getProjectActivity(projectId, null, null, 2));
+
+        taskService.updateTaskStatus(taskId, projectId, owner.getId(), "COMPLETED", null);
+
+        List<TaskHistory> updated = projectService.getProjectActivity(projectId, null, null, 3);
+        assertEquals(List.of("status", "name", "memberRole"), updated.stream().map(TaskHistory::getFieldName).toList());
+    }
+
+    private static Task task(String name) {
+        return new Task(null, name, "Description", LocalDate.now().plusDays(10), Priority.LOW, null, null, null, TaskStatus.TODO);
+    }
+}
@@ -0,0 +1,189 @@
+package com.visiplus.pmt.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
+import com.visiplus.pmt.dto.ProjectRowDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.repository.ProjectRepository;
+import com.visiplus.pmt.service.impl.ProjectServiceImpl;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements issued by each project endpoint, JSON rendering included,
+ * so a lazy association touched outside its entity graph shows up as a failure.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(ProjectServiceImpl.class)
+class ProjectFetchPlanTest {
+
+    private static final int PROJECT_COUNT = 3;
+    private static final int MEMBERS_PER_PROJECT = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @MockBean
+    private ProjectRoleCache projectRoleCache;
+
+    @MockBean
+    private ProjectActivityCache projectActivityCache;
+
+    @MockBean
+    private TaskHistoryRecorder taskHistoryRecorder;
+
+    @MockBean
+    private ResponseCache responseCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private Statistics statistics;
+    private AppUser owner;
+    private final List<Project> projects = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        owner = persistUser("owner");
+        for (int p = 0; p < PROJECT_COUNT; p++) {
+            Project project = new Project(null, "Project " + p, "Description", null, owner, null);
+            entityManager.persist(project);
+            persistMember(project, owner, Role.ADMIN);
+            for (int m = 1; m < MEMBERS_PER_PROJECT; m++) {
+                persistMember(project, persistUser("member" + p + "-" + m), Role.MEMBER);
+            }
+            projects.add(project);
+        }
+        persistUser("invitee");
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllProjects_ReadsProjectsOwnersAndMembersInOneStatement() throws Exception {
+        List<Project> all = projectService.getAllProjects();
+        objectMapper.writeValueAsString(all);
+
+        assertEquals(PROJECT_COUNT, all.size());
+        assertEquals(MEMBERS_PER_PROJECT, all.get(0).getMembersWithRoles().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllProjects_KeysetPage_ReadsIdsThenProjectsWithMembers() throws Exception {
+        List<Project> page = projectService.getAllProjects(projects.get(0).getId(), 2);
+        objectMapper.writeValueAsString(page);
+
+        assertEquals(List.of(projects.get(1).getId(), projects.get(2).getId()), page.stream().map(Project::getId).toList());
+        assertEquals(MEMBERS_PER_PROJECT, page.get(0).getMembersWithRoles().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllProjects_OffsetPage_InitializesMembersOfThePageOnly() throws Exception {
+        Page<Project> page = projectService.getAllProjects(PageRequest.of(1, 2, Sort.by("id")));
+        objectMapper.writeValueAsString(page.getContent());
+
+        assertEquals(PROJECT_COUNT, page.getTotalElements());
+        assertEquals(List.of(projects.get(2).getId()), page.map(Project::getId).getContent());
+        // page, then owners and members of the page (no count query on the last page)
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void streamAllProjects_WritesFlatRowsInIdOrder() {
+        List<ProjectRowDTO> rows = new ArrayList<>();
+        projectService.streamAllProjects(rows::add);
+
+        assertEquals(projects.stream().map(Project::getId).toList(), rows.stream().map(ProjectRowDTO::getId).toList());
+        assertEquals("owner", rows.get(0).getOwnerUsername());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getProjectsByUserId_ReadsProjectsOwnersAndMembersInOneStatement() throws Exception {
+        List<Project> owned = projectService.getProjectsByUserId(owner.getId());
+        objectMapper.writeValueAsString(owned);
+
+        assertEquals(PROJECT_COUNT, owned.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getProjectMembers_ReadsMembershipsAndUsersInOneStatement() {
+        assertEquals(MEMBERS_PER_PROJECT, projectService.getProjectMembers(projects.get(0).getId()).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void addMemberToProject_LoadsMembersWithTheProject() throws Exception {
+        Project project = projectService.addMemberToProject(projects.get(0).getId(), "invitee@example.com", null);
+        objectMapper.writeValueAsString(project);
+
+        // project with members, invitee, existing membership check, insert
+        assertEquals(MEMBERS_PER_PROJECT + 1, project.getMembersWithRoles().size());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void createProject_DoesNotLoadAnyMembership() throws Exception {
+        Project created = projectService.createProject(new Project(null, "New", "Description", null, null, null), owner.getId());
+        objectMapper.writeValueAsString(created);
+
+        // owner, project insert, owner membership insert, and the lookup saving the task stats row does
+        // (the row is assigned its project id; its insert waits for the flush)
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void summaryAndOwnerGraphs_LeaveOtherAssociationsLazy() {
+        Project summary = projectRepository.findSummaryById(projects.get(0).getId()).orElseThrow();
+        assertFalse(Hibernate.isInitialized(summary.getMembersWithRoles()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        entityManager.clear();
+
+        Project withOwner = projectService.getProjectById(projects.get(1).getId());
+        assertTrue(Hibernate.isInitialized(withOwner.getOwner()));
+        assertFalse(Hibernate.isInitialized(withOwner.getMembersWithRoles()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private AppUser persistUser(String username) {
+        return entityManager.persist(new AppUser(null, username, username + "@example.com", "password", null));
+    }
+
+    private void persistMember(Project project, AppUser member, Role role) {
+        entityManager.persist(new ProjectMemberRole(project, member, role));
+    }
+}
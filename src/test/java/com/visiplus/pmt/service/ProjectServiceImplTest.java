@@ -1,5 +1,8 @@
 package com.visiplus.pmt.service;
 
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
 import com.visiplus.pmt.dto.MemberDTO;
 import com.visiplus.pmt.entity.AppUser;
 import com.visiplus.pmt.entity.Project;
@@ -9,7 +12,9 @@ import com.visiplus.pmt.exception.UserNotFoundException;
 import com.visiplus.pmt.repository.AppUserRepository;
 import com.visiplus.pmt.repository.ProjectMemberRoleRepository;
 import com.visiplus.pmt.repository.ProjectRepository;
+import com.visiplus.pmt.repository.ProjectTaskStatsRepository;
 import com.visiplus.pmt.service.impl.ProjectServiceImpl;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -34,6 +39,21 @@ class ProjectServiceImplTest {
     @Mock
     private ProjectMemberRoleRepository projectMemberRoleRepository;
 
+    @Mock
+    private ProjectRoleCache projectRoleCache;
+
+    @Mock
+    private ProjectTaskStatsRepository projectTaskStatsRepository;
+
+    @Mock
+    private TaskHistoryRecorder taskHistoryRecorder;
+
+    @Mock
+    private ProjectActivityCache projectActivityCache;
+
+    @Mock
+    private ResponseCache responseCache;
+
     @InjectMocks
     private ProjectServiceImpl projectService;
 
@@ -70,17 +90,19 @@ class ProjectServiceImplTest {
         newUser.setId(2L);
         newUser.setEmail(email);
 
-        when(projectRepository.findById(projectId)).thenReturn(Optional.of(project));
+        when(projectRepository.findWithMembersById(projectId)).thenReturn(Optional.of(project));
         when(appUserRepository.findByEmail(email)).thenReturn(Optional.of(newUser));
         when(projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, newUser.getId())).thenReturn(Optional.empty());
 
         // Act
-        Project updatedProject = projectService.addMemberToProject(projectId, email);
+        Project updatedProject = projectService.addMemberToProject(projectId, email, 1L);
 
         // Assert
         assertTrue(updatedProject.getMembersWithRoles().stream()
                 .anyMatch(role -> role.getMember().equals(newUser) && role.getRole() == Role.MEMBER));
         verify(projectMemberRoleRepository, times(1)).save(any(ProjectMemberRole.class));
+        verify(projectRoleCache, times(1)).evict(projectId, newUser.getId());
+        verify(responseCache, times(1)).evict(projectId);
     }
 
 
@@ -106,11 +128,17 @@ class ProjectServiceImplTest {
         when(projectMemberRoleRepository.save(any(ProjectMemberRole.class))).thenReturn(memberRole);
 
         // Act
-        ProjectMemberRole updatedRole = projectService.assignRoleToMember(projectId, memberId, newRole);
+        ProjectMemberRole updatedRole = projectService.assignRoleToMember(projectId, memberId, newRole, 1L);
 
         // Assert
         assertEquals(newRole, updatedRole.getRole());
         verify(projectMemberRoleRepository, times(1)).save(memberRole);
+        verify(projectRoleCache, times(1)).evict(projectId, memberId);
+        // The role change is recorded in the activity of the project
+        verify(taskHistoryRecorder).record(argThat(rows -> rows.size() == 1
+                && memberId.equals(rows.get(0).getMemberId()) && projectId.equals(rows.get(0).getProjectId())
+                && "MEMBER".equals(rows.get(0).getOldValue()) && "ADMIN".equals(rows.get(0).getNewValue())
+                && Long.valueOf(1L).equals(rows.get(0).getChangedBy())));
     }
 
     @Test
@@ -148,4 +176,15 @@ class ProjectServiceImplTest {
         assertEquals("user@example.com", members.get(0).getEmail());
         verify(projectMemberRoleRepository, times(1)).findByProjectId(1L);
     }
+
+    @Test
+    void getProjectMembersETag_ChangesWhenAMemberJoins() {
+        when(projectMemberRoleRepository.findIdsByProjectId(1L)).thenReturn(List.of(1L, 2L));
+        String eTag = projectService.getProjectMembersETag(1L);
+        assertEquals(eTag, projectService.getProjectMembersETag(1L));
+
+        when(projectMemberRoleRepository.findIdsByProjectId(1L)).thenReturn(List.of(1L, 2L, 5L));
+        assertNotEquals(eTag, projectService.getProjectMembersETag(1L));
+        verify(projectMemberRoleRepository, never()).findByProjectId(any());
+    }
 }
@@ -0,0 +1,197 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
+import com.visiplus.pmt.dto.ProjectTaskStatsDTO;
+import com.visiplus.pmt.dto.TaskStatusChangeDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.ProjectTaskStats;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.events.TaskEventBroker;
+import com.visiplus.pmt.repository.ProjectRepository;
+import com.visiplus.pmt.repository.ProjectTaskStatsRepository;
+import com.visiplus.pmt.search.TaskSearchIndex;
+import com.visiplus.pmt.service.impl.ProjectServiceImpl;
+import com.visiplus.pmt.service.impl.ProjectTaskStatsReconciler;
+import com.visiplus.pmt.service.impl.ProjectTaskStatsRecorder;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import com.visiplus.pmt.service.impl.TaskServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-project task counters against the database: every task write keeps them equal to a recount of the tasks,
+ * and the reconciliation repairs the rows that drifted.
+ */
+@DataJpaTest
+@Import({TaskServiceImpl.class, TaskHistoryRecorder.class, ProjectTaskStatsRecorder.class, ProjectServiceImpl.class})
+class ProjectTaskStatsTest {
+
+    private static final LocalDate PAST = LocalDate.now().minusDays(10);
+    private static final LocalDate FUTURE = LocalDate.now().plusDays(10);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ProjectTaskStatsRepository projectTaskStatsRepository;
+
+    @Autowired
+    private ProjectTaskStatsRecorder projectTaskStatsRecorder;
+
+    @MockBean
+    private ProjectRoleCache projectRoleCache;
+
+    @MockBean
+    private ProjectActivityCache projectActivityCache;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private TaskEventBroker taskEventBroker;
+
+    @MockBean
+    private TaskSearchIndex taskSearchIndex;
+
+    @MockBean
+    private ResponseCache responseCache;
+
+    private AppUser user;
+    private Long projectId;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(new AppUser(null, "user", "user@example.com", "password", null));
+        projectId = projectService.createProject(new Project(null, "Project", "Description", null, null, null), user.getId()).getId();
+        entityManager.flush();
+        when(projectRoleCache.getRole(any(), any())).thenReturn(Optional.of(Role.ADMIN));
+    }
+
+    @Test
+    void taskWrites_KeepCountersEqualToARecount() {
+        assertEquals(0, stats().getTotal());
+
+        Long overdue = taskService.createTask(task("Overdue", PAST, Priority.HIGH), projectId, user.getId()).getId();
+        Long later = taskService.createTask(task("Later", FUTURE, Priority.LOW), projectId, user.getId()).getId();
+        taskService.createTasks(List.of(task("Bulk 1", PAST, Priority.MEDIUM), task("Bulk 2", FUTURE, Priority.MEDIUM)),
+                projectId, user.getId());
+        assertCountersMatchTasks();
+
+        taskService.assignTaskToMember(later, projectId, user.getId(), user.getId());
+        Task edited = task("Later", PAST, Priority.HIGH);
+        edited.setStatus(TaskStatus.IN_PROGRESS);
+        taskService.updateTask(later, projectId, user.getId(), edited, null);
+        taskService.updateTaskStatus(overdue, projectId, user.getId(), "COMPLETED", null);
+        taskService.updateTaskStatuses(List.of(new TaskStatusChangeDTO(later, TaskStatus.ON_HOLD)), projectId, user.getId());
+        assertCountersMatchTasks();
+
+        ProjectTaskStatsDTO stats = taskService.getProjectStats(projectId);
+        assertEquals(4, stats.getTotal());
+        assertEquals(2, stats.getByStatus().get(TaskStatus.TODO));
+        assertEquals(1, stats.getByStatus().get(TaskStatus.COMPLETED));
+        assertEquals(1, stats.getByStatus().get(TaskStatus.ON_HOLD));
+        assertEquals(2, stats.getByPriority().get(Priority.HIGH));
+        assertEquals(3, stats.getUnassigned());
+        // "Later" is now due in the past, "Overdue" is completed
+        assertEquals(2, stats.getOverdue());
+    }
+
+    @Test
+    void reconcile_RepairsDriftedAndMissingRows() {
+        taskService.createTask(task("Task", PAST, Priority.LOW), projectId, user.getId());
+        entityManager.flush();
+        entityManager.clear();
+        assertFalse(projectTaskStatsRecorder.reconcile(projectId));
+
+        // A counter that drifted, and a project created without a stats row
+        ProjectTaskStats drifted = projectTaskStatsRepository.findById(projectId).orElseThrow();
+        drifted.setTotal(42);
+        Project bare = projectRepository.save(new Project(null, "Bare", "Description", null, user, null));
+        entityManager.persist(task("Bare task", FUTURE, Priority.HIGH, bare));
+        entityManager.flush();
+        entityManager.clear();
+
+        ProjectTaskStatsReconciler reconciler = new ProjectTaskStatsReconciler(projectTaskStatsRecorder, projectRepository,
+                1, new SimpleMeterRegistry());
+        assertEquals(2, reconciler.reconcileAll());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, stats().getTotal());
+        assertNotNull(stats().getReconciledAt());
+        assertEquals(1, projectTaskStatsRepository.findById(bare.getId()).orElseThrow().getHighPriority());
+        assertEquals(0, reconciler.reconcileAll());
+    }
+
+    @Test
+    void getProjectStats_RecountsOverdueTasks_OnceTheDayChanged() {
+        taskService.createTask(task("Task", LocalDate.now().minusDays(1), Priority.LOW), projectId, user.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Counted two days ago, when the task was not due yet
+        ProjectTaskStats yesterday = projectTaskStatsRepository.findById(projectId).orElseThrow();
+        yesterday.setOverdue(0);
+        yesterday.setOverdueAsOf(LocalDate.now().minusDays(2));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, taskService.getProjectStats(projectId).getOverdue());
+        assertEquals(LocalDate.now(), stats().getOverdueAsOf());
+    }
+
+    @Test
+    void getProjectStats_Fails_WhenProjectDoesNotExist() {
+        assertThrows(RuntimeException.class, () -> taskService.getProjectStats(-1L));
+    }
+
+    private ProjectTaskStats stats() {
+        entityManager.flush();
+        entityManager.clear();
+        return projectTaskStatsRepository.findById(projectId).orElseThrow();
+    }
+
+    private void assertCountersMatchTasks() {
+        ProjectTaskStats stored = stats();
+        ProjectTaskStats counted = projectTaskStatsRepository.countTasks(projectId, stored.getOverdueAsOf());
+        counted.setReconciledAt(stored.getReconciledAt());
+        assertEquals(counted, stored);
+    }
+
+    private Task task(String name, LocalDate dueDate, Priority priority) {
+        return task(name, dueDate, priority, null);
+    }
+
+    private static Task task(String name, LocalDate dueDate, Priority priority, Project project) {
+        return new Task(null, name, "Description", dueDate, priority, project, null, null, TaskStatus.TODO);
+    }
+}
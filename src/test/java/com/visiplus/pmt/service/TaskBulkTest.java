@@ -0,0 +1,197 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
+import com.visiplus.pmt.dto.BulkItemResultDTO;
+import com.visiplus.pmt.dto.TaskStatusChangeDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.events.TaskChangedEvent;
+import com.visiplus.pmt.events.TaskEventBroker;
+import com.visiplus.pmt.repository.TaskHistoryRepository;
+import com.visiplus.pmt.repository.TaskRepository;
+import com.visiplus.pmt.search.TaskSearchIndex;
+import com.visiplus.pmt.service.impl.ProjectTaskStatsRecorder;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import com.visiplus.pmt.service.impl.TaskServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Bulk endpoints of TaskService against the database: one permission check, batched writes, per-item results.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.order_updates=true"
+})
+@Import({TaskServiceImpl.class, TaskHistoryRecorder.class, ProjectTaskStatsRecorder.class})
+class TaskBulkTest {
+
+    private static final int TASK_COUNT = 500;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskHistoryRepository taskHistoryRepository;
+
+    @MockBean
+    private ProjectRoleCache projectRoleCache;
+
+    @MockBean
+    private ProjectActivityCache projectActivityCache;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private TaskEventBroker taskEventBroker;
+
+    @MockBean
+    private TaskSearchIndex taskSearchIndex;
+
+    @MockBean
+    private ResponseCache responseCache;
+
+    private Statistics statistics;
+    private AppUser user;
+    private Project project;
+    private Project otherProject;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        user = entityManager.persist(new AppUser(null, "user", "user@example.com", "password", null));
+        project = entityManager.persist(new Project(null, "Project", "Description", null, user, null));
+        otherProject = entityManager.persist(new Project(null, "Other", "Description", null, user, null));
+        entityManager.flush();
+        entityManager.clear();
+        when(projectRoleCache.getRole(project.getId(), user.getId())).thenReturn(Optional.of(Role.MEMBER));
+        statistics.clear();
+    }
+
+    @Test
+    void createTasks_InsertsValidTasksInBatches_AndReportsInvalidOnes() {
+        List<Task> tasks = newTasks(TASK_COUNT);
+        tasks.get(10).setName(" ");
+        tasks.get(20).setDueDate(null);
+
+        List<BulkItemResultDTO> results = taskService.createTasks(tasks, project.getId(), user.getId());
+        entityManager.flush();
+
+        assertEquals(TASK_COUNT, results.size());
+        assertFalse(results.get(10).isSuccess());
+        assertEquals("Name is required", results.get(10).getError());
+        assertFalse(results.get(20).isSuccess());
+        assertTrue(results.get(499).isSuccess());
+        assertEquals(499, results.get(499).getIndex());
+        assertEquals(TASK_COUNT - 2, taskRepository.count());
+        assertEquals(TaskStatus.TODO, taskRepository.findById(results.get(0).getTaskId()).orElseThrow().getStatus());
+
+        verify(projectRoleCache, times(1)).getRole(project.getId(), user.getId());
+        // Batched rows share one prepared statement; without batching each of the 498 inserts would prepare its own
+        assertTrue(statistics.getPrepareStatementCount() <= 10,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateTaskStatuses_UpdatesInBatches_AndWritesOneHistoryRowPerChange() {
+        List<BulkItemResultDTO> created = taskService.createTasks(newTasks(TASK_COUNT), project.getId(), user.getId());
+        Task foreignTask = newTasks(1).get(0);
+        foreignTask.setProject(otherProject);
+        foreignTask.setStatus(TaskStatus.TODO);
+        entityManager.persist(foreignTask);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<TaskStatusChangeDTO> changes = new ArrayList<>();
+        for (BulkItemResultDTO result : created) {
+            changes.add(new TaskStatusChangeDTO(result.getTaskId(), TaskStatus.IN_PROGRESS));
+        }
+        changes.add(new TaskStatusChangeDTO(created.get(0).getTaskId(), TaskStatus.IN_PROGRESS));
+        changes.add(new TaskStatusChangeDTO(foreignTask.getId(), TaskStatus.COMPLETED));
+        changes.add(new TaskStatusChangeDTO(-1L, TaskStatus.COMPLETED));
+
+        List<BulkItemResultDTO> results = taskService.updateTaskStatuses(changes, project.getId(), user.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(TASK_COUNT + 3, results.size());
+        assertTrue(results.get(TASK_COUNT).isSuccess());
+        assertEquals("Task does not belong to this project", results.get(TASK_COUNT + 1).getError());
+        assertEquals("Task not found with id: -1", results.get(TASK_COUNT + 2).getError());
+        // a creation row per task, then the repeated change is a no-op: no second status row
+        assertEquals(2 * TASK_COUNT, taskHistoryRepository.count());
+        assertEquals(TaskStatus.IN_PROGRESS, taskRepository.findById(created.get(0).getTaskId()).orElseThrow().getStatus());
+        assertEquals(TaskStatus.TODO, taskRepository.findById(foreignTask.getId()).orElseThrow().getStatus());
+
+        // IN query and batched history INSERTs; the status UPDATEs are one JDBC batch of their own, not run by Hibernate
+        assertTrue(statistics.getPrepareStatementCount() <= 10,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getTaskEventsSince_ReadsTheHistoryOfTheProjectAfterAnEventId() {
+        when(projectRoleCache.getRole(otherProject.getId(), user.getId())).thenReturn(Optional.of(Role.MEMBER));
+        List<BulkItemResultDTO> created = taskService.createTasks(newTasks(3), project.getId(), user.getId());
+        taskService.createTasks(newTasks(2), otherProject.getId(), user.getId());
+        entityManager.flush();
+
+        List<TaskChangedEvent> events = taskService.getTaskEventsSince(project.getId(), 0L, 10);
+        assertEquals(3, events.size());
+        assertTrue(events.stream().allMatch(event -> event.type() == TaskChangedEvent.Type.CREATED && event.version() == 0));
+        assertEquals(created.get(0).getTaskId(), events.get(0).taskId());
+        verify(taskEventBroker).publishAfterCommit(argThat(published -> published.size() == 3
+                && published.stream().allMatch(event -> event.id() != null && event.projectId().equals(project.getId()))));
+
+        taskService.updateTaskStatuses(List.of(new TaskStatusChangeDTO(created.get(1).getTaskId(), TaskStatus.COMPLETED)),
+                project.getId(), user.getId());
+        entityManager.flush();
+
+        List<TaskChangedEvent> missed = taskService.getTaskEventsSince(project.getId(), events.get(2).id(), 10);
+        assertEquals(1, missed.size());
+        assertEquals(TaskChangedEvent.Type.STATUS_CHANGED, missed.get(0).type());
+        assertEquals("COMPLETED", missed.get(0).newValue());
+        assertEquals(2, taskService.getTaskEventsSince(project.getId(), 0L, 2).size());
+    }
+
+    private List<Task> newTasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Task(null, "Task " + i, "Description", LocalDate.of(2024, 1, 1).plusDays(i % 30),
+                    Priority.MEDIUM, null, null, null, null));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,122 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.repository.TaskHistoryArchiveRepository;
+import com.visiplus.pmt.repository.TaskHistoryRepository;
+import com.visiplus.pmt.service.impl.TaskHistoryArchiver;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Task history against the database: field codes, archiving of old rows and reads across both tiers.
+ */
+@DataJpaTest
+@Import(TaskHistoryRecorder.class)
+class TaskHistoryArchiveTest {
+
+    private static final long TASK_ID = 1L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskHistoryRecorder taskHistoryRecorder;
+
+    @Autowired
+    private TaskHistoryRepository taskHistoryRepository;
+
+    @Autowired
+    private TaskHistoryArchiveRepository taskHistoryArchiveRepository;
+
+    @MockBean
+    private ProjectActivityCache projectActivityCache;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @BeforeEach
+    void setUp() {
+        // Ten changes of the task, ten days apart from 100 days ago; the fifth and sixth share their timestamp
+        List<TaskHistory> changes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            LocalDateTime changedAt = now.minusDays(100 - 10L * Math.min(i, 4) - 10L * Math.max(i - 5, 0));
+            changes.add(new TaskHistory(null, TASK_ID, 2L, i % 2 == 0 ? "status" : "priority",
+                    "old " + i, "new " + i, changedAt, (long) i + 1));
+        }
+        changes.add(new TaskHistory(null, 2L, 2L, "name", "a", "b", now.minusDays(200), 1L));
+        taskHistoryRecorder.record(changes);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void record_StoresFieldNamesAsCodes() {
+        Object code = entityManager.getEntityManager()
+                .createNativeQuery("SELECT field_code FROM task_history WHERE task_id = 2").getSingleResult();
+
+        assertEquals(1, ((Number) code).intValue());
+        assertEquals("name", taskHistoryRepository.findByTaskId(2L).get(0).getFieldName());
+    }
+
+    @Test
+    void archiveAll_MovesOldRowsWithTheirIds_AndReadsReturnBothTiers() {
+        List<TaskHistory> before = taskHistoryRecorder.findTaskHistory(TASK_ID);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TaskHistoryArchiver archiver = new TaskHistoryArchiver(taskHistoryRecorder, Duration.ofDays(65), 2, meterRegistry);
+
+        assertEquals(5, archiver.archiveAll());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(4, taskHistoryArchiveRepository.findHistoryByTaskId(TASK_ID).size());
+        assertEquals(6, taskHistoryRepository.findByTaskId(TASK_ID).size());
+        assertEquals(5.0, meterRegistry.get("pmt.history.archived").counter().count());
+        assertEquals(before, taskHistoryRecorder.findTaskHistory(TASK_ID));
+        assertEquals(0, archiver.archiveAll());
+
+        // A stale update still sees the changes made since its version
+        List<TaskHistory> since = taskHistoryRecorder.findChangesAfterVersion(TASK_ID, 2L);
+        assertEquals(8, since.size());
+        assertEquals(3L, since.get(0).getTaskVersion());
+        assertEquals("status", since.get(0).getFieldName());
+    }
+
+    @Test
+    void findTaskHistoryPage_WalksBothTiersInOrder_WithTiedTimestamps() {
+        List<TaskHistory> all = taskHistoryRecorder.findTaskHistory(TASK_ID);
+        taskHistoryRecorder.archive(now.minusDays(65), 100);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TaskHistory> walked = new ArrayList<>();
+        List<TaskHistory> page = taskHistoryRecorder.findTaskHistoryPage(TASK_ID, null, null, 3);
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            TaskHistory last = page.get(page.size() - 1);
+            page = taskHistoryRecorder.findTaskHistoryPage(TASK_ID, last.getChangedAt(), last.getId(), 3);
+        }
+
+        assertEquals(10, walked.size());
+        for (int i = 1; i < walked.size(); i++) {
+            TaskHistory previous = walked.get(i - 1);
+            TaskHistory current = walked.get(i);
+            assertTrue(previous.getChangedAt().isBefore(current.getChangedAt())
+                    || previous.getChangedAt().equals(current.getChangedAt()) && previous.getId() < current.getId());
+        }
+        assertTrue(walked.containsAll(all));
+    }
+}
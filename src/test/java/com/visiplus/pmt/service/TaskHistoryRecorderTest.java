@@ -0,0 +1,89 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.repository.TaskHistoryArchiveRepository;
+import com.visiplus.pmt.repository.TaskHistoryRepository;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class TaskHistoryRecorderTest {
+
+    @Mock
+    private TaskHistoryRepository taskHistoryRepository;
+
+    @Mock
+    private TaskHistoryArchiveRepository taskHistoryArchiveRepository;
+
+    @Mock
+    private ProjectActivityCache projectActivityCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void record_SavesAllRowsInOneCall_WhenWriteBehindDisabled() {
+        TaskHistoryRecorder recorder = new TaskHistoryRecorder(taskHistoryRepository, taskHistoryArchiveRepository, projectActivityCache, transactionManager, false, 10, 10);
+
+        recorder.record(changes(3));
+
+        verify(taskHistoryRepository, times(1)).saveAll(argThat((List<TaskHistory> rows) -> rows.size() == 3));
+    }
+
+    @Test
+    void record_BuffersRowsUntilFlush_WhenWriteBehindEnabled() {
+        TaskHistoryRecorder recorder = new TaskHistoryRecorder(taskHistoryRepository, taskHistoryArchiveRepository, projectActivityCache, transactionManager, true, 100, 4);
+
+        recorder.record(changes(3));
+        recorder.record(changes(3));
+        verifyNoInteractions(taskHistoryRepository);
+
+        int flushed = recorder.flush();
+
+        assertEquals(6, flushed);
+        verify(taskHistoryRepository, times(1)).saveAll(argThat((List<TaskHistory> rows) -> rows.size() == 4));
+        verify(taskHistoryRepository, times(1)).saveAll(argThat((List<TaskHistory> rows) -> rows.size() == 2));
+        assertEquals(0, recorder.flush());
+    }
+
+    @Test
+    void record_SavesOverflowSynchronously_WhenQueueIsFull() {
+        TaskHistoryRecorder recorder = new TaskHistoryRecorder(taskHistoryRepository, taskHistoryArchiveRepository, projectActivityCache, transactionManager, true, 2, 10);
+
+        recorder.record(changes(5));
+
+        verify(taskHistoryRepository, times(1)).saveAll(argThat((List<TaskHistory> rows) -> rows.size() == 3));
+        // In a new transaction: the one of the caller has already committed
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        assertEquals(2, recorder.flush());
+        verify(taskHistoryRepository, times(2)).saveAll(anyList());
+    }
+
+    private static List<TaskHistory> changes(int count) {
+        List<TaskHistory> changes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            changes.add(new TaskHistory(null, 1L, 1L, "name", "old " + i, "new " + i, LocalDateTime.now()));
+        }
+        return changes;
+    }
+}
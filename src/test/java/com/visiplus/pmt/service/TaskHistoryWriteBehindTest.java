@@ -0,0 +1,72 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.repository.TaskHistoryRepository;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Write-behind task history against the database, with a queue of two rows: the rows that do not fit are
+ * saved once the caller's transaction has committed, the others by the next flush.
+ * Not transactional, so that the caller's transaction really commits.
+ */
+@DataJpaTest(properties = {
+        "pmt.history.write-behind.enabled=true",
+        "pmt.history.write-behind.capacity=2"
+})
+@Import(TaskHistoryRecorder.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskHistoryWriteBehindTest {
+
+    @Autowired
+    private TaskHistoryRecorder taskHistoryRecorder;
+
+    @Autowired
+    private TaskHistoryRepository taskHistoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ProjectActivityCache projectActivityCache;
+
+    @AfterEach
+    void tearDown() {
+        taskHistoryRecorder.flush();
+        taskHistoryRepository.deleteAll();
+    }
+
+    @Test
+    void record_SavesOverflowAfterTheCallerCommitted() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> taskHistoryRecorder.record(changes(5)));
+
+        // Two rows are buffered, the three others did not fit and are already saved
+        assertEquals(3, taskHistoryRepository.count());
+        assertEquals(2, taskHistoryRecorder.flush());
+        assertEquals(5, taskHistoryRepository.count());
+    }
+
+    private static List<TaskHistory> changes(int count) {
+        List<TaskHistory> changes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            changes.add(new TaskHistory(null, 1L, 1L, "name", "old " + i, "new " + i, LocalDateTime.now()));
+        }
+        return changes;
+    }
+}
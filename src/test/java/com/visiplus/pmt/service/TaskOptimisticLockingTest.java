@@ -0,0 +1,219 @@
+package com.visiplus.pmt.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.ProjectMemberRole;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.repository.AppUserRepository;
+import com.visiplus.pmt.repository.ProjectMemberRoleRepository;
+import com.visiplus.pmt.repository.ProjectRepository;
+import com.visiplus.pmt.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Concurrent task updates through the REST endpoints, against the database: versioned UPDATEs, field-level merge
+ * of stale updates and 409 on real conflicts, without any pessimistic lock.
+ */
+@SpringBootTest(properties = "pmt.mail.outbox.enabled=false")
+@AutoConfigureMockMvc
+class TaskOptimisticLockingTest {
+
+    private static final int UPDATES_PER_WRITER = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ProjectMemberRoleRepository projectMemberRoleRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private Long projectId;
+    private Long userId;
+    private Long taskId;
+
+    @BeforeEach
+    void setUp() {
+        AppUser user = appUserRepository.save(new AppUser(null, "writer", "writer" + System.nanoTime() + "@example.com", "password", null));
+        Project project = projectRepository.save(new Project(null, "Concurrency", "Optimistic locking", LocalDate.now(), user, new HashSet<>()));
+        projectMemberRoleRepository.save(new ProjectMemberRole(project, user, Role.ADMIN));
+        Task task = taskRepository.save(new Task(null, "Task", "Description", LocalDate.of(2024, 1, 1), Priority.LOW,
+                project, null, null, TaskStatus.TODO));
+        projectId = project.getId();
+        userId = user.getId();
+        taskId = task.getId();
+    }
+
+    @Test
+    void concurrentUpdatesOfDifferentFields_LoseNoUpdate() throws Exception {
+        List<String> fields = List.of("name", "description", "dueDate", "completionDate");
+        Map<String, Object> lastWritten = new ConcurrentHashMap<>();
+        AtomicInteger written = new AtomicInteger();
+        List<Integer> failures = Collections.synchronizedList(new ArrayList<>());
+        TaskResponseDTO initial = view();
+
+        ExecutorService executor = Executors.newFixedThreadPool(fields.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (String field : fields) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                // Each writer edits its own field from the last version it has seen, which other writers make stale
+                TaskResponseDTO seen = initial;
+                for (int i = 1; i <= UPDATES_PER_WRITER; i++) {
+                    Map<String, Object> body = body(seen);
+                    Object value = switch (field) {
+                        case "name" -> "Name " + i;
+                        case "description" -> "Description " + i;
+                        case "dueDate" -> LocalDate.of(2024, 1, 1).plusDays(i).toString();
+                        default -> LocalDate.of(2024, 6, 1).plusDays(i).toString();
+                    };
+                    body.put(field, value);
+
+                    MockHttpServletResponse response = update(body, seen.getVersion());
+                    if (response.getStatus() == 200) {
+                        seen = objectMapper.readValue(response.getContentAsString(), TaskResponseDTO.class);
+                        lastWritten.put(field, value);
+                        written.incrementAndGet();
+                    } else {
+                        failures.add(response.getStatus());
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Merges never conflict here; a writer of the hot row may only run out of retries, and is told so with a 409
+        assertTrue(failures.stream().allMatch(status -> status == 409), failures::toString);
+        assertEquals(fields.size() * UPDATES_PER_WRITER, written.get() + failures.size());
+
+        // Every acknowledged update is in the task: each field holds the last value its writer got a 200 for,
+        // and each 200 produced exactly one version
+        TaskResponseDTO task = view();
+        assertEquals(fields.size(), lastWritten.size());
+        assertEquals(lastWritten.get("name"), task.getName());
+        assertEquals(lastWritten.get("description"), task.getDescription());
+        assertEquals(lastWritten.get("dueDate"), task.getDueDate().toString());
+        assertEquals(lastWritten.get("completionDate"), task.getCompletionDate().toString());
+        assertEquals(initial.getVersion() + written.get(), task.getVersion());
+    }
+
+    @Test
+    void staleUpdateOfSameField_IsRejected_WhileOtherFieldsAreMerged() throws Exception {
+        TaskResponseDTO initial = view();
+
+        Map<String, Object> renamed = body(initial);
+        renamed.put("name", "Renamed");
+        assertEquals(200, update(renamed, initial.getVersion()).getStatus());
+
+        Map<String, Object> renamedAgain = body(initial);
+        renamedAgain.put("name", "Renamed again");
+        assertEquals(409, update(renamedAgain, initial.getVersion()).getStatus());
+
+        Map<String, Object> prioritized = body(initial);
+        prioritized.put("priority", Priority.HIGH.name());
+        MockHttpServletResponse response = update(prioritized, initial.getVersion());
+        assertEquals(200, response.getStatus());
+
+        TaskResponseDTO task = view();
+        assertEquals("Renamed", task.getName());
+        assertEquals(Priority.HIGH, task.getPriority());
+        assertEquals("\"" + task.getVersion() + "\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void staleStatusUpdate_IsMerged_UnlessStatusChangedConcurrently() throws Exception {
+        TaskResponseDTO initial = view();
+
+        Map<String, Object> renamed = body(initial);
+        renamed.put("name", "Renamed");
+        assertEquals(200, update(renamed, initial.getVersion()).getStatus());
+
+        assertEquals(200, updateStatus(TaskStatus.IN_PROGRESS, initial.getVersion()).getStatus());
+        assertEquals(409, updateStatus(TaskStatus.COMPLETED, initial.getVersion()).getStatus());
+
+        TaskResponseDTO task = view();
+        assertEquals("Renamed", task.getName());
+        assertEquals(TaskStatus.IN_PROGRESS, task.getStatus());
+    }
+
+    private TaskResponseDTO view() throws Exception {
+        String json = mockMvc.perform(get("/projects/" + projectId + "/tasks/" + taskId + "/view/" + userId))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(json, TaskResponseDTO.class);
+    }
+
+    private static Map<String, Object> body(TaskResponseDTO task) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", task.getName());
+        body.put("description", task.getDescription());
+        body.put("dueDate", task.getDueDate().toString());
+        body.put("priority", task.getPriority().name());
+        body.put("completionDate", task.getCompletionDate() != null ? task.getCompletionDate().toString() : null);
+        body.put("status", task.getStatus().name());
+        return body;
+    }
+
+    private MockHttpServletResponse update(Map<String, Object> body, Long version) throws Exception {
+        return mockMvc.perform(put("/projects/" + projectId + "/tasks/" + taskId + "/update/" + userId)
+                        .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andReturn().getResponse();
+    }
+
+    private MockHttpServletResponse updateStatus(TaskStatus status, Long version) throws Exception {
+        return mockMvc.perform(put("/projects/" + projectId + "/tasks/" + taskId + "/update-status/" + userId)
+                        .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("status", status.name()))))
+                .andReturn().getResponse();
+    }
+}
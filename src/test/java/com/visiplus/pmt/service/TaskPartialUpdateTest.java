@@ -0,0 +1,187 @@
+package com.visiplus.pmt.service;
+
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
+import com.visiplus.pmt.dto.TaskResponseDTO;
+import com.visiplus.pmt.entity.AppUser;
+import com.visiplus.pmt.entity.Project;
+import com.visiplus.pmt.entity.Task;
+import com.visiplus.pmt.entity.TaskHistory;
+import com.visiplus.pmt.enums.Priority;
+import com.visiplus.pmt.enums.Role;
+import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.events.TaskEventBroker;
+import com.visiplus.pmt.repository.TaskHistoryRepository;
+import com.visiplus.pmt.repository.TaskRepository;
+import com.visiplus.pmt.search.TaskSearchIndex;
+import com.visiplus.pmt.service.impl.ProjectTaskStatsRecorder;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
+import com.visiplus.pmt.service.impl.TaskServiceImpl;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Partial task updates against the database: the SQL they send only writes the modified columns.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.visiplus.pmt.service.TaskPartialUpdateTest$SqlCapture")
+@Import({TaskServiceImpl.class, TaskHistoryRecorder.class, ProjectTaskStatsRecorder.class})
+class TaskPartialUpdateTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskHistoryRepository taskHistoryRepository;
+
+    @MockBean
+    private ProjectRoleCache projectRoleCache;
+
+    @MockBean
+    private ProjectActivityCache projectActivityCache;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private TaskEventBroker taskEventBroker;
+
+    @MockBean
+    private TaskSearchIndex taskSearchIndex;
+
+    @MockBean
+    private ResponseCache responseCache;
+
+    private AppUser user;
+    private Project project;
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(new AppUser(null, "user", "user@example.com", "password", null));
+        project = entityManager.persist(new Project(null, "Project", "Description", null, user, null));
+        task = entityManager.persist(new Task(null, "Task", "Description", LocalDate.of(2024, 1, 1), Priority.LOW,
+                project, null, LocalDate.of(2024, 1, 5), TaskStatus.TODO));
+        entityManager.flush();
+        entityManager.clear();
+        when(projectRoleCache.getRole(project.getId(), user.getId())).thenReturn(Optional.of(Role.MEMBER));
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    void patchTask_UpdatesOnlyThePatchedColumns() {
+        Task patch = new Task();
+        patch.setPriority(Priority.HIGH);
+
+        TaskResponseDTO patched = taskService.patchTask(task.getId(), project.getId(), user.getId(), patch, Set.of("priority"), null);
+
+        assertEquals(Priority.HIGH, patched.getPriority());
+        assertEquals("Task", patched.getName());
+        assertEquals(1L, patched.getVersion());
+
+        List<String> updates = statements("update tasks");
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0).matches("update tasks set priority=\\?,version=\\? where id=\\? and version=\\?"), updates.get(0));
+
+        List<TaskHistory> history = taskHistoryRepository.findByTaskId(task.getId());
+        assertEquals(1, history.size());
+        assertEquals("priority", history.get(0).getFieldName());
+    }
+
+    @Test
+    void patchTask_ClearsNullableFields_AndRejectsOthers() {
+        Task patch = new Task();
+
+        TaskResponseDTO patched = taskService.patchTask(task.getId(), project.getId(), user.getId(), patch, Set.of("completionDate"), null);
+        assertNull(patched.getCompletionDate());
+
+        ResponseStatusException nullName = assertThrows(ResponseStatusException.class,
+                () -> taskService.patchTask(task.getId(), project.getId(), user.getId(), patch, Set.of("name"), null));
+        assertEquals(HttpStatus.BAD_REQUEST, nullName.getStatusCode());
+
+        ResponseStatusException project = assertThrows(ResponseStatusException.class,
+                () -> taskService.patchTask(task.getId(), this.project.getId(), user.getId(), patch, Set.of("project"), null));
+        assertEquals(HttpStatus.BAD_REQUEST, project.getStatusCode());
+    }
+
+    @Test
+    void updateTaskStatus_WritesStatusInOneConditionalUpdate_WithoutLoadingTheTask() {
+        TaskResponseDTO updated = taskService.updateTaskStatus(task.getId(), project.getId(), user.getId(), "IN_PROGRESS", null);
+
+        assertEquals(TaskStatus.IN_PROGRESS, updated.getStatus());
+        assertEquals(1L, updated.getVersion());
+        assertEquals("Project", updated.getProject().getName());
+
+        // One projection row with the project, no entity load, and one UPDATE checking project and version
+        assertEquals(1, statements("from tasks").size());
+        List<String> updates = statements("update tasks");
+        assertEquals(1, updates.size());
+        assertTrue(updates.get(0).contains("status=?") && updates.get(0).contains("project_id=?")
+                && updates.get(0).contains("version=?") && !updates.get(0).contains("name"), updates.get(0));
+
+        entityManager.flush();
+        entityManager.clear();
+        Task saved = taskRepository.findById(task.getId()).orElseThrow();
+        assertEquals(TaskStatus.IN_PROGRESS, saved.getStatus());
+        assertEquals(1L, saved.getVersion());
+        assertEquals("TODO", taskHistoryRepository.findByTaskId(task.getId()).get(0).getOldValue());
+    }
+
+    @Test
+    void updateTaskStatus_Fails_WhenTaskBelongsToAnotherProject() {
+        Project otherProject = entityManager.persist(new Project(null, "Other", "Description", null, user, null));
+        when(projectRoleCache.getRole(otherProject.getId(), user.getId())).thenReturn(Optional.of(Role.ADMIN));
+
+        assertThrows(RuntimeException.class,
+                () -> taskService.updateTaskStatus(task.getId(), otherProject.getId(), user.getId(), "COMPLETED", null));
+
+        entityManager.clear();
+        assertEquals(TaskStatus.TODO, taskRepository.findById(task.getId()).orElseThrow().getStatus());
+    }
+
+    // Statements sent since setUp containing the fragment, normalized to lower case
+    private static List<String> statements(String fragment) {
+        synchronized (SqlCapture.STATEMENTS) {
+            return SqlCapture.STATEMENTS.stream()
+                    .map(sql -> sql.toLowerCase().replaceAll("\\s+", " ").replaceAll("\\w+_0\\.", ""))
+                    .filter(sql -> sql.contains(fragment))
+                    .toList();
+        }
+    }
+
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -1,28 +1,46 @@
 package com.visiplus.pmt.service;
 
+import com.visiplus.pmt.cache.ProjectActivityCache;
+import com.visiplus.pmt.cache.ProjectRoleCache;
+import com.visiplus.pmt.cache.ResponseCache;
+import com.visiplus.pmt.dto.TaskFilterDTO;
 import com.visiplus.pmt.dto.TaskResponseDTO;
 import com.visiplus.pmt.entity.*;
 import com.visiplus.pmt.enums.Priority;
 import com.visiplus.pmt.enums.Role;
 import com.visiplus.pmt.enums.TaskStatus;
+import com.visiplus.pmt.events.TaskEventBroker;
 import com.visiplus.pmt.repository.AppUserRepository;
 import com.visiplus.pmt.repository.ProjectMemberRoleRepository;
 import com.visiplus.pmt.repository.ProjectRepository;
+import com.visiplus.pmt.repository.ProjectTaskStatsRepository;
+import com.visiplus.pmt.repository.TaskHistoryArchiveRepository;
 import com.visiplus.pmt.repository.TaskHistoryRepository;
 import com.visiplus.pmt.repository.TaskRepository;
+import com.visiplus.pmt.search.TaskSearchIndex;
+import com.visiplus.pmt.service.impl.ProjectTaskStatsRecorder;
+import com.visiplus.pmt.service.impl.TaskHistoryRecorder;
 import com.visiplus.pmt.service.impl.TaskServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class TaskServiceImplTest {
@@ -42,7 +60,21 @@ public class TaskServiceImplTest {
     @Mock
     private TaskHistoryRepository taskHistoryRepository;
 
-    @InjectMocks
+    @Mock
+    private ProjectTaskStatsRepository projectTaskStatsRepository;
+
+    @Mock
+    private TaskEventBroker taskEventBroker;
+
+    @Mock
+    private TaskHistoryArchiveRepository taskHistoryArchiveRepository;
+
+    @Mock
+    private TaskSearchIndex taskSearchIndex;
+
+    @Mock
+    private ResponseCache responseCache;
+
     private TaskServiceImpl taskService;
 
     @Mock
@@ -51,6 +83,12 @@ public class TaskServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ProjectRoleCache projectRoleCache = new ProjectRoleCache(projectMemberRoleRepository, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        TaskHistoryRecorder taskHistoryRecorder = new TaskHistoryRecorder(taskHistoryRepository, taskHistoryArchiveRepository, mock(ProjectActivityCache.class),
+                mock(PlatformTransactionManager.class), false, 100, 100);
+        ProjectTaskStatsRecorder projectTaskStatsRecorder = new ProjectTaskStatsRecorder(projectTaskStatsRepository, projectRepository);
+        taskService = new TaskServiceImpl(taskRepository, projectRepository, projectRoleCache, appUserRepository, emailService, taskHistoryRepository,
+                taskHistoryRecorder, projectTaskStatsRecorder, taskEventBroker, taskSearchIndex, responseCache);
     }
 
     @Test
@@ -141,7 +179,7 @@ public class TaskServiceImplTest {
         when(taskRepository.save(any(Task.class))).thenReturn(task);
 
         // Execute the update task method
-        TaskResponseDTO updatedTaskDTO = taskService.updateTask(taskId, projectId, userId, updatedTaskInfo);
+        TaskResponseDTO updatedTaskDTO = taskService.updateTask(taskId, projectId, userId, updatedTaskInfo, null);
 
         // Verify that the task's fields were updated
         assertEquals(updatedTaskInfo.getName(), updatedTaskDTO.getName());
@@ -150,8 +188,12 @@ public class TaskServiceImplTest {
         assertEquals(updatedTaskInfo.getPriority(), updatedTaskDTO.getPriority());
         assertEquals(updatedTaskInfo.getStatus(), updatedTaskDTO.getStatus());
 
-        // Verify that task history entries were saved for each updated field
-        verify(taskHistoryRepository, atLeast(1)).save(any(TaskHistory.class));
+        // Verify that task history entries were saved for each updated field, in a single batch
+        verify(taskHistoryRepository, times(1)).saveAll(argThat((List<TaskHistory> changes) -> changes.size() == 5));
+        verify(taskHistoryRepository, never()).save(any(TaskHistory.class));
+        // The name changed: the task is indexed again
+        verify(taskSearchIndex, times(1)).indexAfterCommit(List.of(taskId));
+        verify(responseCache, times(1)).evict(projectId);
     }
 
 
@@ -192,6 +234,8 @@ public class TaskServiceImplTest {
 
         // Verify and assert
         assertEquals(assigneeId, assignedTask.getAssignee().getId());
+        verify(emailService, times(1)).queueTaskAssignmentEmail(any(), any(), any());
+        verify(emailService, never()).sendTaskAssignmentEmail(any(), any(), any());
     }
 
     @Test
@@ -204,10 +248,6 @@ public class TaskServiceImplTest {
         Project project = new Project();
         project.setId(projectId);
 
-        Task task = new Task();
-        task.setId(taskId);
-        task.setProject(project);
-
         AppUser user = new AppUser();
         user.setId(userId);
 
@@ -216,16 +256,44 @@ public class TaskServiceImplTest {
         memberRole.setMember(user);
         memberRole.setRole(Role.MEMBER); // Assign MEMBER role
 
+        TaskResponseDTO task = new TaskResponseDTO(taskId, "Task Name", "Description", LocalDate.now(), Priority.HIGH,
+                null, TaskStatus.TODO, 4L, projectId, "Project", null, null, null, null);
+
         // Mock repository responses
         when(projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId)).thenReturn(Optional.of(memberRole));
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(taskRepository.save(task)).thenReturn(task);
+        when(taskRepository.findTaskResponseById(taskId, projectId)).thenReturn(Optional.of(task));
+        when(taskRepository.updateStatus(taskId, projectId, TaskStatus.IN_PROGRESS, 4L)).thenReturn(1);
 
         // Execute method
-        TaskResponseDTO updatedTask = taskService.updateTaskStatus(taskId, projectId, userId, "IN_PROGRESS");
+        TaskResponseDTO updatedTask = taskService.updateTaskStatus(taskId, projectId, userId, "IN_PROGRESS", null);
 
-        // Assert status update
+        // Assert status update, written by a single UPDATE without loading the task
         assertEquals(TaskStatus.IN_PROGRESS, updatedTask.getStatus());
+        assertEquals(5L, updatedTask.getVersion());
+        verify(taskRepository, never()).findById(any());
+        verify(taskRepository, never()).save(any());
+        verify(taskHistoryRepository, times(1)).saveAll(argThat(rows ->
+                rows.iterator().next().getOldValue().equals("TODO") && rows.iterator().next().getTaskVersion() == 5L));
+    }
+
+    @Test
+    void updateTaskStatus_ThrowsOptimisticLockFailure_WhenTaskChangedSinceRead() {
+        Long projectId = 1L;
+        Long taskId = 1L;
+        Long userId = 1L;
+
+        ProjectMemberRole memberRole = new ProjectMemberRole();
+        memberRole.setRole(Role.MEMBER);
+        TaskResponseDTO task = new TaskResponseDTO(taskId, "Task Name", "Description", LocalDate.now(), Priority.HIGH,
+                null, TaskStatus.TODO, 4L, projectId, "Project", null, null, null, null);
+
+        when(projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId)).thenReturn(Optional.of(memberRole));
+        when(taskRepository.findTaskResponseById(taskId, projectId)).thenReturn(Optional.of(task));
+        when(taskRepository.updateStatus(taskId, projectId, TaskStatus.COMPLETED, 4L)).thenReturn(0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> taskService.updateTaskStatus(taskId, projectId, userId, "COMPLETED", null));
+        verify(taskHistoryRepository, never()).saveAll(any());
     }
 
 
@@ -267,4 +335,85 @@ public class TaskServiceImplTest {
         assertEquals(1, tasks.size());
         assertEquals(status, tasks.get(0).getStatus());
     }
+
+    @Test
+    void getETags_ReadVersionsWithoutLoadingTasks() {
+        Long projectId = 1L;
+        Long userId = 2L;
+        when(projectMemberRoleRepository.findByProjectIdAndMemberId(projectId, userId))
+                .thenReturn(Optional.of(new ProjectMemberRole(null, null, Role.OBSERVER)));
+        when(taskRepository.findVersionByIdAndProjectId(3L, projectId)).thenReturn(Optional.of(7L));
+        when(taskRepository.findVersionsByProjectIdAndStatus(projectId, TaskStatus.TODO)).thenReturn(List.of("3:7", "4:1"));
+
+        assertEquals("7", taskService.getTaskETag(3L, projectId, userId));
+        assertEquals(null, taskService.getTaskETag(5L, projectId, userId));
+
+        // One more version of a task changes the tag
+        String eTag = taskService.getTasksByStatusETag(TaskStatus.TODO, projectId);
+        assertEquals(eTag, taskService.getTasksByStatusETag(TaskStatus.TODO, projectId));
+        when(taskRepository.findVersionsByProjectIdAndStatus(projectId, TaskStatus.TODO)).thenReturn(List.of("3:8", "4:1"));
+        assertNotEquals(eTag, taskService.getTasksByStatusETag(TaskStatus.TODO, projectId));
+
+        verify(taskRepository, never()).findById(any());
+        verify(taskRepository, never()).findByProjectIdAndStatus(any(), any());
+    }
+
+    @Test
+    void getTasksByUserId_ReadsFeedInOneRepositoryCall() {
+        Long userId = 1L;
+        TaskResponseDTO task = new TaskResponseDTO(1L, "Task Name", "Description", LocalDate.now(), Priority.HIGH,
+                null, TaskStatus.TODO, 0L, 2L, "Project", "Project description", null, null, null);
+
+        when(taskRepository.findTaskFeedByUserId(eq(userId), eq(0L), any(Pageable.class))).thenReturn(List.of(task));
+
+        List<TaskResponseDTO> tasks = taskService.getTasksByUserId(userId);
+
+        assertEquals(1, tasks.size());
+        assertEquals("Project", tasks.get(0).getProject().getName());
+        verify(taskRepository, never()).findByProjectId(any());
+        verify(projectMemberRoleRepository, never()).findByMemberId(any());
+    }
+
+    @Test
+    void getTasksByUserId_PassesKeysetCursor_WhenPaginated() {
+        Long userId = 1L;
+
+        when(taskRepository.findTaskFeedByUserId(userId, 10L, PageRequest.ofSize(5))).thenReturn(List.of());
+
+        List<TaskResponseDTO> tasks = taskService.getTasksByUserId(userId, 10L, 5);
+
+        assertEquals(0, tasks.size());
+        verify(taskRepository, times(1)).findTaskFeedByUserId(userId, 10L, PageRequest.ofSize(5));
+    }
+
+    @Test
+    void getTasksByProjectId_ReturnsProjectedTasks_WhenFilterProvided() {
+        Long projectId = 1L;
+        TaskFilterDTO filter = new TaskFilterDTO();
+        filter.setStatus(TaskStatus.IN_PROGRESS);
+        filter.setSize(10);
+
+        TaskResponseDTO task = new TaskResponseDTO(3L, "Task Name", "Description", LocalDate.now(), Priority.LOW,
+                null, TaskStatus.IN_PROGRESS, 0L, projectId, "Project", null, null, null, null);
+
+        when(taskRepository.findTasksByProjectId(projectId, TaskStatus.IN_PROGRESS, null, null, null, 0L, PageRequest.ofSize(10)))
+                .thenReturn(List.of(task));
+
+        List<TaskResponseDTO> tasks = taskService.getTasksByProjectId(projectId, filter);
+
+        assertEquals(1, tasks.size());
+        assertEquals(TaskStatus.IN_PROGRESS, tasks.get(0).getStatus());
+        verify(taskRepository, never()).findByProjectId(any());
+    }
+
+    @Test
+    void getTasksByProjectId_ReadsAPage_WhenTheFilterHasNoSize() {
+        Long projectId = 1L;
+        TaskFilterDTO filter = new TaskFilterDTO();
+        filter.setStatus(TaskStatus.TODO);
+
+        taskService.getTasksByProjectId(projectId, filter);
+
+        verify(taskRepository).findTasksByProjectId(projectId, TaskStatus.TODO, null, null, null, 0L, PageRequest.ofSize(50));
+    }
 }